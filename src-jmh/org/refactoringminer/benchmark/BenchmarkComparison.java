@@ -0,0 +1,103 @@
+package org.refactoringminer.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares the JSON results of a JMH run with the results of a baseline run, and reports the benchmarks that regressed.
+ * <p>
+ * Usage: {@code BenchmarkComparison <baseline.json> <results.json> [maxRegressionPercent]}
+ * <p>
+ * A benchmark regresses when its score is worse than the baseline score by more than {@code maxRegressionPercent} (default 10)
+ * and by more than the sum of the score errors of both runs. The process exits with status 1 if any benchmark regressed,
+ * so that the comparison can gate an upgrade in a build.
+ */
+public class BenchmarkComparison {
+	private static final double DEFAULT_MAX_REGRESSION_PERCENT = 10.0;
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparison <baseline.json> <results.json> [maxRegressionPercent]");
+			System.exit(2);
+		}
+		double maxRegressionPercent = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_MAX_REGRESSION_PERCENT;
+		Map<String, Score> baseline = readScores(new File(args[0]));
+		Map<String, Score> results = readScores(new File(args[1]));
+		int regressions = 0;
+		System.out.println(String.format("%-90s %14s %14s %9s", "Benchmark", "Baseline", "Current", "Change"));
+		for (Map.Entry<String, Score> entry : results.entrySet()) {
+			String benchmark = entry.getKey();
+			Score current = entry.getValue();
+			Score previous = baseline.get(benchmark);
+			if (previous == null) {
+				System.out.println(String.format("%-90s %14s %14s %9s", benchmark, "-", current, "new"));
+				continue;
+			}
+			double changePercent = 100.0 * (current.score - previous.score) / previous.score;
+			//positive when the current run is slower, whichever the benchmark mode
+			double regressionPercent = current.higherIsBetter ? -changePercent : changePercent;
+			boolean regression = regressionPercent > maxRegressionPercent &&
+					Math.abs(current.score - previous.score) > current.error + previous.error;
+			if (regression) {
+				regressions++;
+			}
+			System.out.println(String.format("%-90s %14s %14s %+8.1f%%%s", benchmark, previous, current, changePercent, regression ? "  REGRESSION" : ""));
+		}
+		for (String benchmark : baseline.keySet()) {
+			if (!results.containsKey(benchmark)) {
+				System.out.println(String.format("%-90s %14s %14s %9s", benchmark, baseline.get(benchmark), "-", "missing"));
+			}
+		}
+		System.out.println(String.format("%d benchmarks compared, %d regressed by more than %.1f%%", results.size(), regressions, maxRegressionPercent));
+		if (regressions > 0) {
+			System.exit(1);
+		}
+	}
+
+	private static Map<String, Score> readScores(File file) throws IOException {
+		Map<String, Score> scores = new LinkedHashMap<String, Score>();
+		for (JsonNode run : new ObjectMapper().readTree(file)) {
+			StringBuilder key = new StringBuilder(run.get("benchmark").asText());
+			JsonNode params = run.get("params");
+			if (params != null) {
+				String separator = ":";
+				for (Iterator<Map.Entry<String, JsonNode>> i = params.fields(); i.hasNext();) {
+					Map.Entry<String, JsonNode> param = i.next();
+					key.append(separator).append(param.getKey()).append("=").append(param.getValue().asText());
+					separator = ",";
+				}
+			}
+			JsonNode metric = run.get("primaryMetric");
+			String mode = run.get("mode").asText();
+			double error = metric.get("scoreError").asDouble();
+			scores.put(key.toString(), new Score(metric.get("score").asDouble(), Double.isNaN(error) ? 0 : error,
+					metric.get("scoreUnit").asText(), mode.equals("thrpt")));
+		}
+		return scores;
+	}
+
+	private static class Score {
+		private final double score;
+		private final double error;
+		private final String unit;
+		private final boolean higherIsBetter;
+
+		private Score(double score, double error, String unit, boolean higherIsBetter) {
+			this.score = score;
+			this.error = error;
+			this.unit = unit;
+			this.higherIsBetter = higherIsBetter;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%.3f %s", score, unit);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package org.refactoringminer.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * The fixed inputs of the benchmarks: the two versions of a file changed by a commit of the statement mapping oracle ({@code src-test/data/mappings}),
+ * and the method whose body mapping is checked by the oracle.
+ */
+public enum BenchmarkInput {
+	GraphHopperStorage("core/src/main/java/com/graphhopper/storage/GraphHopperStorage.java", "inPlaceNodeRemove"),
+	PackStreamMessageFormatV1("community/ndp/messaging-v1/src/main/java/org/neo4j/ndp/messaging/v1/PackStreamMessageFormatV1.java", "packValue"),
+	ExecutionUtil("platform/lang-api/src/com/intellij/execution/runners/ExecutionUtil.java", "getLiveIndicator"),
+	PredicateParser("core/src/main/java/io/undertow/predicate/PredicateParser.java", "parse"),
+	DatasetUtilities("src/main/java/org/jfree/data/general/DatasetUtilities.java", "iterateRangeBounds");
+
+	private static final String MAPPINGS_PATH = System.getProperty("user.dir") + "/src-test/data/mappings/";
+	private final String filePath;
+	private final String methodName;
+
+	private BenchmarkInput(String filePath, String methodName) {
+		this.filePath = filePath;
+		this.methodName = methodName;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	public Map<String, String> fileContentsBefore() throws IOException {
+		return fileContents("-v1.txt");
+	}
+
+	public Map<String, String> fileContentsCurrent() throws IOException {
+		return fileContents("-v2.txt");
+	}
+
+	public Set<String> repositoryDirectories() {
+		Set<String> repositoryDirectories = new LinkedHashSet<String>();
+		String directory = filePath;
+		while (directory.contains("/")) {
+			directory = directory.substring(0, directory.lastIndexOf("/"));
+			repositoryDirectories.add(directory);
+		}
+		return repositoryDirectories;
+	}
+
+	private Map<String, String> fileContents(String suffix) throws IOException {
+		Map<String, String> fileContents = new LinkedHashMap<String, String>();
+		fileContents.put(filePath, FileUtils.readFileToString(new File(MAPPINGS_PATH + name() + suffix), StandardCharsets.UTF_8));
+		return fileContents;
+	}
+}
@@ -0,0 +1,57 @@
+package org.refactoringminer.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.diff.UMLModelDiff;
+
+/**
+ * Diff of the models of two file versions, alone and followed by the refactoring inference of {@link UMLModelDiff#getRefactorings()}.
+ * The diff updates the state of the code fragments of both models, so the models are parsed again before each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelDiffBenchmark {
+	@Param
+	public BenchmarkInput input;
+	private UMLModel parentModel;
+	private UMLModel currentModel;
+
+	@Setup(Level.Invocation)
+	public void setup() throws IOException {
+		parentModel = new UMLModelASTReader(input.fileContentsBefore(), input.repositoryDirectories(), false).getUmlModel();
+		currentModel = new UMLModelASTReader(input.fileContentsCurrent(), input.repositoryDirectories(), false).getUmlModel();
+	}
+
+	@Benchmark
+	public UMLModelDiff diff() throws RefactoringMinerTimedOutException {
+		return parentModel.diff(currentModel);
+	}
+
+	@Benchmark
+	public List<Refactoring> refactorings() throws RefactoringMinerTimedOutException {
+		return parentModel.diff(currentModel).getRefactorings();
+	}
+}
@@ -0,0 +1,71 @@
+package org.refactoringminer.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.decomposition.UMLOperationBodyMapper;
+import gr.uom.java.xmi.diff.UMLClassDiff;
+import gr.uom.java.xmi.diff.UMLModelDiff;
+
+/**
+ * Construction of a single {@link UMLOperationBodyMapper} for the method checked by the statement mapping oracle.
+ * Mapping the operations updates the state of their statements, so the models are parsed and diffed again before each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OperationBodyMapperBenchmark {
+	@Param
+	public BenchmarkInput input;
+	private UMLOperation operation1;
+	private UMLOperation operation2;
+	private UMLClassDiff classDiff;
+
+	@Setup(Level.Invocation)
+	public void setup() throws IOException, RefactoringMinerTimedOutException {
+		operation1 = null;
+		operation2 = null;
+		classDiff = null;
+		UMLModel parentModel = new UMLModelASTReader(input.fileContentsBefore(), input.repositoryDirectories(), false).getUmlModel();
+		UMLModel currentModel = new UMLModelASTReader(input.fileContentsCurrent(), input.repositoryDirectories(), false).getUmlModel();
+		UMLModelDiff modelDiff = parentModel.diff(currentModel);
+		for(UMLClassDiff commonClassDiff : modelDiff.getCommonClassDiffList()) {
+			for(UMLOperationBodyMapper mapper : commonClassDiff.getOperationBodyMapperList()) {
+				if(operation1 == null && mapper.getOperation1() != null && mapper.getOperation2() != null &&
+						mapper.getOperation1().getName().equals(input.getMethodName()) && mapper.getOperation2().getName().equals(input.getMethodName())) {
+					operation1 = mapper.getOperation1();
+					operation2 = mapper.getOperation2();
+					classDiff = commonClassDiff;
+				}
+			}
+		}
+		if(classDiff == null) {
+			throw new IllegalStateException("No mapper found for method " + input.getMethodName() + " in " + input);
+		}
+	}
+
+	@Benchmark
+	public UMLOperationBodyMapper map() throws RefactoringMinerTimedOutException {
+		return new UMLOperationBodyMapper(operation1, operation2, classDiff);
+	}
+}
@@ -0,0 +1,53 @@
+package org.refactoringminer.benchmark;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+
+/**
+ * Parsing of a file version into a {@link UMLModel}, with and without the tree contexts needed by the AST diff.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingBenchmark {
+	@Param
+	public BenchmarkInput input;
+	private Map<String, String> fileContents;
+	private Set<String> repositoryDirectories;
+
+	@Setup
+	public void setup() throws IOException {
+		fileContents = input.fileContentsBefore();
+		repositoryDirectories = input.repositoryDirectories();
+	}
+
+	@Benchmark
+	public UMLModel parse() {
+		return new UMLModelASTReader(fileContents, repositoryDirectories, false).getUmlModel();
+	}
+
+	@Benchmark
+	public UMLModel parseForASTDiff() {
+		return new UMLModelASTReader(fileContents, repositoryDirectories, true).getUmlModel();
+	}
+}
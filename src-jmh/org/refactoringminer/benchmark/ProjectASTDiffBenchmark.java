@@ -0,0 +1,53 @@
+package org.refactoringminer.benchmark;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.astDiff.actions.ASTDiff;
+import org.refactoringminer.astDiff.matchers.ProjectASTDiffer;
+
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.diff.UMLModelDiff;
+
+/**
+ * AST diff of two file versions with {@link ProjectASTDiffer}, starting from the model diff.
+ * The model diff and the AST diff update the state of both models, so the models are parsed and diffed again before each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectASTDiffBenchmark {
+	@Param
+	public BenchmarkInput input;
+	private UMLModelDiff modelDiff;
+
+	@Setup(Level.Invocation)
+	public void setup() throws IOException, RefactoringMinerTimedOutException {
+		UMLModel parentModel = new UMLModelASTReader(input.fileContentsBefore(), input.repositoryDirectories(), true).getUmlModel();
+		UMLModel currentModel = new UMLModelASTReader(input.fileContentsCurrent(), input.repositoryDirectories(), true).getUmlModel();
+		modelDiff = parentModel.diff(currentModel);
+	}
+
+	@Benchmark
+	public Set<ASTDiff> astDiff() throws RefactoringMinerTimedOutException {
+		return new ProjectASTDiffer(modelDiff).getDiffSet();
+	}
+}
@@ -0,0 +1,99 @@
+package org.refactoringminer.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.decomposition.AbstractCodeFragment;
+import gr.uom.java.xmi.diff.StringDistance;
+
+/**
+ * The edit distance over all pairs of leaf statements of the two versions of the method checked by the statement mapping oracle.
+ * {@link StringDistance#editDistance(String, String)} is the distance the body mapper computes for each pair of leaves,
+ * and {@link StringDistance#editDistance(String, String, int)} is the bounded distance the replacement search computes for each candidate replacement,
+ * with the smallest distance found so far as the threshold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StringDistanceBenchmark {
+	@Param
+	public BenchmarkInput input;
+	private String[] statements1;
+	private String[] statements2;
+	//distance of each statement of the first version to the first statement of the second version, the initial threshold of its search
+	private int[] thresholds;
+
+	@Setup
+	public void setup() throws IOException {
+		UMLModel parentModel = new UMLModelASTReader(input.fileContentsBefore(), input.repositoryDirectories(), false).getUmlModel();
+		UMLModel currentModel = new UMLModelASTReader(input.fileContentsCurrent(), input.repositoryDirectories(), false).getUmlModel();
+		statements1 = leafStatements(parentModel, input.getMethodName());
+		statements2 = leafStatements(currentModel, input.getMethodName());
+		thresholds = new int[statements1.length];
+		for(int i=0; i<statements1.length; i++) {
+			thresholds[i] = statements2.length > 0 ? StringDistance.editDistance(statements1[i], statements2[0]) : 0;
+		}
+	}
+
+	private static String[] leafStatements(UMLModel model, String methodName) {
+		List<String> statements = new ArrayList<String>();
+		for(UMLClass umlClass : model.getClassList()) {
+			for(UMLOperation operation : umlClass.getOperations()) {
+				if(operation.getName().equals(methodName) && operation.getBody() != null) {
+					for(AbstractCodeFragment leaf : operation.getBody().getCompositeStatement().getLeaves()) {
+						statements.add(leaf.getString());
+					}
+				}
+			}
+		}
+		return statements.toArray(new String[statements.size()]);
+	}
+
+	@Benchmark
+	public int editDistance() {
+		int sum = 0;
+		for(String s1 : statements1) {
+			for(String s2 : statements2) {
+				sum += StringDistance.editDistance(s1, s2);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int editDistanceWithThreshold() {
+		int sum = 0;
+		for(int i=0; i<statements1.length; i++) {
+			int minDistance = thresholds[i];
+			for(String s2 : statements2) {
+				int distance = StringDistance.editDistance(statements1[i], s2, minDistance);
+				if(distance >= 0 && distance < minDistance) {
+					minDistance = distance;
+				}
+			}
+			sum += minDistance;
+		}
+		return sum;
+	}
+}
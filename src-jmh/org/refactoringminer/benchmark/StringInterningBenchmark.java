@@ -0,0 +1,67 @@
+package org.refactoringminer.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.decomposition.SymbolTable;
+
+/**
+ * Parsing of both file versions, alone and followed by the diff and the refactoring inference, with and without
+ * a {@link SymbolTable} shared by the two models, as set by {@code GitHistoryRefactoringMinerImpl.setStringInterning}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StringInterningBenchmark {
+	@Param
+	public BenchmarkInput input;
+	@Param({"false", "true"})
+	public boolean interning;
+	private Map<String, String> fileContentsBefore;
+	private Map<String, String> fileContentsCurrent;
+	private Set<String> repositoryDirectories;
+
+	@Setup
+	public void setup() throws IOException {
+		fileContentsBefore = input.fileContentsBefore();
+		fileContentsCurrent = input.fileContentsCurrent();
+		repositoryDirectories = input.repositoryDirectories();
+	}
+
+	@Benchmark
+	public UMLModel[] parse() {
+		SymbolTable symbols = interning ? new SymbolTable() : null;
+		return new UMLModel[] {
+				new UMLModelASTReader(fileContentsBefore, null, repositoryDirectories, false, null, symbols).getUmlModel(),
+				new UMLModelASTReader(fileContentsCurrent, null, repositoryDirectories, false, null, symbols).getUmlModel()
+		};
+	}
+
+	@Benchmark
+	public List<Refactoring> refactorings() throws RefactoringMinerTimedOutException {
+		UMLModel[] models = parse();
+		return models[0].diff(models[1]).getRefactorings();
+	}
+}
@@ -0,0 +1,113 @@
+package gr.uom.java.xmi.decomposition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.UMLOperation;
+
+public class LeafMatchIndexTest {
+	private static final String SOURCE =
+			"package p;\n" +
+			"public class Before {\n" +
+			"	int sum(int a, int b) {\n" +
+			"		int c = a + b;\n" +
+			"		if (a + b > 0) {\n" +
+			"			return a + b;\n" +
+			"		}\n" +
+			"		for (int i = 0; i < b; i++) {\n" +
+			"			c += i;\n" +
+			"		}\n" +
+			"		return c;\n" +
+			"	}\n" +
+			"}\n" +
+			"class After {\n" +
+			"	int sum(int a, int c) {\n" +
+			"		int d = a + c;\n" +
+			"		if (a + c > 0) {\n" +
+			"			d += a + b;\n" +
+			"		}\n" +
+			"		while (a + b > 0) {\n" +
+			"			return a + b;\n" +
+			"		}\n" +
+			"		for (int i = 0; i < b; i++) {\n" +
+			"			c += i;\n" +
+			"		}\n" +
+			"		return c;\n" +
+			"	}\n" +
+			"}\n";
+
+	@Test
+	public void testIdenticalMatchesAgreeWithPairwiseComparison() {
+		UMLModel model = new UMLModelASTReader(Map.of("src/p/Before.java", SOURCE), Set.of("src", "src/p"), false).getUmlModel();
+		List<AbstractCodeFragment> leaves1 = leavesAndExpressions(model.getClassByName("p.Before"));
+		List<AbstractCodeFragment> leaves2 = leavesAndExpressions(model.getClassByName("p.After"));
+		//argumentize the second side, so that the argumentized strings differ from the strings
+		for(AbstractCodeFragment leaf2 : leaves2) {
+			leaf2.replaceParametersWithArguments(Map.of("c", "b"));
+		}
+		LeafMatchIndex index1 = new LeafMatchIndex(leaves1);
+		LeafMatchIndex index2 = new LeafMatchIndex(leaves2);
+		assertSameMatches(leaves1, leaves2, index1, index2);
+		//the indexed lists shrink while the leaves are mapped
+		leaves1.remove(0);
+		leaves2.remove(leaves2.size() - 1);
+		assertSameMatches(leaves1, leaves2, index1, index2);
+	}
+
+	private static void assertSameMatches(List<AbstractCodeFragment> leaves1, List<AbstractCodeFragment> leaves2, LeafMatchIndex index1, LeafMatchIndex index2) {
+		for(AbstractCodeFragment leaf1 : leaves1) {
+			List<AbstractCodeFragment> expected = new ArrayList<AbstractCodeFragment>();
+			List<AbstractCodeFragment> expectedStrings = new ArrayList<AbstractCodeFragment>();
+			for(AbstractCodeFragment leaf2 : leaves2) {
+				if(leaf1.getString().equals(leaf2.getString()) || preprocessInput(leaf1, leaf2).equals(preprocessInput(leaf2, leaf1))) {
+					expected.add(leaf2);
+				}
+				if(leaf1.getString().equals(leaf2.getString())) {
+					expectedStrings.add(leaf2);
+				}
+			}
+			Assertions.assertEquals(expected, index2.identicalMatches(leaf1), leaf1.getString());
+			Assertions.assertEquals(expectedStrings, index2.identicalStringMatches(leaf1), leaf1.getString());
+		}
+		for(AbstractCodeFragment leaf2 : leaves2) {
+			List<AbstractCodeFragment> expected = new ArrayList<AbstractCodeFragment>();
+			for(AbstractCodeFragment leaf1 : leaves1) {
+				if(leaf1.getString().equals(leaf2.getString()) || preprocessInput(leaf1, leaf2).equals(preprocessInput(leaf2, leaf1))) {
+					expected.add(leaf1);
+				}
+			}
+			Assertions.assertEquals(expected, index1.identicalMatches(leaf2), leaf2.getString());
+		}
+	}
+
+	//the pairwise comparison the index replaces in UMLOperationBodyMapper.processLeaves
+	private static String preprocessInput(AbstractCodeFragment leaf1, AbstractCodeFragment leaf2) {
+		String argumentizedString = leaf1.getArgumentizedString();
+		if (leaf1 instanceof StatementObject && leaf2 instanceof AbstractExpression) {
+			if (argumentizedString.startsWith("return ") && argumentizedString.endsWith(";\n")) {
+				argumentizedString = argumentizedString.substring("return ".length(), argumentizedString.lastIndexOf(";\n"));
+			}
+		}
+		return argumentizedString;
+	}
+
+	private static List<AbstractCodeFragment> leavesAndExpressions(UMLClass umlClass) {
+		List<AbstractCodeFragment> leaves = new ArrayList<AbstractCodeFragment>();
+		for(UMLOperation operation : umlClass.getOperations()) {
+			CompositeStatementObject body = operation.getBody().getCompositeStatement();
+			leaves.addAll(body.getLeaves());
+			for(CompositeStatementObject innerNode : body.getInnerNodes()) {
+				leaves.addAll(innerNode.getExpressions());
+			}
+		}
+		return leaves;
+	}
+}
@@ -0,0 +1,111 @@
+package gr.uom.java.xmi.diff;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StringDistanceTest {
+	//longer strings are not compared by StringDistance
+	private static final int MAX_STRING_LENGTH = 10000;
+
+	@Test
+	public void testRandomPairsAgreeWithDynamicProgramming() {
+		Random random = new Random(42);
+		for(int i=0; i<5000; i++) {
+			//lengths beyond 64 characters span several blocks of the bit vectors
+			String a = randomString(random, random.nextInt(200));
+			String b = random.nextBoolean() ? mutate(random, a) : randomString(random, random.nextInt(200));
+			int expected = levenshtein(a, b);
+			Assertions.assertEquals(expected, StringDistance.editDistance(a, b), a + " / " + b);
+			Assertions.assertEquals(expected, StringDistance.editDistance(a, b, expected), a + " / " + b);
+			Assertions.assertEquals(expected, StringDistance.editDistance(a, b, expected + random.nextInt(10)), a + " / " + b);
+			//below the distance, the early exit returns -1
+			for(int threshold : new int[] {0, 1, 2, 5, expected - 1}) {
+				if(threshold >= 0) {
+					Assertions.assertEquals(threshold >= expected ? expected : -1, StringDistance.editDistance(a, b, threshold), a + " / " + b + " threshold " + threshold);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLongStringsAcrossBlocks() {
+		Random random = new Random(7);
+		for(int length : new int[] {63, 64, 65, 127, 128, 129, 1000}) {
+			String a = randomString(random, length);
+			String b = mutate(random, a);
+			int expected = levenshtein(a, b);
+			Assertions.assertEquals(expected, StringDistance.editDistance(a, b));
+			Assertions.assertEquals(expected, StringDistance.editDistance(b, a));
+			Assertions.assertEquals(expected, StringDistance.editDistance(a, b, expected));
+			if(expected > 0) {
+				Assertions.assertEquals(-1, StringDistance.editDistance(a, b, expected - 1));
+			}
+		}
+	}
+
+	@Test
+	public void testMaximumStringLength() {
+		String longString = "a".repeat(MAX_STRING_LENGTH + 1);
+		String shortString = "ab";
+		Assertions.assertEquals(MAX_STRING_LENGTH + 1, StringDistance.editDistance(longString, shortString));
+		Assertions.assertEquals(3, StringDistance.editDistance(shortString, longString, 3));
+		String maximumString = "a".repeat(MAX_STRING_LENGTH);
+		Assertions.assertEquals(MAX_STRING_LENGTH - 1, StringDistance.editDistance(maximumString, "a"));
+		Assertions.assertEquals(-1, StringDistance.editDistance(maximumString, "a", 10));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> StringDistance.editDistance("a", "b", -1));
+	}
+
+	private static String randomString(Random random, int length) {
+		//a small alphabet with a non-ASCII character, so that the strings share characters
+		String alphabet = "abcd(); \u00e9";
+		StringBuilder sb = new StringBuilder(length);
+		for(int i=0; i<length; i++) {
+			sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return sb.toString();
+	}
+
+	private static String mutate(Random random, String s) {
+		StringBuilder sb = new StringBuilder(s);
+		int edits = random.nextInt(8);
+		for(int i=0; i<edits; i++) {
+			int position = sb.length() > 0 ? random.nextInt(sb.length()) : 0;
+			switch(random.nextInt(3)) {
+			case 0:
+				sb.insert(position, 'x');
+				break;
+			case 1:
+				if(sb.length() > 0) {
+					sb.deleteCharAt(position);
+				}
+				break;
+			default:
+				if(sb.length() > 0) {
+					sb.setCharAt(position, 'y');
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+	private static int levenshtein(String a, String b) {
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for(int j=0; j<=b.length(); j++) {
+			previous[j] = j;
+		}
+		for(int i=1; i<=a.length(); i++) {
+			current[0] = i;
+			for(int j=1; j<=b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()];
+	}
+}
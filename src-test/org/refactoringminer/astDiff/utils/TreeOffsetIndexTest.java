@@ -0,0 +1,55 @@
+package org.refactoringminer.astDiff.utils;
+
+import com.github.gumtreediff.tree.Tree;
+import gr.uom.java.xmi.UMLModelASTReader;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.refactoringminer.astDiff.utils.UtilMethods.getTreesPath;
+
+public class TreeOffsetIndexTest {
+
+    @ParameterizedTest(name= "{index}: Folder: {0}")
+    @ValueSource(strings = {"ambigousWithinIsoStructural", "ambiguousWithinConditionalExpression", "isoStructuralMethodInvocations", "lambdaExpressionWithEmptyBlock"})
+    public void testStoredTrees(String folder) {
+        for (String file : new String[] {"src.xml", "dst.xml"})
+            assertSameAsScan(TreeUtilFunctions.loadTree(Paths.get(getTreesPath(), folder, file).toString()));
+    }
+
+    @Test
+    public void testParsedFile() throws IOException {
+        String filePath = "src/org/refactoringminer/astDiff/utils/TreeUtilFunctions.java";
+        String content = FileUtils.readFileToString(new File(filePath), "utf-8");
+        Tree root = new UMLModelASTReader(Map.of(filePath, content), Set.of("src"), true)
+                .getUmlModel().getTreeContextMap().get(filePath).getRoot();
+        assertSameAsScan(root);
+    }
+
+    private static void assertSameAsScan(Tree root) {
+        TreeOffsetIndex index = TreeOffsetIndex.of(root);
+        for (Tree t : root.preOrder()) {
+            //the exact range of each node, and ranges starting or ending inside of it
+            int[][] ranges = {
+                    {t.getPos(), t.getEndPos()},
+                    {t.getPos() - 1, t.getEndPos() + 1},
+                    {t.getPos() + 1, t.getEndPos()},
+                    {t.getPos(), t.getEndPos() - 1}
+            };
+            for (int[] range : ranges) {
+                assertSame(TreeUtilFunctions.scanTreeBetweenPositions(root, range[0], range[1]),
+                        index.getTreeBetweenPositions(range[0], range[1]));
+                assertSame(TreeUtilFunctions.scanTreeBetweenPositions(root, range[0], range[1], t.getType().name),
+                        index.getTreeBetweenPositions(range[0], range[1], t.getType().name));
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.refactoringminer.rm1;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.refactoringminer.api.CommitResult;
+import org.refactoringminer.api.GitService;
+import org.refactoringminer.util.GitServiceImpl;
+
+public class ParallelCommitDetectorTest {
+	private static final String START_COMMIT = "819b202bfb09d4142dece04d4039f1708735019b";
+	private static final String END_COMMIT = "d4bce13a443cf12da40a77c16c1e591f4f985b47";
+	private static final int PARALLELISM = 2;
+
+	@Test
+	public void testLazySubmission() throws Exception {
+		GitService gitService = new GitServiceImpl();
+		Repository repo = gitService.cloneIfNotExists("tmp1/refactoring-toy-example", "https://github.com/danilofes/refactoring-toy-example.git");
+		CountingIterator commits = new CountingIterator(gitService.createRevsWalkBetweenCommits(repo, START_COMMIT, END_COMMIT).iterator());
+		ParallelCommitDetector detector = new ParallelCommitDetector(new GitHistoryRefactoringMinerImpl(), gitService, repo, PARALLELISM, true, 0);
+		int consumed = 0;
+		try (Stream<CommitResult> results = detector.stream(commits)) {
+			for (Iterator<CommitResult> i = results.iterator(); i.hasNext();) {
+				Assertions.assertNull(i.next().getException());
+				consumed++;
+				//the walk never runs more than twice the parallelism commits ahead of the consumer
+				Assertions.assertTrue(commits.pulled.get() - consumed < 2 * PARALLELISM);
+			}
+		}
+		Assertions.assertEquals(consumed, commits.pulled.get());
+	}
+
+	@Test
+	public void testEarlyClose() throws Exception {
+		GitService gitService = new GitServiceImpl();
+		Repository repo = gitService.cloneIfNotExists("tmp1/refactoring-toy-example", "https://github.com/danilofes/refactoring-toy-example.git");
+		CountingIterator commits = new CountingIterator(gitService.createRevsWalkBetweenCommits(repo, START_COMMIT, END_COMMIT).iterator());
+		//unordered delivery, and a commit timeout starting the watchdog thread
+		ParallelCommitDetector detector = new ParallelCommitDetector(new GitHistoryRefactoringMinerImpl(), gitService, repo, PARALLELISM, false, 300);
+		try (Stream<CommitResult> results = detector.stream(commits)) {
+			Assertions.assertEquals(2, results.limit(2).count());
+		}
+		Assertions.assertTrue(commits.pulled.get() <= 2 + 2 * PARALLELISM);
+		//closing the stream stops the watchdog thread
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("RefactoringMiner-commit-watchdog")) {
+				thread.join(10000);
+				Assertions.assertFalse(thread.isAlive(), thread.getName());
+			}
+		}
+	}
+
+	@Test
+	public void testOrderedCharacteristic() throws Exception {
+		GitService gitService = new GitServiceImpl();
+		Repository repo = gitService.cloneIfNotExists("tmp1/refactoring-toy-example", "https://github.com/danilofes/refactoring-toy-example.git");
+		for (boolean orderedDelivery : new boolean[] {true, false}) {
+			ParallelCommitDetector detector = new ParallelCommitDetector(new GitHistoryRefactoringMinerImpl(), gitService, repo, PARALLELISM, orderedDelivery, 0);
+			try (Stream<CommitResult> results = detector.stream(gitService.createRevsWalkBetweenCommits(repo, START_COMMIT, END_COMMIT).iterator())) {
+				Assertions.assertEquals(orderedDelivery, results.spliterator().hasCharacteristics(Spliterator.ORDERED));
+			}
+		}
+	}
+
+	private static class CountingIterator implements Iterator<RevCommit> {
+		private final Iterator<RevCommit> commits;
+		private final AtomicInteger pulled = new AtomicInteger();
+
+		private CountingIterator(Iterator<RevCommit> commits) {
+			this.commits = commits;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return commits.hasNext();
+		}
+
+		@Override
+		public RevCommit next() {
+			pulled.incrementAndGet();
+			return commits.next();
+		}
+	}
+}
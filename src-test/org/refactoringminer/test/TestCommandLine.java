@@ -1,12 +1,19 @@
 package org.refactoringminer.test;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.refactoringminer.RefactoringMiner;
 
+import java.io.FileInputStream;
 import java.io.FileReader;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 public class TestCommandLine {
     private static final String REPOS = "tmp1";
@@ -63,6 +70,38 @@ public class TestCommandLine {
         Assertions.assertEquals(expected, actual);
     }
 
+    @Test
+    public void testAllJsonLines() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> expected = new ArrayList<>();
+        mapper.readTree(new FileReader(EXPECTED_PATH + "refactoring-toy-example-all-expected.json")).get("commits").forEach(expected::add);
+        Assertions.assertTrue(expected.size() >= 2);
+        for (String jsonPath : new String[] {
+                REPOS + "/refactoring-toy-example/refactoring-toy-example-all-actual.jsonl",
+                REPOS + "/refactoring-toy-example/refactoring-toy-example-all-actual.jsonl.gz"}) {
+            String[] args = {
+                    "-a",
+                    REPOS + "/refactoring-toy-example",
+                    "-jsonl",
+                    jsonPath
+            };
+            RefactoringMiner.detectAll(args);
+
+            List<String> lines;
+            try (InputStream in = jsonPath.endsWith(".gz") ? new GZIPInputStream(new FileInputStream(jsonPath)) : new FileInputStream(jsonPath)) {
+                lines = IOUtils.readLines(in, StandardCharsets.UTF_8);
+            }
+            //one JSON object per commit and line, with the same content as the commits of the JSON document
+            List<JsonNode> actual = new ArrayList<>();
+            for (String line : lines) {
+                JsonNode commit = mapper.readTree(line);
+                Assertions.assertTrue(commit.isObject(), line);
+                actual.add(commit);
+            }
+            Assertions.assertEquals(expected, actual);
+        }
+    }
+
     @Test
     public void testAllBranch() throws Exception {
         String jsonPath = REPOS + "/refactoring-toy-example/refactoring-toy-example-branch-actual.json";
@@ -0,0 +1,347 @@
+package org.refactoringminer.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.refactoringminer.api.CancellationToken;
+import org.refactoringminer.api.CancellationToken.Phase;
+import org.refactoringminer.api.GitService;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.api.RefactoringType;
+import org.refactoringminer.rm1.CommitResultStore;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+import org.refactoringminer.util.GitServiceImpl;
+
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.diff.UMLModelDiff;
+
+public class TestMinerOptions {
+	private static final String REPOS = "tmp1";
+	private static final String START_COMMIT = "819b202bfb09d4142dece04d4039f1708735019b";
+	private static final String END_COMMIT = "d4bce13a443cf12da40a77c16c1e591f4f985b47";
+	private GitService gitService = new GitServiceImpl();
+
+	@Test
+	public void testModelCache() throws Exception {
+		Repository repo = gitService.cloneIfNotExists(
+				REPOS + "/refactoring-toy-example",
+				"https://github.com/danilofes/refactoring-toy-example.git");
+
+		Map<String, List<String>> expected = detectBetweenCommits(repo, new GitHistoryRefactoringMinerImpl());
+		GitHistoryRefactoringMinerImpl cachingMiner = new GitHistoryRefactoringMinerImpl();
+		cachingMiner.setModelCacheSize(200);
+		Map<String, List<String>> actual = detectBetweenCommits(repo, cachingMiner);
+		Assertions.assertEquals(expected, actual);
+		//the second analysis reuses the compilation units parsed by the first one
+		Assertions.assertEquals(actual, detectBetweenCommits(repo, cachingMiner));
+	}
+
+	@Test
+	public void testResultStoreKeepsConfigurationsApart() throws Exception {
+		Repository repo = gitService.cloneIfNotExists(
+				REPOS + "/refactoring-toy-example",
+				"https://github.com/danilofes/refactoring-toy-example.git");
+
+		Map<String, List<String>> expected = detectBetweenCommits(repo, new GitHistoryRefactoringMinerImpl());
+		Path storeDirectory = Files.createTempDirectory("result-store");
+		try (CommitResultStore store = new CommitResultStore(storeDirectory)) {
+			GitHistoryRefactoringMinerImpl narrowMiner = new GitHistoryRefactoringMinerImpl();
+			narrowMiner.setRefactoringTypesToConsider(RefactoringType.RENAME_CLASS);
+			narrowMiner.setResultStore(store);
+			detectBetweenCommits(repo, narrowMiner);
+
+			GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+			miner.setResultStore(store);
+			Assertions.assertNotEquals(narrowMiner.getConfigId(), miner.getConfigId());
+			Assertions.assertEquals(expected, detectBetweenCommits(repo, miner));
+			//the second run is served from the store
+			Assertions.assertEquals(expected, detectBetweenCommits(repo, miner));
+		}
+		finally {
+			FileUtils.deleteDirectory(storeDirectory.toFile());
+		}
+	}
+
+	@Test
+	public void testDiffParallelism() throws Exception {
+		Repository repo = gitService.cloneIfNotExists(
+				REPOS + "/refactoring-toy-example",
+				"https://github.com/danilofes/refactoring-toy-example.git");
+
+		Map<String, List<String>> expected = detectBetweenCommits(repo, new GitHistoryRefactoringMinerImpl());
+		GitHistoryRefactoringMinerImpl parallelMiner = new GitHistoryRefactoringMinerImpl();
+		parallelMiner.setDiffParallelism(4);
+		Assertions.assertEquals(expected, detectBetweenCommits(repo, parallelMiner));
+	}
+
+	@Test
+	public void testClassLevelMoveTypes() throws Exception {
+		Repository repo = gitService.cloneIfNotExists(
+				REPOS + "/refactoring-toy-example",
+				"https://github.com/danilofes/refactoring-toy-example.git");
+
+		//the types for which the class diffs are not processed
+		Set<RefactoringType> types = EnumSet.of(RefactoringType.MOVE_CLASS, RefactoringType.RENAME_PACKAGE, RefactoringType.MOVE_SOURCE_FOLDER,
+				RefactoringType.SPLIT_PACKAGE, RefactoringType.MERGE_PACKAGE);
+		Map<String, List<String>> expected = detectBetweenCommits(repo, new GitHistoryRefactoringMinerImpl(), types);
+		GitHistoryRefactoringMinerImpl narrowMiner = new GitHistoryRefactoringMinerImpl();
+		narrowMiner.setRefactoringTypesToConsider(types.toArray(new RefactoringType[0]));
+		Assertions.assertEquals(expected, detectBetweenCommits(repo, narrowMiner));
+	}
+
+	@Test
+	public void testOperationMoveParallelism() throws Exception {
+		Repository repo = gitService.cloneIfNotExists(
+				REPOS + "/refactoring-toy-example",
+				"https://github.com/danilofes/refactoring-toy-example.git");
+
+		Map<String, List<String>> expected = detectBetweenCommits(repo, new GitHistoryRefactoringMinerImpl());
+		GitHistoryRefactoringMinerImpl parallelMiner = new GitHistoryRefactoringMinerImpl();
+		parallelMiner.setOperationMoveParallelism(4);
+		try {
+			Assertions.assertEquals(expected, detectBetweenCommits(repo, parallelMiner));
+			//the results are identical, so they share the results stored by sequential runs
+			Assertions.assertEquals("RM1", parallelMiner.getConfigId());
+		}
+		finally {
+			parallelMiner.close();
+		}
+	}
+
+	@Test
+	public void testIdenticalFilesByBlobId() throws Exception {
+		Repository repo = gitService.cloneIfNotExists(
+				REPOS + "/refactoring-toy-example",
+				"https://github.com/danilofes/refactoring-toy-example.git");
+
+		try (RevWalk walk = new RevWalk(repo); ObjectReader reader = repo.newObjectReader()) {
+			for (RevCommit commit : gitService.createRevsWalkBetweenCommits(repo, START_COMMIT, END_COMMIT)) {
+				RevCommit currentCommit = walk.parseCommit(commit.getId());
+				if (currentCommit.getParentCount() == 0) {
+					continue;
+				}
+				RevCommit parentCommit = walk.parseCommit(currentCommit.getParent(0));
+				Set<String> filePathsBefore = new LinkedHashSet<String>();
+				Set<String> filePathsCurrent = new LinkedHashSet<String>();
+				Map<String, String> renamedFilesHint = new HashMap<String, String>();
+				gitService.fileTreeDiff(repo, currentCommit, filePathsBefore, filePathsCurrent, renamedFilesHint);
+				Map<String, String> fileContentsBefore = new LinkedHashMap<String, String>();
+				Map<String, String> fileContentsCurrent = new LinkedHashMap<String, String>();
+				Map<String, ObjectId> fileBlobIdsBefore = new HashMap<String, ObjectId>();
+				Map<String, ObjectId> fileBlobIdsCurrent = new HashMap<String, ObjectId>();
+				GitHistoryRefactoringMinerImpl.populateFileContents(repo, reader, parentCommit, filePathsBefore, fileContentsBefore, fileBlobIdsBefore, new LinkedHashSet<String>());
+				GitHistoryRefactoringMinerImpl.populateFileContents(repo, reader, currentCommit, filePathsCurrent, fileContentsCurrent, fileBlobIdsCurrent, new LinkedHashSet<String>());
+
+				//the files compared by content are the reference for the files compared by blob id
+				Map<String, String> contentsBefore = new LinkedHashMap<String, String>(fileContentsBefore);
+				Map<String, String> contentsCurrent = new LinkedHashMap<String, String>(fileContentsCurrent);
+				String expected = GitHistoryRefactoringMinerImpl.processIdenticalFiles(contentsBefore, contentsCurrent, renamedFilesHint).toString();
+				String actual = GitHistoryRefactoringMinerImpl.processIdenticalFiles(fileContentsBefore, fileContentsCurrent,
+						fileBlobIdsBefore, fileBlobIdsCurrent, renamedFilesHint).toString();
+				Assertions.assertEquals(expected, actual, commit.getName());
+				Assertions.assertEquals(contentsBefore, fileContentsBefore, commit.getName());
+				Assertions.assertEquals(contentsCurrent, fileContentsCurrent, commit.getName());
+			}
+		}
+	}
+
+	@Test
+	public void testJavaOnlyFileTreeDiff() throws Exception {
+		Path directory = Files.createTempDirectory("file-tree-diff");
+		try (Git git = Git.init().setDirectory(directory.toFile()).call()) {
+			writeFile(directory, "src/p/A.java", "package p;\n\npublic class A {\n\tint a() {\n\t\treturn 1;\n\t}\n\n\tint b() {\n\t\treturn 2;\n\t}\n}\n");
+			writeFile(directory, "src/p/B.java", "package p;\n\npublic class B {\n}\n");
+			writeFile(directory, "README.md", "# Example\n");
+			writeFile(directory, "notes.txt", "to do\n");
+			commitAll(git, "first");
+			//a renamed and modified Java file, a modified Java file, and modified, deleted and added non-Java files
+			Files.createDirectories(directory.resolve("src/q"));
+			Files.move(directory.resolve("src/p/A.java"), directory.resolve("src/q/A.java"));
+			writeFile(directory, "src/q/A.java", "package q;\n\npublic class A {\n\tint a() {\n\t\treturn 1;\n\t}\n\n\tint b() {\n\t\treturn 2;\n\t}\n}\n");
+			writeFile(directory, "src/p/B.java", "package p;\n\npublic class B {\n\tint c;\n}\n");
+			writeFile(directory, "README.md", "# Example project\n");
+			Files.delete(directory.resolve("notes.txt"));
+			writeFile(directory, "build.xml", "<project name=\"example\"/>\n");
+			ObjectId commitId = commitAll(git, "second");
+
+			Repository repo = git.getRepository();
+			try (RevWalk walk = new RevWalk(repo)) {
+				RevCommit currentCommit = walk.parseCommit(commitId);
+				walk.parseHeaders(currentCommit.getParent(0));
+				Set<String> filePathsBefore = new LinkedHashSet<String>();
+				Set<String> filePathsCurrent = new LinkedHashSet<String>();
+				Map<String, String> renamedFilesHint = new HashMap<String, String>();
+				gitService.fileTreeDiff(repo, currentCommit, filePathsBefore, filePathsCurrent, renamedFilesHint);
+				Set<String> expectedBefore = new LinkedHashSet<String>();
+				Set<String> expectedCurrent = new LinkedHashSet<String>();
+				Map<String, String> expectedRenamedFilesHint = new HashMap<String, String>();
+				unfilteredFileTreeDiff(repo, currentCommit, expectedBefore, expectedCurrent, expectedRenamedFilesHint);
+
+				Assertions.assertEquals(expectedBefore, filePathsBefore);
+				Assertions.assertEquals(expectedCurrent, filePathsCurrent);
+				Assertions.assertEquals(expectedRenamedFilesHint, renamedFilesHint);
+				Assertions.assertEquals(Set.of("src/p/A.java", "src/p/B.java"), filePathsBefore);
+				Assertions.assertEquals(Set.of("src/q/A.java", "src/p/B.java"), filePathsCurrent);
+				Assertions.assertEquals(Map.of("src/p/A.java", "src/q/A.java"), renamedFilesHint);
+			}
+		}
+		finally {
+			FileUtils.deleteDirectory(directory.toFile());
+		}
+	}
+
+	@Test
+	public void testRenameLimitValidation() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new GitHistoryRefactoringMinerImpl().setRenameLimit(0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new GitServiceImpl().setRenameLimit(0));
+		Assertions.assertDoesNotThrow(() -> new GitHistoryRefactoringMinerImpl().setRenameLimit(1));
+		Assertions.assertDoesNotThrow(() -> new GitServiceImpl().setRenameLimit(1));
+	}
+
+	@ParameterizedTest
+	@EnumSource(Phase.class)
+	public void testPhaseBudgetExhaustion(Phase phase) throws Exception {
+		Repository repo = gitService.cloneIfNotExists(
+				REPOS + "/refactoring-toy-example",
+				"https://github.com/danilofes/refactoring-toy-example.git");
+
+		boolean exhausted = false;
+		for (RevCommit commit : gitService.createRevsWalkBetweenCommits(repo, START_COMMIT, END_COMMIT)) {
+			try (RevWalk walk = new RevWalk(repo)) {
+				RevCommit currentCommit = walk.parseCommit(commit.getId());
+				if (currentCommit.getParentCount() == 0) {
+					continue;
+				}
+				RevCommit parentCommit = walk.parseCommit(currentCommit.getParent(0));
+				Set<String> filePathsBefore = new LinkedHashSet<String>();
+				Set<String> filePathsCurrent = new LinkedHashSet<String>();
+				gitService.fileTreeDiff(repo, currentCommit, filePathsBefore, filePathsCurrent, new HashMap<String, String>());
+				if (filePathsBefore.isEmpty() || filePathsCurrent.isEmpty()) {
+					continue;
+				}
+				Set<String> repositoryDirectoriesBefore = new LinkedHashSet<String>();
+				Set<String> repositoryDirectoriesCurrent = new LinkedHashSet<String>();
+				Map<String, String> fileContentsBefore = new LinkedHashMap<String, String>();
+				Map<String, String> fileContentsCurrent = new LinkedHashMap<String, String>();
+				GitHistoryRefactoringMinerImpl.populateFileContents(repo, parentCommit, filePathsBefore, fileContentsBefore, repositoryDirectoriesBefore);
+				GitHistoryRefactoringMinerImpl.populateFileContents(repo, currentCommit, filePathsCurrent, fileContentsCurrent, repositoryDirectoriesCurrent);
+				int commonClasses = GitHistoryRefactoringMinerImpl.createModel(fileContentsBefore, repositoryDirectoriesBefore)
+						.diff(GitHistoryRefactoringMinerImpl.createModel(fileContentsCurrent, repositoryDirectoriesCurrent)).getCommonClassDiffList().size();
+
+				//a budget of one nanosecond runs out at the second checkpoint of the phase
+				CancellationToken token = new CancellationToken(0, Collections.singletonMap(phase, 1L), TimeUnit.NANOSECONDS);
+				token.attach();
+				try {
+					UMLModel parentUMLModel = GitHistoryRefactoringMinerImpl.createModel(fileContentsBefore, repositoryDirectoriesBefore);
+					UMLModel currentUMLModel = GitHistoryRefactoringMinerImpl.createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
+					UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
+					//the refactorings detected before the budget ran out are returned instead of an exception
+					Assertions.assertNotNull(modelDiff.getRefactorings());
+					if (phase != Phase.PARSING) {
+						//the classes present in both versions are all kept, even when their body mapping did not complete
+						Assertions.assertEquals(commonClasses, modelDiff.getCommonClassDiffList().size());
+					}
+				}
+				finally {
+					CancellationToken.detach();
+				}
+				exhausted |= token.isExhausted(phase);
+			}
+		}
+		if (phase == Phase.BODY_MAPPING || phase == Phase.REFACTORING_INFERENCE) {
+			Assertions.assertTrue(exhausted);
+		}
+	}
+
+	//the rename detection of GitServiceImpl.fileTreeDiff over all the changed files, before it was restricted to the Java files
+	private static void unfilteredFileTreeDiff(Repository repo, RevCommit currentCommit, Set<String> javaFilesBefore, Set<String> javaFilesCurrent, Map<String, String> renamedFilesHint) throws Exception {
+		try (TreeWalk tw = new TreeWalk(repo)) {
+			tw.setRecursive(true);
+			tw.setFilter(TreeFilter.ANY_DIFF);
+			tw.addTree(currentCommit.getParent(0).getTree());
+			tw.addTree(currentCommit.getTree());
+			RenameDetector rd = new RenameDetector(repo);
+			rd.setRenameScore(55);
+			rd.addAll(DiffEntry.scan(tw));
+			for (DiffEntry diff : rd.compute(tw.getObjectReader(), null)) {
+				ChangeType changeType = diff.getChangeType();
+				String oldPath = diff.getOldPath();
+				String newPath = diff.getNewPath();
+				if (changeType != ChangeType.ADD && oldPath.endsWith(".java")) {
+					javaFilesBefore.add(oldPath);
+				}
+				if (changeType != ChangeType.DELETE && newPath.endsWith(".java")) {
+					javaFilesCurrent.add(newPath);
+				}
+				if (changeType == ChangeType.RENAME && diff.getScore() >= rd.getRenameScore() && oldPath.endsWith(".java") && newPath.endsWith(".java")) {
+					renamedFilesHint.put(oldPath, newPath);
+				}
+			}
+		}
+	}
+
+	private static void writeFile(Path directory, String filePath, String content) throws Exception {
+		Path file = directory.resolve(filePath);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+	}
+
+	private static ObjectId commitAll(Git git, String message) throws Exception {
+		git.add().addFilepattern(".").call();
+		git.add().setUpdate(true).addFilepattern(".").call();
+		PersonIdent author = new PersonIdent("author", "author@example.com");
+		return git.commit().setMessage(message).setAuthor(author).setCommitter(author).setSign(false).call().getId();
+	}
+
+	private static Map<String, List<String>> detectBetweenCommits(Repository repo, GitHistoryRefactoringMinerImpl miner) throws Exception {
+		return detectBetweenCommits(repo, miner, null);
+	}
+
+	/**
+	 * @param types The types of the refactorings kept from the results of the miner, or null to keep all of them
+	 */
+	private static Map<String, List<String>> detectBetweenCommits(Repository repo, GitHistoryRefactoringMinerImpl miner, Set<RefactoringType> types) throws Exception {
+		final Map<String, List<String>> refactoringsPerCommit = new LinkedHashMap<>();
+		miner.detectBetweenCommits(repo, START_COMMIT, END_COMMIT, new RefactoringHandler() {
+			@Override
+			public void handle(String commitId, List<Refactoring> refactorings) {
+				List<String> descriptions = new ArrayList<>();
+				for (Refactoring ref : refactorings) {
+					if (types == null || types.contains(ref.getRefactoringType())) {
+						descriptions.add(ref.toString());
+					}
+				}
+				refactoringsPerCommit.put(commitId, descriptions);
+			}
+		});
+		return refactoringsPerCommit;
+	}
+}
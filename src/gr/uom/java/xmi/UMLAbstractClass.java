@@ -27,7 +27,7 @@ public abstract class UMLAbstractClass {
 	protected List<UMLComment> comments;
 	private List<UMLAnonymousClass> anonymousClassList;
 	private Map<List<String>, Integer> operationIdentifierSignatureMap;
-	private Map<String, VariableDeclaration> fieldDeclarationMap;
+	private volatile Map<String, VariableDeclaration> fieldDeclarationMap;
 	private List<UMLInitializer> initializers;
 	private UMLType superclass;
     private List<UMLType> implementedInterfaces;
@@ -233,10 +233,12 @@ public abstract class UMLAbstractClass {
 
 	public Map<String, VariableDeclaration> getFieldDeclarationMap() {
 		if(this.fieldDeclarationMap == null) {
-			fieldDeclarationMap = new LinkedHashMap<String, VariableDeclaration>();
+			//assigned once complete, since the diffs of other classes may read it concurrently
+			Map<String, VariableDeclaration> fieldDeclarationMap = new LinkedHashMap<String, VariableDeclaration>();
 			for(UMLAttribute attribute : attributes) {
 				fieldDeclarationMap.put(attribute.getName(), attribute.getVariableDeclaration());
 			}
+			this.fieldDeclarationMap = fieldDeclarationMap;
 		}
 		return fieldDeclarationMap;
 	}
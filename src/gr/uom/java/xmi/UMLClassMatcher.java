@@ -1,5 +1,9 @@
 package gr.uom.java.xmi;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 public interface UMLClassMatcher {
 
 	public class MatchResult {
@@ -45,7 +49,26 @@ public interface UMLClassMatcher {
 
 	public MatchResult match(UMLClass removedClass, UMLClass addedClass);
 
+	/**
+	 * Returns a key, such that a removed and an added class can only match if their keys are equal.
+	 * It is used to avoid calling {@link #match(UMLClass, UMLClass)} for pairs of classes that cannot match.
+	 *
+	 * @return the key of the given class, or null if the matcher cannot rule out any pair of classes in advance
+	 */
+	public default Object candidateKey(UMLClass umlClass) {
+		return null;
+	}
+
+	//hasSameNameAndKind() requires equal names and interface kind
+	private static Object nameAndKindKey(UMLClass umlClass) {
+		return Arrays.asList(umlClass.getNonQualifiedName(), umlClass.isInterface());
+	}
+
 	public static class Move implements UMLClassMatcher {
+		public Object candidateKey(UMLClass umlClass) {
+			return nameAndKindKey(umlClass);
+		}
+
 		public MatchResult match(UMLClass removedClass, UMLClass addedClass) {
 			MatchResult matchResult = removedClass.hasSameAttributesAndOperations(addedClass);
 			if(removedClass.hasSameNameAndKind(addedClass) && matchResult.isMatch()) {
@@ -60,6 +83,10 @@ public interface UMLClassMatcher {
 	}
 
 	public static class RelaxedMove implements UMLClassMatcher {
+		public Object candidateKey(UMLClass umlClass) {
+			return nameAndKindKey(umlClass);
+		}
+
 		public MatchResult match(UMLClass removedClass, UMLClass addedClass) {
 			MatchResult matchResult = removedClass.hasCommonAttributesAndOperations(addedClass);
 			if(removedClass.hasSameNameAndKind(addedClass) && matchResult.isMatch()) {
@@ -74,6 +101,10 @@ public interface UMLClassMatcher {
 	}
 
 	public static class ExtremelyRelaxedMove implements UMLClassMatcher {
+		public Object candidateKey(UMLClass umlClass) {
+			return nameAndKindKey(umlClass);
+		}
+
 		public MatchResult match(UMLClass removedClass, UMLClass addedClass) {
 			MatchResult matchResult = removedClass.hasAttributesAndOperationsWithCommonNames(addedClass);
 			if(removedClass.hasSameNameAndKind(addedClass) && matchResult.isMatch()) {
@@ -88,6 +119,15 @@ public interface UMLClassMatcher {
 	}
 
 	public static class Rename implements UMLClassMatcher {
+		public Object candidateKey(UMLClass umlClass) {
+			//hasSameAttributesAndOperations() requires every attribute to have an attribute with the same name in the other class
+			Set<String> attributeNames = new HashSet<String>();
+			for(UMLAttribute attribute : umlClass.getAttributes()) {
+				attributeNames.add(attribute.getName());
+			}
+			return Arrays.asList(attributeNames, umlClass.isInterface());
+		}
+
 		public MatchResult match(UMLClass removedClass, UMLClass addedClass) {
 			MatchResult matchResult = removedClass.hasSameAttributesAndOperations(addedClass);
 			if(removedClass.hasSameKind(addedClass) && matchResult.isMatch()) {
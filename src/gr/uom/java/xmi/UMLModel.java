@@ -4,13 +4,19 @@ import gr.uom.java.xmi.diff.UMLClassDiff;
 import gr.uom.java.xmi.diff.UMLModelDiff;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.refactoringminer.api.PhaseBudgetExhaustedException;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.api.RefactoringType;
 
 import com.github.gumtreediff.tree.TreeContext;
 
@@ -22,6 +28,10 @@ public class UMLModel {
     private boolean partial;
     private Map<String, TreeContext> treeContextMap = new LinkedHashMap<>();
     private Map<String, List<UMLComment>> commentMap = new LinkedHashMap<>();
+    //indexes over classList, maintained by addClass() and addFragment()
+    private Map<String, UMLClass> classNameIndex = new HashMap<>();
+    private Map<String, UMLClass> classNameSuffixIndex = new HashMap<>();
+    private Map<String, List<UMLClass>> sourceFileIndex = new HashMap<>();
 
     public UMLModel(Set<String> repositoryDirectories) {
     	this.repositoryDirectories = repositoryDirectories;
@@ -48,6 +58,19 @@ public class UMLModel {
 
 	public void addClass(UMLClass umlClass) {
         classList.add(umlClass);
+        indexClass(umlClass);
+    }
+
+    private void indexClass(UMLClass umlClass) {
+    	String name = umlClass.getName();
+    	classNameIndex.putIfAbsent(name, umlClass);
+    	//every substring following a dot, so that a lookup is equivalent to the first class in classList with name.endsWith("." + suffix)
+    	int dotIndex = name.indexOf('.');
+    	while(dotIndex != -1) {
+    		classNameSuffixIndex.putIfAbsent(name.substring(dotIndex + 1), umlClass);
+    		dotIndex = name.indexOf('.', dotIndex + 1);
+    	}
+    	sourceFileIndex.computeIfAbsent(umlClass.getSourceFile(), k -> new ArrayList<UMLClass>()).add(umlClass);
     }
 
     public void addGeneralization(UMLGeneralization umlGeneralization) {
@@ -58,16 +81,56 @@ public class UMLModel {
     	realizationList.add(umlRealization);
     }
 
+    /**
+     * Add all elements of a model fragment containing the classes, generalizations, realizations, comments and tree context of a single file.
+     * Fragments should be added in the same order as the files would be processed by {@link UMLModelASTReader}.
+     */
+    public void addFragment(UMLModel fragment) {
+    	for(UMLClass umlClass : fragment.classList) {
+    		addClass(umlClass);
+    	}
+    	generalizationList.addAll(fragment.generalizationList);
+    	realizationList.addAll(fragment.realizationList);
+    	commentMap.putAll(fragment.commentMap);
+    	treeContextMap.putAll(fragment.treeContextMap);
+    }
+
     public UMLClass getClass(UMLClass umlClassFromOtherModel) {
-    	ListIterator<UMLClass> it = classList.listIterator();
-        while(it.hasNext()) {
-            UMLClass umlClass = it.next();
-            if(umlClass.equals(umlClassFromOtherModel))
-                return umlClass;
-        }
+    	//equal classes are always declared in the same source file
+    	List<UMLClass> classesInSourceFile = sourceFileIndex.get(umlClassFromOtherModel.getSourceFile());
+    	if(classesInSourceFile != null) {
+    		for(UMLClass umlClass : classesInSourceFile) {
+    			if(umlClass.equals(umlClassFromOtherModel))
+    				return umlClass;
+    		}
+    	}
         return null;
     }
 
+    public boolean containsClass(UMLClass umlClassFromOtherModel) {
+    	return getClass(umlClassFromOtherModel) != null;
+    }
+
+    /**
+     * @return the first class in {@link #getClassList()} with the given qualified name, or null if there is no such class
+     */
+    public UMLClass getClassByName(String qualifiedName) {
+    	return classNameIndex.get(qualifiedName);
+    }
+
+    /**
+     * @return the first class in {@link #getClassList()} whose qualified name ends with "." followed by the given suffix,
+     * or null if there is no such class
+     */
+    public UMLClass getClassByNameSuffix(String suffix) {
+    	return classNameSuffixIndex.get(suffix);
+    }
+
+    public List<UMLClass> getClassesInSourceFile(String sourceFile) {
+    	List<UMLClass> classesInSourceFile = sourceFileIndex.get(sourceFile);
+    	return classesInSourceFile != null ? classesInSourceFile : Collections.emptyList();
+    }
+
     public List<UMLClass> getClassList() {
         return this.classList;
     }
@@ -129,17 +192,58 @@ public class UMLModel {
     }
 
 	public UMLModelDiff diff(UMLModel umlModel) throws RefactoringMinerTimedOutException {
+		return diff(umlModel, 1);
+	}
+
+	/**
+	 * @param parallelism The number of threads used to process the diffs of the common classes. With a value greater than 1 the class diffs are processed concurrently,
+	 * and the resulting model diff is identical to the one created by sequential processing.
+	 */
+	public UMLModelDiff diff(UMLModel umlModel, int parallelism) throws RefactoringMinerTimedOutException {
+		return diff(umlModel, parallelism, null);
+	}
+
+	/**
+	 * @param parallelism The number of threads used to process the diffs of the common classes.
+	 * @param refactoringTypes The refactoring types to detect, or null for all types. The phases whose results cannot contribute to these types are skipped.
+	 */
+	public UMLModelDiff diff(UMLModel umlModel, int parallelism, Set<RefactoringType> refactoringTypes) throws RefactoringMinerTimedOutException {
+		if(parallelism > 1) {
+			ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+			try {
+				return diff(umlModel, pool, refactoringTypes);
+			}
+			finally {
+				pool.shutdownNow();
+			}
+		}
+		return diff(umlModel, null, refactoringTypes);
+	}
+
+	/**
+	 * @param classDiffPool The pool used to process the diffs of the common classes concurrently, or null to process them sequentially.
+	 * The pool is not shut down, so that its threads are reused by the next model diffs. The resulting model diff is identical to the one
+	 * created by sequential processing.
+	 * @param refactoringTypes The refactoring types to detect, or null for all types. The phases whose results cannot contribute to these types are skipped.
+	 */
+	public UMLModelDiff diff(UMLModel umlModel, ExecutorService classDiffPool, Set<RefactoringType> refactoringTypes) throws RefactoringMinerTimedOutException {
     	UMLModelDiff modelDiff = new UMLModelDiff(this, umlModel);
+    	if(refactoringTypes != null)
+    		modelDiff.setRefactoringTypesToConsider(refactoringTypes);
     	for(UMLClass umlClass : classList) {
-    		if(!umlModel.classList.contains(umlClass))
+    		if(!umlModel.containsClass(umlClass))
     			modelDiff.reportRemovedClass(umlClass);
     	}
     	for(UMLClass umlClass : umlModel.classList) {
-    		if(!this.classList.contains(umlClass))
+    		if(!this.containsClass(umlClass))
     			modelDiff.reportAddedClass(umlClass);
     	}
-    	modelDiff.checkForMovedClasses(umlModel.repositoryDirectories, new UMLClassMatcher.Move());
-    	modelDiff.checkForRenamedClasses(new UMLClassMatcher.Rename());
+    	try {
+    		modelDiff.checkForMovedClasses(umlModel.repositoryDirectories, new UMLClassMatcher.Move());
+    		modelDiff.checkForRenamedClasses(new UMLClassMatcher.Rename());
+    	} catch(PhaseBudgetExhaustedException e) {
+    		//the classes not matched so far remain reported as added and removed
+    	}
     	for(UMLGeneralization umlGeneralization : generalizationList) {
     		if(!umlModel.generalizationList.contains(umlGeneralization))
     			modelDiff.reportRemovedGeneralization(umlGeneralization);
@@ -158,15 +262,20 @@ public class UMLModel {
     			modelDiff.reportAddedRealization(umlRealization);
     	}
     	modelDiff.checkForRealizationChanges();
+    	List<UMLClassDiff> classDiffs = new ArrayList<UMLClassDiff>();
     	for(UMLClass umlClass : classList) {
-    		if(umlModel.classList.contains(umlClass)) {
-    			UMLClassDiff classDiff = new UMLClassDiff(umlClass, umlModel.getClass(umlClass), modelDiff);
-    			classDiff.process();
-    			modelDiff.addUMLClassDiff(classDiff);
+    		UMLClass nextClass = umlModel.getClass(umlClass);
+    		if(nextClass != null) {
+    			classDiffs.add(new UMLClassDiff(umlClass, nextClass, modelDiff));
     		}
     	}
-    	modelDiff.checkForMovedClasses(umlModel.repositoryDirectories, new UMLClassMatcher.RelaxedMove());
-    	modelDiff.checkForRenamedClasses(new UMLClassMatcher.RelaxedRename());
+    	modelDiff.processCommonClassDiffs(classDiffs, classDiffPool);
+    	try {
+    		modelDiff.checkForMovedClasses(umlModel.repositoryDirectories, new UMLClassMatcher.RelaxedMove());
+    		modelDiff.checkForRenamedClasses(new UMLClassMatcher.RelaxedRename());
+    	} catch(PhaseBudgetExhaustedException e) {
+    		//the classes not matched so far remain reported as added and removed
+    	}
     	return modelDiff;
     }
 }
@@ -3,12 +3,18 @@ package gr.uom.java.xmi;
 import static gr.uom.java.xmi.decomposition.Visitor.stringify;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreeNode;
@@ -48,31 +54,144 @@ import org.eclipse.jdt.core.dom.TypeDeclarationStatement;
 import org.eclipse.jdt.core.dom.TypeParameter;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
+import org.refactoringminer.api.CancellationToken;
+import org.refactoringminer.api.CancellationToken.Phase;
 
 import com.github.gumtreediff.gen.jdt.JdtVisitor;
 import com.github.gumtreediff.tree.TreeContext;
 
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
+import gr.uom.java.xmi.decomposition.ASTFlattener;
+import gr.uom.java.xmi.decomposition.SymbolTable;
 import gr.uom.java.xmi.decomposition.OperationBody;
 import gr.uom.java.xmi.decomposition.VariableDeclaration;
 
 public class UMLModelASTReader {
 	private static final String FREE_MARKER_GENERATED = "generated using freemarker";
 	private static final String FREE_MARKER_GENERATED_2 = "generated using FreeMarker";
+	private static final Map<String, String> COMPILER_OPTIONS = compilerOptions();
+	//GumTree registers node types in a global map that is not thread-safe
+	private static final Object TREE_CONTEXT_LOCK = new Object();
+	//parsers are reset after creating each AST, so every thread reuses its own parser
+	private static final ThreadLocal<ASTParser> PARSERS = ThreadLocal.withInitial(() -> ASTParser.newParser(AST.JLS19));
 	private UMLModel umlModel;
 
 	public UMLModelASTReader(Map<String, String> javaFileContents, Set<String> repositoryDirectories, boolean astDiff) {
+		this(javaFileContents, repositoryDirectories, astDiff, 1);
+	}
+
+	/**
+	 * @param parallelism The number of threads used to parse the files. With a value greater than 1 the files are parsed concurrently,
+	 * and the per-file results are merged in the iteration order of {@code javaFileContents}, so that the resulting model is identical to the one
+	 * created by sequential parsing.
+	 */
+	public UMLModelASTReader(Map<String, String> javaFileContents, Set<String> repositoryDirectories, boolean astDiff, int parallelism) {
 		this.umlModel = new UMLModel(repositoryDirectories);
-		processJavaFileContents(javaFileContents, astDiff);
+		if(parallelism > 1 && javaFileContents.size() > 1) {
+			ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, javaFileContents.size()));
+			try {
+				processJavaFileContents(javaFileContents, null, astDiff, pool, null);
+			}
+			finally {
+				pool.shutdownNow();
+			}
+		}
+		else {
+			processJavaFileContents(javaFileContents, null, astDiff, null);
+		}
 	}
 
-	public static ASTNode processBlock(String methodBody) {
-		ASTParser parser = ASTParser.newParser(AST.JLS19);
+	/**
+	 * @param pool The pool used to parse the files concurrently, or null to parse them sequentially. The pool is not shut down,
+	 * so that its threads, and the parser kept by each thread, are reused by the next models. The resulting model is identical to the one
+	 * created by sequential parsing.
+	 */
+	public UMLModelASTReader(Map<String, String> javaFileContents, Set<String> repositoryDirectories, boolean astDiff, ExecutorService pool) {
+		this(javaFileContents, null, repositoryDirectories, astDiff, pool);
+	}
+
+	/**
+	 * Create the model of already parsed files. The model elements are created from scratch, so that models created from the same
+	 * compilation units do not share any state.
+	 * 
+	 * @param compilationUnits A map where the keys are file paths, and the values are the compilation units returned by {@link #parseJavaFileContents(Map, ExecutorService)}
+	 * for the corresponding file contents. The files without a compilation unit are skipped.
+	 * @param pool The pool used to create the model of the files concurrently, or null to create them sequentially.
+	 */
+	public UMLModelASTReader(Map<String, String> javaFileContents, Map<String, CompilationUnit> compilationUnits, Set<String> repositoryDirectories, boolean astDiff, ExecutorService pool) {
+		this(javaFileContents, compilationUnits, repositoryDirectories, astDiff, pool, null);
+	}
+
+	/**
+	 * @param compilationUnits The compilation units of the files, or null to parse them.
+	 * @param symbols The table interning the strings of the statements and expressions of the model, or null to keep them as created.
+	 * A table shared by the models of both versions of a commit also makes the equal strings of the two models identical.
+	 */
+	public UMLModelASTReader(Map<String, String> javaFileContents, Map<String, CompilationUnit> compilationUnits, Set<String> repositoryDirectories, boolean astDiff, ExecutorService pool, SymbolTable symbols) {
+		this.umlModel = new UMLModel(repositoryDirectories);
+		if(pool != null && javaFileContents.size() > 1) {
+			processJavaFileContents(javaFileContents, compilationUnits, astDiff, pool, symbols);
+		}
+		else {
+			processJavaFileContents(javaFileContents, compilationUnits, astDiff, symbols);
+		}
+	}
+
+	private UMLModelASTReader(UMLModel umlModel) {
+		this.umlModel = umlModel;
+	}
+
+	/**
+	 * Parse the given Java files without creating their model.
+	 * 
+	 * @param pool The pool used to parse the files concurrently, or null to parse them sequentially.
+	 * @return A map where the keys are file paths, and the values are the corresponding compilation units.
+	 * The files that are generated by FreeMarker or cannot be parsed have no compilation unit.
+	 */
+	public static Map<String, CompilationUnit> parseJavaFileContents(Map<String, String> javaFileContents, ExecutorService pool) {
+		Map<String, CompilationUnit> compilationUnits = new LinkedHashMap<String, CompilationUnit>();
+		if(pool != null && javaFileContents.size() > 1) {
+			List<Callable<CompilationUnit>> tasks = new ArrayList<Callable<CompilationUnit>>();
+			for(String filePath : javaFileContents.keySet()) {
+				String javaFileContent = javaFileContents.get(filePath);
+				tasks.add(() -> CancellationToken.shouldStop(Phase.PARSING) ? null : parseJavaFileContent(PARSERS.get(), javaFileContent));
+			}
+			List<CompilationUnit> results = invokeAll(tasks, pool);
+			int i = 0;
+			for(String filePath : javaFileContents.keySet()) {
+				CompilationUnit compilationUnit = results.get(i++);
+				if(compilationUnit != null) {
+					compilationUnits.put(filePath, compilationUnit);
+				}
+			}
+		}
+		else {
+			ASTParser parser = PARSERS.get();
+			for(String filePath : javaFileContents.keySet()) {
+				if(CancellationToken.shouldStop(Phase.PARSING)) {
+					break;
+				}
+				CompilationUnit compilationUnit = parseJavaFileContent(parser, javaFileContents.get(filePath));
+				if(compilationUnit != null) {
+					compilationUnits.put(filePath, compilationUnit);
+				}
+			}
+		}
+		return compilationUnits;
+	}
+
+	private static Map<String, String> compilerOptions() {
 		Map<String, String> options = JavaCore.getOptions();
 		options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_8);
 		options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
 		options.put(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_1_8);
-		parser.setCompilerOptions(options);
+		return options;
+	}
+
+	public static ASTNode processBlock(String methodBody) {
+		ASTParser parser = ASTParser.newParser(AST.JLS19);
+		//the parser copies the options, so the shared map is never modified
+		parser.setCompilerOptions(COMPILER_OPTIONS);
 		parser.setResolveBindings(false);
 		parser.setKind(ASTParser.K_STATEMENTS);
 		parser.setStatementsRecovery(true);
@@ -89,39 +208,137 @@ public class UMLModelASTReader {
 		return methodBodyBlock;
 	}
 
-	private void processJavaFileContents(Map<String, String> javaFileContents, boolean astDiff) {
-		ASTParser parser = ASTParser.newParser(AST.JLS19);
+	private void processJavaFileContents(Map<String, String> javaFileContents, Map<String, CompilationUnit> compilationUnits, boolean astDiff, SymbolTable symbols) {
+		ASTParser parser = PARSERS.get();
 		for(String filePath : javaFileContents.keySet()) {
-			Map<String, String> options = JavaCore.getOptions();
-			options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_8);
-			options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
-			options.put(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_1_8);
-			parser.setCompilerOptions(options);
-			parser.setResolveBindings(false);
-			parser.setKind(ASTParser.K_COMPILATION_UNIT);
-			parser.setStatementsRecovery(true);
+			if(CancellationToken.shouldStop(Phase.PARSING)) {
+				break;
+			}
 			String javaFileContent = javaFileContents.get(filePath);
-			char[] charArray = javaFileContent.toCharArray();
-			parser.setSource(charArray);
-			if((javaFileContent.contains(FREE_MARKER_GENERATED) || javaFileContent.contains(FREE_MARKER_GENERATED_2)) &&
-					!javaFileContent.contains("private static final String FREE_MARKER_GENERATED = \"generated using freemarker\";")) {
-				continue;
+			CompilationUnit compilationUnit = compilationUnits != null ? compilationUnits.get(filePath) : parseJavaFileContent(parser, javaFileContent);
+			if(compilationUnit != null) {
+				processJavaFileContent(filePath, javaFileContent, compilationUnit, astDiff, symbols);
 			}
+		}
+	}
+
+	private void processJavaFileContents(Map<String, String> javaFileContents, Map<String, CompilationUnit> compilationUnits, boolean astDiff, ExecutorService pool, SymbolTable symbols) {
+		List<Callable<UMLModel>> tasks = new ArrayList<Callable<UMLModel>>();
+		for(String filePath : javaFileContents.keySet()) {
+			String javaFileContent = javaFileContents.get(filePath);
+			tasks.add(() -> {
+				if(CancellationToken.shouldStop(Phase.PARSING)) {
+					return null;
+				}
+				CompilationUnit compilationUnit = compilationUnits != null ? compilationUnits.get(filePath) : parseJavaFileContent(PARSERS.get(), javaFileContent);
+				if(compilationUnit == null) {
+					return null;
+				}
+				UMLModelASTReader fileReader = new UMLModelASTReader(new UMLModel(Collections.emptySet()));
+				fileReader.processJavaFileContent(filePath, javaFileContent, compilationUnit, astDiff, symbols);
+				return fileReader.getUmlModel();
+			});
+		}
+		for(UMLModel fileModel : invokeAll(tasks, pool)) {
+			if(fileModel != null) {
+				this.umlModel.addFragment(fileModel);
+			}
+		}
+	}
+
+	/**
+	 * Run the given tasks on the given pool, with the cancellation token of the calling thread.
+	 * The pool may be shared, so only the given tasks are cancelled when the calling thread is interrupted.
+	 * @return the results of the tasks in the order of the tasks, or the results completed before the calling thread was interrupted
+	 */
+	private static <T> List<T> invokeAll(List<Callable<T>> tasks, ExecutorService pool) {
+		List<Future<T>> futures = new ArrayList<Future<T>>();
+		List<T> results = new ArrayList<T>();
+		CancellationToken token = CancellationToken.current();
+		try {
+			for(Callable<T> task : tasks) {
+				futures.add(pool.submit(() -> {
+					if(token != null) {
+						token.attach();
+					}
+					try {
+						return task.call();
+					}
+					finally {
+						CancellationToken.detach();
+					}
+				}));
+			}
+			for(Future<T> future : futures) {
+				results.add(future.get());
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			while(results.size() < tasks.size()) {
+				results.add(null);
+			}
+		}
+		catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			if(cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+		finally {
+			for(Future<T> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return results;
+	}
+
+	private static CompilationUnit parseJavaFileContent(ASTParser parser, String javaFileContent) {
+		if((javaFileContent.contains(FREE_MARKER_GENERATED) || javaFileContent.contains(FREE_MARKER_GENERATED_2)) &&
+				!javaFileContent.contains("private static final String FREE_MARKER_GENERATED = \"generated using freemarker\";")) {
+			return null;
+		}
+		parser.setCompilerOptions(COMPILER_OPTIONS);
+		parser.setResolveBindings(false);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setStatementsRecovery(true);
+		parser.setSource(javaFileContent.toCharArray());
+		try {
+			return (CompilationUnit)parser.createAST(null);
+		}
+		catch(Exception e) {
+			//e.printStackTrace();
+			return null;
+		}
+	}
+
+	private void processJavaFileContent(String filePath, String javaFileContent, CompilationUnit compilationUnit, boolean astDiff, SymbolTable symbols) {
+		try {
+			//the nested expressions of the compilation unit are flattened once, and the strings of the model are interned in the table, if any
+			ASTFlattener.beginMemo(symbols);
 			try {
-				CompilationUnit compilationUnit = (CompilationUnit)parser.createAST(null);
 				processCompilationUnit(filePath, compilationUnit, javaFileContent);
-				if(astDiff) {
-					IScanner scanner = ToolFactory.createScanner(true, false, false, false);
-					scanner.setSource(charArray);
-					JdtVisitor visitor = new JdtVisitor(scanner);
+			}
+			finally {
+				ASTFlattener.endMemo();
+			}
+			if(astDiff) {
+				IScanner scanner = ToolFactory.createScanner(true, false, false, false);
+				scanner.setSource(javaFileContent.toCharArray());
+				JdtVisitor visitor = new JdtVisitor(scanner);
+				synchronized(TREE_CONTEXT_LOCK) {
 					compilationUnit.accept(visitor);
-					TreeContext treeContext = visitor.getTreeContext();
-					this.umlModel.getTreeContextMap().put(filePath, treeContext);
 				}
+				TreeContext treeContext = visitor.getTreeContext();
+				this.umlModel.getTreeContextMap().put(filePath, treeContext);
 			}
-			catch(Exception e) {
-				//e.printStackTrace();
-			}
+		}
+		catch(Exception e) {
+			//e.printStackTrace();
 		}
 	}
 
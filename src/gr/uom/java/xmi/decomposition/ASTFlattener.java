@@ -1,13 +1,131 @@
 package gr.uom.java.xmi.decomposition;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.InfixExpression;
+import org.eclipse.jdt.core.dom.Statement;
 import org.eclipse.jdt.internal.core.dom.NaiveASTFlattener;
 
+/**
+ * Between {@link #beginMemo(SymbolTable)} and {@link #endMemo()}, the flatteners created by a thread remember the strings of the subtrees they flatten,
+ * and append the remembered string of a subtree instead of walking it again, so that the nested expressions of a compilation unit are walked once.
+ * The strings returned by {@link #flatten(ASTNode)} are then interned in the given symbol table, if any.
+ * <p>
+ * Only the subtrees flattened in a single line are remembered, as the indentation of the lines depends on the nesting of the subtree.
+ */
 public class ASTFlattener extends NaiveASTFlattener {
+	private static final ThreadLocal<Map<ASTNode, Flattening>> MEMO = new ThreadLocal<Map<ASTNode, Flattening>>();
+	private static final ThreadLocal<SymbolTable> SYMBOLS = new ThreadLocal<SymbolTable>();
+	private final Map<ASTNode, Flattening> memo = MEMO.get();
+	//buffer positions where the subtrees being flattened start, -1 for the subtrees appended from the memo
+	private int[] starts = new int[16];
+	private int depth = 0;
+	//subtrees flattened in a single line, and their start and end positions in the buffer
+	private final List<ASTNode> flattenedNodes = new ArrayList<ASTNode>();
+	private final List<int[]> flattenedRanges = new ArrayList<int[]>();
+	private int scannedLength = 0;
+	private int lastNewLine = -1;
+
+	/**
+	 * Start remembering the strings of the subtrees flattened by the current thread. The AST nodes must not be modified until {@link #endMemo()}.
+	 */
+	public static void beginMemo(SymbolTable symbols) {
+		MEMO.set(new HashMap<ASTNode, Flattening>());
+		SYMBOLS.set(symbols);
+	}
+
+	public static void endMemo() {
+		MEMO.remove();
+		SYMBOLS.remove();
+	}
+
+	/**
+	 * @return the string of the given node, remembered if the node has been flattened before by the current thread
+	 */
+	public static String flatten(ASTNode node) {
+		Map<ASTNode, Flattening> memo = MEMO.get();
+		if(memo != null) {
+			Flattening flattening = memo.get(node);
+			if(flattening != null) {
+				return intern(flattening.toString());
+			}
+		}
+		ASTFlattener printer = new ASTFlattener();
+		node.accept(printer);
+		return intern(printer.getResult());
+	}
+
+	/**
+	 * @return the instance of the given string in the symbol table of the current thread, or the given string outside {@link #beginMemo(SymbolTable)}
+	 */
+	public static String intern(String string) {
+		SymbolTable symbols = SYMBOLS.get();
+		return symbols != null ? symbols.intern(string) : string;
+	}
+
+	@Override
+	public String getResult() {
+		String result = super.getResult();
+		if(memo != null) {
+			for(int i=0; i<flattenedNodes.size(); i++) {
+				int[] range = flattenedRanges.get(i);
+				memo.putIfAbsent(flattenedNodes.get(i), new Flattening(result, range[0], range[1]));
+			}
+			flattenedNodes.clear();
+			flattenedRanges.clear();
+		}
+		return result;
+	}
+
+	@Override
+	public boolean preVisit2(ASTNode node) {
+		if(memo == null) {
+			return super.preVisit2(node);
+		}
+		if(depth == starts.length) {
+			int[] newStarts = new int[2 * starts.length];
+			System.arraycopy(starts, 0, newStarts, 0, starts.length);
+			starts = newStarts;
+		}
+		Flattening flattening = memo.get(node);
+		if(flattening != null) {
+			this.buffer.append(flattening.source, flattening.start, flattening.end);
+			starts[depth++] = -1;
+			return false;
+		}
+		starts[depth++] = this.buffer.length();
+		return super.preVisit2(node);
+	}
+
+	@Override
+	public void postVisit(ASTNode node) {
+		super.postVisit(node);
+		if(memo == null) {
+			return;
+		}
+		int start = starts[--depth];
+		if(start >= 0 && !(node instanceof Statement) && !(node instanceof BodyDeclaration)) {
+			int end = this.buffer.length();
+			int newLine;
+			while((newLine = this.buffer.indexOf("\n", scannedLength)) != -1) {
+				lastNewLine = newLine;
+				scannedLength = newLine + 1;
+			}
+			scannedLength = end;
+			if(lastNewLine < start) {
+				flattenedNodes.add(node);
+				flattenedRanges.add(new int[] {start, end});
+			}
+		}
+	}
+
 	@Override
 	public boolean visit(InfixExpression node) {
 		node.getLeftOperand().accept(this);
@@ -26,4 +144,25 @@ public class ASTFlattener extends NaiveASTFlattener {
 		}
 		return false;
 	}
+
+	private static class Flattening {
+		private final String source;
+		private final int start;
+		private final int end;
+		private String string;
+
+		private Flattening(String source, int start, int end) {
+			this.source = source;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public String toString() {
+			if(string == null) {
+				string = source.substring(start, end);
+			}
+			return string;
+		}
+	}
 }
@@ -21,7 +21,37 @@ public abstract class AbstractCodeFragment implements LocationInfoProvider {
 	private String codeFragmentAfterReplacingParametersWithArguments;
 
 	public String getArgumentizedString() {
-		return codeFragmentAfterReplacingParametersWithArguments != null ? codeFragmentAfterReplacingParametersWithArguments : getString();
+		String argumentizedString = argumentization();
+		return argumentizedString != null ? argumentizedString : getString();
+	}
+
+	private String argumentization() {
+		ArgumentizationScope scope = ArgumentizationScope.current();
+		if(scope != null) {
+			if(scope.contains(this)) {
+				return scope.get(this);
+			}
+			scope.read(this, codeFragmentAfterReplacingParametersWithArguments);
+		}
+		return codeFragmentAfterReplacingParametersWithArguments;
+	}
+
+	private void setArgumentization(String argumentizedString) {
+		ArgumentizationScope scope = ArgumentizationScope.current();
+		if(scope != null) {
+			scope.put(this, argumentizedString);
+		}
+		else {
+			this.codeFragmentAfterReplacingParametersWithArguments = argumentizedString;
+		}
+	}
+
+	String getSharedArgumentization() {
+		return codeFragmentAfterReplacingParametersWithArguments;
+	}
+
+	void setSharedArgumentization(String argumentizedString) {
+		this.codeFragmentAfterReplacingParametersWithArguments = argumentizedString;
 	}
 
     public int getDepth() {
@@ -270,7 +300,7 @@ public abstract class AbstractCodeFragment implements LocationInfoProvider {
 				afterReplacements = sb.toString();
 			}
 		}
-		this.codeFragmentAfterReplacingParametersWithArguments = afterReplacements;
+		setArgumentization(afterReplacements);
 	}
 
 	private static boolean quoteBefore(String beforeMatch) {
@@ -321,17 +351,17 @@ public abstract class AbstractCodeFragment implements LocationInfoProvider {
 		else if(other.getString().contains(this.getString())) {
 			return true;
 		}
-		else if(this.codeFragmentAfterReplacingParametersWithArguments != null) {
-			return this.codeFragmentAfterReplacingParametersWithArguments.equals(other.getString());
+		else if(this.argumentization() != null) {
+			return this.argumentization().equals(other.getString());
 		}
-		else if(other.codeFragmentAfterReplacingParametersWithArguments != null) {
-			return other.codeFragmentAfterReplacingParametersWithArguments.equals(this.getString());
+		else if(other.argumentization() != null) {
+			return other.argumentization().equals(this.getString());
 		}
 		return false;
 	}
 
 	public void resetArgumentization() {
-		this.codeFragmentAfterReplacingParametersWithArguments = getString();
+		setArgumentization(getString());
 	}
 
 	public String infixExpressionCoveringTheEntireFragment() {
@@ -0,0 +1,83 @@
+package gr.uom.java.xmi.decomposition;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the argumentized strings written by a thread apart from the code fragments, so that several body mappers sharing an operation
+ * can be created concurrently. While a scope is entered, the argumentization of the fragments is read and written in the scope by the entering thread,
+ * and falls back to the argumentization of the fragments for the fragments not written in the scope.
+ * <p>
+ * {@link #commit()} writes the argumentization of the scope to the fragments. Committing the scopes of a series of mappers in the order the mappers would
+ * have been created sequentially leaves the fragments in the same state as the sequential creation.
+ * <p>
+ * The scope also records the argumentization of the fragments read before being written in the scope. If, once the scopes of the mappers before it are committed,
+ * {@link #readsCurrentArgumentization()} is false, the mapper saw a different argumentization than it would have seen sequentially, and must be created again.
+ */
+public class ArgumentizationScope {
+	private static final ThreadLocal<ArgumentizationScope> CURRENT = new ThreadLocal<ArgumentizationScope>();
+	//number of scopes entered by any thread, to skip the thread-local lookup when none is
+	private static volatile int enteredScopes;
+	private final Map<AbstractCodeFragment, String> argumentizedStrings = new IdentityHashMap<AbstractCodeFragment, String>();
+	//argumentization of the fragments, when first read by the scope
+	private final Map<AbstractCodeFragment, String> readArgumentizations = new IdentityHashMap<AbstractCodeFragment, String>();
+
+	public void enter() {
+		synchronized(ArgumentizationScope.class) {
+			enteredScopes++;
+		}
+		CURRENT.set(this);
+	}
+
+	public void exit() {
+		CURRENT.remove();
+		synchronized(ArgumentizationScope.class) {
+			enteredScopes--;
+		}
+	}
+
+	/**
+	 * Write the argumentization of the scope to the fragments. The scope must not be entered by any thread.
+	 */
+	public void commit() {
+		for(Map.Entry<AbstractCodeFragment, String> entry : argumentizedStrings.entrySet()) {
+			entry.getKey().setSharedArgumentization(entry.getValue());
+		}
+	}
+
+	/**
+	 * @return true if the argumentization of the fragments read in the scope, before being written in it, is still the argumentization of the fragments.
+	 * The scope must not be entered by any thread.
+	 */
+	public boolean readsCurrentArgumentization() {
+		for(Map.Entry<AbstractCodeFragment, String> entry : readArgumentizations.entrySet()) {
+			if(!Objects.equals(entry.getKey().getSharedArgumentization(), entry.getValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static ArgumentizationScope current() {
+		return enteredScopes > 0 ? CURRENT.get() : null;
+	}
+
+	boolean contains(AbstractCodeFragment fragment) {
+		return argumentizedStrings.containsKey(fragment);
+	}
+
+	String get(AbstractCodeFragment fragment) {
+		return argumentizedStrings.get(fragment);
+	}
+
+	void read(AbstractCodeFragment fragment, String argumentizedString) {
+		if(!readArgumentizations.containsKey(fragment)) {
+			readArgumentizations.put(fragment, argumentizedString);
+		}
+	}
+
+	void put(AbstractCodeFragment fragment, String argumentizedString) {
+		argumentizedStrings.put(fragment, argumentizedString);
+	}
+}
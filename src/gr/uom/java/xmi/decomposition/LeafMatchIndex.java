@@ -0,0 +1,139 @@
+package gr.uom.java.xmi.decomposition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index over a list of leaves, answering which leaves are identical to a given leaf of the other side of a mapping,
+ * either by string or by argumentized string after the {@code return} statement/expression normalization of the body mapper.
+ * <p>
+ * The matches are returned in the order of the list, so that they are visited in the same order as a linear scan of the list.
+ * The list may shrink while it is indexed, and the index is rebuilt the next time it is queried when the size of the list has changed.
+ */
+class LeafMatchIndex {
+	private static final String RETURN_PREFIX = "return ";
+	private static final String STATEMENT_SUFFIX = ";\n";
+	private final List<? extends AbstractCodeFragment> leaves;
+	private int indexedSize = -1;
+	private Map<String, List<Integer>> stringIndex;
+	//a statement is compared with the expressions without its return, and with the other leaves as is
+	private Map<String, List<Integer>> argumentizedExpressionIndex;
+	private Map<String, List<Integer>> argumentizedNonExpressionIndex;
+	//an expression is compared with the statements without their return, and with the other leaves as is
+	private Map<String, List<Integer>> returnStrippedStatementIndex;
+	private Map<String, List<Integer>> argumentizedNonStatementIndex;
+
+	LeafMatchIndex(List<? extends AbstractCodeFragment> leaves) {
+		this.leaves = leaves;
+	}
+
+	/**
+	 * @return the leaves with the same string as the given leaf, in the order of the list
+	 */
+	List<AbstractCodeFragment> identicalStringMatches(AbstractCodeFragment leaf) {
+		update();
+		return leavesAt(stringIndex.get(leaf.getString()), null, null);
+	}
+
+	/**
+	 * @return the leaves with the same string or the same argumentized string as the given leaf, in the order of the list
+	 */
+	List<AbstractCodeFragment> identicalMatches(AbstractCodeFragment leaf) {
+		update();
+		List<Integer> identicalString = stringIndex.get(leaf.getString());
+		String argumentizedString = leaf.getArgumentizedString();
+		if(leaf instanceof StatementObject) {
+			return leavesAt(identicalString,
+					argumentizedExpressionIndex.get(stripReturn(argumentizedString)),
+					argumentizedNonExpressionIndex.get(argumentizedString));
+		}
+		else if(leaf instanceof AbstractExpression) {
+			return leavesAt(identicalString,
+					returnStrippedStatementIndex.get(argumentizedString),
+					argumentizedNonStatementIndex.get(argumentizedString));
+		}
+		return leavesAt(identicalString,
+				argumentizedExpressionIndex.get(argumentizedString),
+				argumentizedNonExpressionIndex.get(argumentizedString));
+	}
+
+	static String stripReturn(String argumentizedString) {
+		if(argumentizedString.startsWith(RETURN_PREFIX) && argumentizedString.endsWith(STATEMENT_SUFFIX)) {
+			return argumentizedString.substring(RETURN_PREFIX.length(), argumentizedString.lastIndexOf(STATEMENT_SUFFIX));
+		}
+		return argumentizedString;
+	}
+
+	private void update() {
+		if(indexedSize == leaves.size()) {
+			return;
+		}
+		stringIndex = new HashMap<String, List<Integer>>();
+		argumentizedExpressionIndex = new HashMap<String, List<Integer>>();
+		argumentizedNonExpressionIndex = new HashMap<String, List<Integer>>();
+		returnStrippedStatementIndex = new HashMap<String, List<Integer>>();
+		argumentizedNonStatementIndex = new HashMap<String, List<Integer>>();
+		for(int i=0; i<leaves.size(); i++) {
+			AbstractCodeFragment leaf = leaves.get(i);
+			String argumentizedString = leaf.getArgumentizedString();
+			add(stringIndex, leaf.getString(), i);
+			if(leaf instanceof AbstractExpression) {
+				add(argumentizedExpressionIndex, argumentizedString, i);
+			}
+			else {
+				add(argumentizedNonExpressionIndex, argumentizedString, i);
+			}
+			if(leaf instanceof StatementObject) {
+				add(returnStrippedStatementIndex, stripReturn(argumentizedString), i);
+			}
+			else {
+				add(argumentizedNonStatementIndex, argumentizedString, i);
+			}
+		}
+		indexedSize = leaves.size();
+	}
+
+	private static void add(Map<String, List<Integer>> index, String key, int position) {
+		List<Integer> positions = index.get(key);
+		if(positions == null) {
+			positions = new ArrayList<Integer>(1);
+			index.put(key, positions);
+		}
+		positions.add(position);
+	}
+
+	private List<AbstractCodeFragment> leavesAt(List<Integer> positions1, List<Integer> positions2, List<Integer> positions3) {
+		int size = size(positions1) + size(positions2) + size(positions3);
+		if(size == 0) {
+			return List.of();
+		}
+		int[] positions = new int[size];
+		int count = copy(positions1, positions, 0);
+		count = copy(positions2, positions, count);
+		count = copy(positions3, positions, count);
+		Arrays.sort(positions);
+		List<AbstractCodeFragment> matches = new ArrayList<AbstractCodeFragment>(size);
+		for(int i=0; i<size; i++) {
+			if(i == 0 || positions[i] != positions[i-1]) {
+				matches.add(leaves.get(positions[i]));
+			}
+		}
+		return matches;
+	}
+
+	private static int size(List<Integer> positions) {
+		return positions != null ? positions.size() : 0;
+	}
+
+	private static int copy(List<Integer> positions, int[] array, int offset) {
+		if(positions != null) {
+			for(Integer position : positions) {
+				array[offset++] = position;
+			}
+		}
+		return offset;
+	}
+}
@@ -5,8 +5,10 @@ import java.util.regex.Pattern;
 import static gr.uom.java.xmi.decomposition.StringBasedHeuristics.containsMethodSignatureOfAnonymousClass;
 
 public class ReplacementUtil {
-	private static final String[] SPECIAL_CHARACTERS = {";", ",", ")", "=", "+", "-", ">", "<", ".", "]", " ", "(", "[", "}", "{"};
-	private static final String[] SPECIAL_ARGUMENT_CHARACTERS = {";", ",", ")", "=", "+", "-", ">", "<", ".", "]", " "};
+	private static final char[] SPECIAL_CHARACTERS = {';', ',', ')', '=', '+', '-', '>', '<', '.', ']', ' ', '(', '[', '}', '{'};
+	private static final char[] SPECIAL_ARGUMENT_CHARACTERS = {';', ',', ')', '=', '+', '-', '>', '<', '.', ']', ' '};
+	//stands for the beginning or the end of a string, where there is no character before or after a match
+	private static final int NO_CHARACTER = -1;
 	private static final Pattern DOUBLE_QUOTES = Pattern.compile("\"([^\"]*)\"|(\\S+)");
 
 	public static boolean isInsideSingleQuotes(String argument, int indexOfChar) {
@@ -33,30 +35,32 @@ public class ReplacementUtil {
 		StringBuilder sb = new StringBuilder();
 		for(int i=0; i<input.length(); i++) {
 			char c = input.charAt(i);
-			for(String character : SPECIAL_CHARACTERS) {
-				if(character.equals(Character.toString(c))) {
-					sb.append(c);
-					break;
-				}
+			if(specialCharacterIndex(c) != -1) {
+				sb.append(c);
 			}
 		}
 		return sb.toString();
 	}
 
 	public static int countInstances(String completeString, String subString) {
+		//the occurrences followed by the same special character are counted without overlaps, as String.replace would remove them
 		int count = 0;
-		for(String character : SPECIAL_CHARACTERS) {
-			int index = completeString.indexOf(subString + character);
-			if(index != -1) {
-				count += (completeString.length() - completeString.replace(subString + character, "").length()) / (subString.length() + 1);
+		int[] nextAllowedStart = new int[SPECIAL_CHARACTERS.length];
+		int length = subString.length();
+		for(int i = completeString.indexOf(subString); i != -1 && i + length < completeString.length(); i = completeString.indexOf(subString, i + 1)) {
+			int index = specialCharacterIndex(completeString.charAt(i + length));
+			if(index != -1 && i >= nextAllowedStart[index]) {
+				count++;
+				nextAllowedStart[index] = i + length + 1;
 			}
 		}
 		return count;
 	}
 
 	public static boolean contains(String completeString, String subString) {
-		for(String character : SPECIAL_CHARACTERS) {
-			if(completeString.contains(subString + character)) {
+		int length = subString.length();
+		for(int i = completeString.indexOf(subString); i != -1 && i + length < completeString.length(); i = completeString.indexOf(subString, i + 1)) {
+			if(specialCharacterIndex(completeString.charAt(i + length)) != -1) {
 				return true;
 			}
 		}
@@ -64,32 +68,32 @@ public class ReplacementUtil {
 	}
 
 	public static String performArgumentReplacement(String completeString, String subString, String replacement) {
-		String temp = new String(completeString);
-		for(String character : SPECIAL_ARGUMENT_CHARACTERS) {
-			if(completeString.contains(subString + character)) {
-				temp = temp.replace(subString + character, replacement + character);
+		String temp = completeString;
+		for(char character : SPECIAL_ARGUMENT_CHARACTERS) {
+			if(indexOfFollowedBy(completeString, subString, character, 0) != -1) {
+				temp = replaceFollowedBy(temp, subString, character, replacement);
 			}
 		}
 		return temp;
 	}
 
 	public static String performReplacement(String completeString, String subString, String replacement) {
-		String temp = new String(completeString);
+		String temp = completeString;
 		if(completeString.equals(subString)) {
 			temp = temp.replace(subString, replacement);
 			return temp;
 		}
 		boolean replacementDone = false;
-		for(String character : SPECIAL_CHARACTERS) {
-			if(completeString.contains(subString + character)) {
-				temp = temp.replace(subString + character, replacement + character);
+		for(char character : SPECIAL_CHARACTERS) {
+			if(indexOfFollowedBy(completeString, subString, character, 0) != -1) {
+				temp = replaceFollowedBy(temp, subString, character, replacement);
 				replacementDone = true;
 			}
 		}
 		if(!replacementDone) {
-			for(String character : SPECIAL_CHARACTERS) {
-				if(completeString.contains(character + subString)) {
-					temp = temp.replace(character + subString, character + replacement);
+			for(char character : SPECIAL_CHARACTERS) {
+				if(indexOfPrecededBy(completeString, character, subString, 0) != -1) {
+					temp = replacePrecededBy(temp, character, subString, replacement);
 				}
 			}
 		}
@@ -97,48 +101,65 @@ public class ReplacementUtil {
 	}
 
 	public static String performReplacement(String completeString1, String completeString2, String subString1, String subString2) {	
-		String temp = new String(completeString1);
+		String temp = completeString1;
 		boolean replacementOccurred = false;
-		for(String character : SPECIAL_CHARACTERS) {
-			if(temp.contains(subString1 + character) && completeString2.contains(subString2 + character)) {
-				StringBuffer sb = new StringBuffer();
-				Pattern p1 = Pattern.compile(Pattern.quote(subString1 + character));
-				Matcher m1 = p1.matcher(temp);
-				Pattern p2 = Pattern.compile(Pattern.quote(subString2 + character));
-				Matcher m2 = p2.matcher(completeString2);
-				while(m1.find() && m2.find()) {
-					int start1 = m1.start();
-					int start2 = m2.start();
-					String characterBeforeMatch1 = start1 == 0 ? "" : String.valueOf(temp.charAt(start1 - 1));
-					String characterBeforeMatch2 = start2 == 0 ? "" : String.valueOf(completeString2.charAt(start2 - 1));
-					if(compatibleCharacterBeforeMatch(characterBeforeMatch1, characterBeforeMatch2)) {
-						m1.appendReplacement(sb, Matcher.quoteReplacement(subString2 + character));
-						replacementOccurred = true;
+		for(char character : SPECIAL_CHARACTERS) {
+			//pair the occurrences of subString1 + character in temp with the occurrences of subString2 + character in completeString2,
+			//and replace the pairs with compatible characters before them
+			StringBuilder sb = null;
+			int appendPosition = 0;
+			int start1 = indexOfFollowedBy(temp, subString1, character, 0);
+			int start2 = start1 == -1 ? -1 : indexOfFollowedBy(completeString2, subString2, character, 0);
+			while(start1 != -1 && start2 != -1) {
+				int end1 = start1 + subString1.length() + 1;
+				int characterBeforeMatch1 = start1 == 0 ? NO_CHARACTER : temp.charAt(start1 - 1);
+				int characterBeforeMatch2 = start2 == 0 ? NO_CHARACTER : completeString2.charAt(start2 - 1);
+				if(compatibleCharacterBeforeMatch(characterBeforeMatch1, characterBeforeMatch2)) {
+					if(sb == null) {
+						sb = new StringBuilder(temp.length() + subString2.length());
 					}
+					sb.append(temp, appendPosition, start1).append(subString2).append(character);
+					appendPosition = end1;
+					replacementOccurred = true;
+				}
+				start1 = indexOfFollowedBy(temp, subString1, character, end1);
+				if(start1 != -1) {
+					start2 = indexOfFollowedBy(completeString2, subString2, character, start2 + subString2.length() + 1);
 				}
-				m1.appendTail(sb);
+			}
+			if(sb != null) {
+				sb.append(temp, appendPosition, temp.length());
 				temp = sb.toString();
 			}
 		}
 		if(!replacementOccurred && !containsMethodSignatureOfAnonymousClass(completeString1) && !containsMethodSignatureOfAnonymousClass(completeString2)) {
-			for(String character : SPECIAL_CHARACTERS) {
-				if(temp.contains(character + subString1) && completeString2.contains(character + subString2)) {
-					StringBuffer sb = new StringBuffer();
-					Pattern p1 = Pattern.compile(Pattern.quote(character + subString1));
-					Matcher m1 = p1.matcher(temp);
-					Pattern p2 = Pattern.compile(Pattern.quote(character + subString2));
-					Matcher m2 = p2.matcher(completeString2);
-					while(m1.find() && m2.find()) {
-						int end1 = m1.end();
-						int end2 = m2.end();
-						String characterAfterMatch1 = end1 == temp.length() ? "" : String.valueOf(temp.charAt(end1));
-						String characterAfterMatch2 = end2 == completeString2.length() ? "" : String.valueOf(completeString2.charAt(end2));
-						if(compatibleCharacterAfterMatch(characterAfterMatch1, characterAfterMatch2)) {
-							m1.appendReplacement(sb, Matcher.quoteReplacement(character + subString2));
-							replacementOccurred = true;
+			for(char character : SPECIAL_CHARACTERS) {
+				//pair the occurrences of character + subString1 in temp with the occurrences of character + subString2 in completeString2,
+				//and replace the pairs with compatible characters after them
+				StringBuilder sb = null;
+				int appendPosition = 0;
+				int start1 = indexOfPrecededBy(temp, character, subString1, 0);
+				int start2 = start1 == -1 ? -1 : indexOfPrecededBy(completeString2, character, subString2, 0);
+				while(start1 != -1 && start2 != -1) {
+					int end1 = start1 + subString1.length() + 1;
+					int end2 = start2 + subString2.length() + 1;
+					int characterAfterMatch1 = end1 == temp.length() ? NO_CHARACTER : temp.charAt(end1);
+					int characterAfterMatch2 = end2 == completeString2.length() ? NO_CHARACTER : completeString2.charAt(end2);
+					if(compatibleCharacterAfterMatch(characterAfterMatch1, characterAfterMatch2)) {
+						if(sb == null) {
+							sb = new StringBuilder(temp.length() + subString2.length());
 						}
+						sb.append(temp, appendPosition, start1).append(character).append(subString2);
+						appendPosition = end1;
+						replacementOccurred = true;
 					}
-					m1.appendTail(sb);
+					start1 = indexOfPrecededBy(temp, character, subString1, end1);
+					if(start1 != -1) {
+						start2 = indexOfPrecededBy(completeString2, character, subString2, end2);
+					}
+				}
+				if(sb != null) {
+					sb.append(temp, appendPosition, temp.length());
 					temp = sb.toString();
 				}
 			}
@@ -146,56 +167,130 @@ public class ReplacementUtil {
 		return temp;
 	}
 
-	private static boolean compatibleCharacterBeforeMatch(String characterBefore1, String characterBefore2) {
-		if(characterBefore1 != null && characterBefore2 != null) {
-			if(characterBefore1.equals(characterBefore2))
-				return true;
-			if(characterBefore1.equals(",") && characterBefore2.equals("("))
-				return true;
-			if(characterBefore1.equals("(") && characterBefore2.equals(","))
-				return true;
-			if(characterBefore1.equals(" ") && characterBefore2.equals(""))
-				return true;
-			if(characterBefore1.equals("") && characterBefore2.equals(" "))
-				return true;
-			if(characterBefore1.equals("") && characterBefore2.equals("!"))
-				return true;
+	private static int specialCharacterIndex(char c) {
+		for(int i = 0; i < SPECIAL_CHARACTERS.length; i++) {
+			if(SPECIAL_CHARACTERS[i] == c) {
+				return i;
+			}
 		}
-		return false;
+		return -1;
 	}
 
-	private static boolean compatibleCharacterAfterMatch(String characterAfter1, String characterAfter2) {
-		if(characterAfter1 != null && characterAfter2 != null) {
-			if(characterAfter1.equals(characterAfter2))
-				return true;
-			if(characterAfter1.equals(",") && characterAfter2.equals(")"))
-				return true;
-			if(characterAfter1.equals(")") && characterAfter2.equals(","))
-				return true;
+	/**
+	 * Equivalent to {@code s.indexOf(subString + character, fromIndex)}, without creating the concatenated string.
+	 */
+	private static int indexOfFollowedBy(String s, String subString, char character, int fromIndex) {
+		int length = subString.length();
+		for(int i = s.indexOf(subString, fromIndex); i != -1 && i + length < s.length(); i = s.indexOf(subString, i + 1)) {
+			if(s.charAt(i + length) == character) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Equivalent to {@code s.indexOf(character + subString, fromIndex)}, without creating the concatenated string.
+	 */
+	private static int indexOfPrecededBy(String s, char character, String subString, int fromIndex) {
+		for(int i = s.indexOf(subString, fromIndex + 1); i > fromIndex; i = i < s.length() ? s.indexOf(subString, i + 1) : -1) {
+			if(s.charAt(i - 1) == character) {
+				return i - 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Equivalent to {@code s.replace(subString + character, replacement + character)}.
+	 */
+	private static String replaceFollowedBy(String s, String subString, char character, String replacement) {
+		int start = indexOfFollowedBy(s, subString, character, 0);
+		if(start == -1) {
+			return s;
+		}
+		StringBuilder sb = new StringBuilder(s.length() + replacement.length());
+		int appendPosition = 0;
+		while(start != -1) {
+			sb.append(s, appendPosition, start).append(replacement).append(character);
+			appendPosition = start + subString.length() + 1;
+			start = indexOfFollowedBy(s, subString, character, appendPosition);
+		}
+		sb.append(s, appendPosition, s.length());
+		return sb.toString();
+	}
+
+	/**
+	 * Equivalent to {@code s.replace(character + subString, character + replacement)}.
+	 */
+	private static String replacePrecededBy(String s, char character, String subString, String replacement) {
+		int start = indexOfPrecededBy(s, character, subString, 0);
+		if(start == -1) {
+			return s;
+		}
+		StringBuilder sb = new StringBuilder(s.length() + replacement.length());
+		int appendPosition = 0;
+		while(start != -1) {
+			sb.append(s, appendPosition, start).append(character).append(replacement);
+			appendPosition = start + subString.length() + 1;
+			start = indexOfPrecededBy(s, character, subString, appendPosition);
 		}
+		sb.append(s, appendPosition, s.length());
+		return sb.toString();
+	}
+
+	private static boolean compatibleCharacterBeforeMatch(int characterBefore1, int characterBefore2) {
+		if(characterBefore1 == characterBefore2)
+			return true;
+		if(characterBefore1 == ',' && characterBefore2 == '(')
+			return true;
+		if(characterBefore1 == '(' && characterBefore2 == ',')
+			return true;
+		if(characterBefore1 == ' ' && characterBefore2 == NO_CHARACTER)
+			return true;
+		if(characterBefore1 == NO_CHARACTER && characterBefore2 == ' ')
+			return true;
+		if(characterBefore1 == NO_CHARACTER && characterBefore2 == '!')
+			return true;
+		return false;
+	}
+
+	private static boolean compatibleCharacterAfterMatch(int characterAfter1, int characterAfter2) {
+		if(characterAfter1 == characterAfter2)
+			return true;
+		if(characterAfter1 == ',' && characterAfter2 == ')')
+			return true;
+		if(characterAfter1 == ')' && characterAfter2 == ',')
+			return true;
 		return false;
 	}
 	
 	public static boolean sameCharsBeforeAfter(String completeString1, String completeString2, String commonSubString) {
-		Pattern p = Pattern.compile(Pattern.quote(commonSubString));
-		Matcher m1 = p.matcher(completeString1);
-		Matcher m2 = p.matcher(completeString2);
+		//the non-overlapping occurrences of the common substring, found in the same order as by a matcher of the quoted substring
+		int length = commonSubString.length();
 		int matches = 0;
 		int compatibleMatches = 0;
-		while(m1.find() && m2.find()) {
-			int start1 = m1.start();
-			int start2 = m2.start();
-			String characterBeforeMatch1 = start1 == 0 ? "" : String.valueOf(completeString1.charAt(start1 - 1));
-			String characterBeforeMatch2 = start2 == 0 ? "" : String.valueOf(completeString2.charAt(start2 - 1));
-			int end1 = m1.end();
-			int end2 = m2.end();
-			String characterAfterMatch1 = end1 == completeString1.length() ? "" : String.valueOf(completeString1.charAt(end1));
-			String characterAfterMatch2 = end2 == completeString2.length() ? "" : String.valueOf(completeString2.charAt(end2));
-			if(characterBeforeMatch1.equals(characterBeforeMatch2) && characterAfterMatch1.equals(characterAfterMatch2)) {
+		int start1 = indexOfMatch(completeString1, commonSubString, 0);
+		int start2 = start1 != -1 ? indexOfMatch(completeString2, commonSubString, 0) : -1;
+		while(start1 != -1 && start2 != -1) {
+			int end1 = start1 + length;
+			int end2 = start2 + length;
+			int characterBeforeMatch1 = start1 == 0 ? NO_CHARACTER : completeString1.charAt(start1 - 1);
+			int characterBeforeMatch2 = start2 == 0 ? NO_CHARACTER : completeString2.charAt(start2 - 1);
+			int characterAfterMatch1 = end1 == completeString1.length() ? NO_CHARACTER : completeString1.charAt(end1);
+			int characterAfterMatch2 = end2 == completeString2.length() ? NO_CHARACTER : completeString2.charAt(end2);
+			if(characterBeforeMatch1 == characterBeforeMatch2 && characterAfterMatch1 == characterAfterMatch2) {
 				compatibleMatches++;
 			}
 			matches++;
+			//an empty match is followed by the match at the next position
+			start1 = indexOfMatch(completeString1, commonSubString, length == 0 ? end1 + 1 : end1);
+			start2 = start1 != -1 ? indexOfMatch(completeString2, commonSubString, length == 0 ? end2 + 1 : end2) : -1;
 		}
 		return matches == compatibleMatches;
 	}
+
+	private static int indexOfMatch(String s, String subString, int fromIndex) {
+		return fromIndex <= s.length() ? s.indexOf(subString, fromIndex) : -1;
+	}
 }
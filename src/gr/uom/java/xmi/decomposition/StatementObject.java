@@ -75,6 +75,7 @@ public class StatementObject extends AbstractStatement {
 		this.ternaryOperatorExpressions = visitor.getTernaryOperatorExpressions();
 		this.lambdas = visitor.getLambdas();
 		setDepth(depth);
+		//with a symbol table, the flattened strings are interned, and so are the strings built from them below
 		String statementAsString = stringify(statement);
 		if(Visitor.METHOD_INVOCATION_PATTERN.matcher(statementAsString).matches()) {
 			if(statement instanceof VariableDeclarationStatement) {
@@ -101,7 +102,7 @@ public class StatementObject extends AbstractStatement {
 						}
 					}
 				}
-				this.statement = sb.toString();
+				this.statement = ASTFlattener.intern(sb.toString());
 			}
 			else if(statement instanceof ReturnStatement) {
 				ReturnStatement returnStatement = (ReturnStatement)statement;
@@ -116,7 +117,7 @@ public class StatementObject extends AbstractStatement {
 					ClassInstanceCreation classInstanceCreation = (ClassInstanceCreation)expression;
 					sb.append(Visitor.processClassInstanceCreation(classInstanceCreation));
 				}
-				this.statement = sb.toString();
+				this.statement = ASTFlattener.intern(sb.toString());
 			}
 			else if(statement instanceof ExpressionStatement) {
 				ExpressionStatement expressionStatement = (ExpressionStatement)statement;
@@ -130,7 +131,7 @@ public class StatementObject extends AbstractStatement {
 					ClassInstanceCreation classInstanceCreation = (ClassInstanceCreation)expression;
 					sb.append(Visitor.processClassInstanceCreation(classInstanceCreation));
 				}
-				this.statement = sb.toString();
+				this.statement = ASTFlattener.intern(sb.toString());
 			}
 			else {
 				this.statement = statementAsString;
@@ -0,0 +1,22 @@
+package gr.uom.java.xmi.decomposition;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the strings of the statements and expressions of the models sharing the table, so that a single instance of each distinct string is kept,
+ * as the same names, literals and expressions occur in many statements. Equal strings are then also identical,
+ * which short-circuits their comparison, including between the models of the two versions of a commit when they share the table.
+ * The strings themselves, and the way they are compared, are unchanged.
+ * The table can be used by several threads parsing the files of the models concurrently.
+ */
+public class SymbolTable {
+	private final ConcurrentHashMap<String, String> symbols = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * @return the instance of the table equal to the given string, which is added to the table if it has no equal instance
+	 */
+	public String intern(String string) {
+		String symbol = symbols.putIfAbsent(string, string);
+		return symbol != null ? symbol : string;
+	}
+}
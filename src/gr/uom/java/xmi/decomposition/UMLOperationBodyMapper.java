@@ -70,6 +70,8 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
+import org.refactoringminer.api.CancellationToken;
+import org.refactoringminer.api.CancellationToken.Phase;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 import org.refactoringminer.api.RefactoringType;
@@ -2852,6 +2854,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 	private void processInnerNodes(List<CompositeStatementObject> innerNodes1, List<CompositeStatementObject> innerNodes2,
 			List<AbstractCodeFragment> leaves1, List<AbstractCodeFragment> leaves2,
 			Map<String, String> parameterToArgumentMap, boolean containsCallToExtractedMethod) throws RefactoringMinerTimedOutException {
+		CancellationToken.checkpoint(Phase.BODY_MAPPING);
 		List<CompositeStatementObject> blocks1 = new ArrayList<>();
 		List<CompositeStatementObject> nonBlocks1 = new ArrayList<>();
 		Map<String, List<CompositeStatementObject>> map1 = new LinkedHashMap<>();
@@ -3085,6 +3088,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 	private void processInnerNodes(List<CompositeStatementObject> innerNodes1, List<CompositeStatementObject> innerNodes2, List<AbstractCodeFragment> leaves1, List<AbstractCodeFragment> leaves2,
 			Map<String, String> parameterToArgumentMap, List<UMLOperation> removedOperations, List<UMLOperation> addedOperations, boolean tryWithResourceMigration, boolean containsCallToExtractedMethod,
 			Map<String, List<CompositeStatementObject>> map1, Map<String, List<CompositeStatementObject>> map2) throws RefactoringMinerTimedOutException {
+		CancellationToken.checkpoint(Phase.BODY_MAPPING);
 		if(innerNodes1.size() <= innerNodes2.size()) {
 			//exact string matching - inner nodes - finds moves to another level
 			Set<CompositeStatementObject> innerNodes1ToBeRemoved = new LinkedHashSet<>();
@@ -3984,6 +3988,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 
 	private void processLeaves(List<? extends AbstractCodeFragment> leaves1, List<? extends AbstractCodeFragment> leaves2,
 			Map<String, String> parameterToArgumentMap, boolean isomorphic) throws RefactoringMinerTimedOutException {
+		CancellationToken.checkpoint(Phase.BODY_MAPPING);
 		if(leaves1.size() > MAXIMUM_NUMBER_OF_COMPARED_STATEMENTS && leaves2.size() > MAXIMUM_NUMBER_OF_COMPARED_STATEMENTS &&
 				container1.getBodyHashCode() != container2.getBodyHashCode()) {
 			return;
@@ -4023,6 +4028,9 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 		}
 		boolean leaves1LessThanLeaves2 = leaves1.size() <= leaves2.size() && leaves1LessThanLeaves2UnderComposites;
 		boolean equalNumberOfAssertions = assertions1 == assertions2 && assertions1 > 0;
+		//the exact matching phases look up the identical leaves by string, instead of comparing every pair of leaves
+		LeafMatchIndex leafIndex1 = new LeafMatchIndex(leaves1);
+		LeafMatchIndex leafIndex2 = new LeafMatchIndex(leaves2);
 		if(leaves1LessThanLeaves2) {
 			//exact string+depth matching - leaf nodes
 			if(isomorphic) {
@@ -4031,17 +4039,12 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 					if(!alreadyMatched1(leaf1)) {
 						TreeSet<LeafMapping> mappingSet = new TreeSet<LeafMapping>();
 						int matchCount = 0;
-						for(ListIterator<? extends AbstractCodeFragment> leafIterator2 = leaves2.listIterator(); leafIterator2.hasNext();) {
-							AbstractCodeFragment leaf2 = leafIterator2.next();
+						for(AbstractCodeFragment leaf2 : leafIndex2.identicalMatches(leaf1)) {
 							if(!alreadyMatched2(leaf2)) {
-								String argumentizedString1 = preprocessInput1(leaf1, leaf2);
-								String argumentizedString2 = preprocessInput2(leaf1, leaf2);
-								if(leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2)) {
-									matchCount++;
-									if(leaf1.getDepth() == leaf2.getDepth()) {
-										LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap, equalNumberOfAssertions);
-										mappingSet.add(mapping);
-									}
+								matchCount++;
+								if(leaf1.getDepth() == leaf2.getDepth()) {
+									LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap, equalNumberOfAssertions);
+									mappingSet.add(mapping);
 								}
 							}
 						}
@@ -4085,19 +4088,15 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 				if(!alreadyMatched1(leaf1)) {
 					List<AbstractCodeFragment> matchingLeaves1 = new ArrayList<>();
 					Set<AbstractCodeFragment> parents1 = new HashSet<>();
-					for(AbstractCodeFragment l1 : leaves1) {
-						if(l1.getString().equals(leaf1.getString())) {
-							matchingLeaves1.add(l1);
-							parents1.add(l1.getParent());
-						}
+					for(AbstractCodeFragment l1 : leafIndex1.identicalStringMatches(leaf1)) {
+						matchingLeaves1.add(l1);
+						parents1.add(l1.getParent());
 					}
 					List<AbstractCodeFragment> matchingLeaves2 = new ArrayList<>();
 					Set<AbstractCodeFragment> parents2 = new HashSet<>();
-					for(AbstractCodeFragment l2 : leaves2) {
-						if(l2.getString().equals(leaf1.getString())) {
-							matchingLeaves2.add(l2);
-							parents2.add(l2.getParent());
-						}
+					for(AbstractCodeFragment l2 : leafIndex2.identicalStringMatches(leaf1)) {
+						matchingLeaves2.add(l2);
+						parents2.add(l2.getParent());
 					}
 					boolean allMatchingLeaves1InMethodScope = parents1.size() == 1 && parents1.iterator().next() != null && parents1.iterator().next().getParent() == null;
 					boolean allMatchingLeaves2InMethodScope = parents2.size() == 1 && parents2.iterator().next() != null && parents2.iterator().next().getParent() == null;
@@ -4112,15 +4111,10 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 						continue;
 					}
 					TreeSet<LeafMapping> mappingSet = parentMapping != null ? new TreeSet<LeafMapping>(new ScopedLeafMappingComparatorForInline(parentMapping)) : new TreeSet<LeafMapping>();
-					for(ListIterator<? extends AbstractCodeFragment> leafIterator2 = leaves2.listIterator(); leafIterator2.hasNext();) {
-						AbstractCodeFragment leaf2 = leafIterator2.next();
+					for(AbstractCodeFragment leaf2 : leafIndex2.identicalMatches(leaf1)) {
 						if(!alreadyMatched2(leaf2)) {
-							String argumentizedString1 = preprocessInput1(leaf1, leaf2);
-							String argumentizedString2 = preprocessInput2(leaf1, leaf2);
-							if((leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2))) {
-								LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap, equalNumberOfAssertions);
-								mappingSet.add(mapping);
-							}
+							LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap, equalNumberOfAssertions);
+							mappingSet.add(mapping);
 						}
 					}
 					if(equalNumberOfAssertions && leaf1.isAssertCall() && mappingSet.size() > 0) {
@@ -4296,17 +4290,12 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 					if(!alreadyMatched2(leaf2)) {
 						TreeSet<LeafMapping> mappingSet = new TreeSet<LeafMapping>();
 						int matchCount = 0;
-						for(ListIterator<? extends AbstractCodeFragment> leafIterator1 = leaves1.listIterator(); leafIterator1.hasNext();) {
-							AbstractCodeFragment leaf1 = leafIterator1.next();
+						for(AbstractCodeFragment leaf1 : leafIndex1.identicalMatches(leaf2)) {
 							if(!alreadyMatched1(leaf1)) {
-								String argumentizedString1 = preprocessInput1(leaf1, leaf2);
-								String argumentizedString2 = preprocessInput2(leaf1, leaf2);
-								if(leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2)) {
-									matchCount++;
-									if(leaf1.getDepth() == leaf2.getDepth()) {
-										LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap, equalNumberOfAssertions);
-										mappingSet.add(mapping);
-									}
+								matchCount++;
+								if(leaf1.getDepth() == leaf2.getDepth()) {
+									LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap, equalNumberOfAssertions);
+									mappingSet.add(mapping);
 								}
 							}
 						}
@@ -4342,19 +4331,15 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 				if(!alreadyMatched2(leaf2)) {
 					List<AbstractCodeFragment> matchingLeaves1 = new ArrayList<>();
 					Set<AbstractCodeFragment> parents1 = new HashSet<>();
-					for(AbstractCodeFragment l1 : leaves1) {
-						if(l1.getString().equals(leaf2.getString())) {
-							matchingLeaves1.add(l1);
-							parents1.add(l1.getParent());
-						}
+					for(AbstractCodeFragment l1 : leafIndex1.identicalStringMatches(leaf2)) {
+						matchingLeaves1.add(l1);
+						parents1.add(l1.getParent());
 					}
 					List<AbstractCodeFragment> matchingLeaves2 = new ArrayList<>();
 					Set<AbstractCodeFragment> parents2 = new HashSet<>();
-					for(AbstractCodeFragment l2 : leaves2) {
-						if(l2.getString().equals(leaf2.getString())) {
-							matchingLeaves2.add(l2);
-							parents2.add(l2.getParent());
-						}
+					for(AbstractCodeFragment l2 : leafIndex2.identicalStringMatches(leaf2)) {
+						matchingLeaves2.add(l2);
+						parents2.add(l2.getParent());
 					}
 					boolean allMatchingLeaves1InMethodScope = parents1.size() == 1 && parents1.iterator().next() != null && parents1.iterator().next().getParent() == null;
 					boolean allMatchingLeaves2InMethodScope = parents2.size() == 1 && parents2.iterator().next() != null && parents2.iterator().next().getParent() == null;
@@ -4369,15 +4354,10 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 						continue;
 					}
 					TreeSet<LeafMapping> mappingSet = parentMapping != null ? new TreeSet<LeafMapping>(new ScopedLeafMappingComparatorForExtract(parentMapping)) : new TreeSet<LeafMapping>();
-					for(ListIterator<? extends AbstractCodeFragment> leafIterator1 = leaves1.listIterator(); leafIterator1.hasNext();) {
-						AbstractCodeFragment leaf1 = leafIterator1.next();
+					for(AbstractCodeFragment leaf1 : leafIndex1.identicalMatches(leaf2)) {
 						if(!alreadyMatched1(leaf1)) {
-							String argumentizedString1 = preprocessInput1(leaf1, leaf2);
-							String argumentizedString2 = preprocessInput2(leaf1, leaf2);
-							if((leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2))) {
-								LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap, equalNumberOfAssertions);
-								mappingSet.add(mapping);
-							}
+							LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap, equalNumberOfAssertions);
+							mappingSet.add(mapping);
 						}
 					}
 					if(!mappingSet.isEmpty()) {
@@ -6426,10 +6406,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 	private String preprocessInput(AbstractCodeFragment leaf1, AbstractCodeFragment leaf2) {
 		String argumentizedString = new String(leaf1.getArgumentizedString());
 		if (leaf1 instanceof StatementObject && leaf2 instanceof AbstractExpression) {
-			if (argumentizedString.startsWith("return ") && argumentizedString.endsWith(";\n")) {
-				argumentizedString = argumentizedString.substring("return ".length(),
-						argumentizedString.lastIndexOf(";\n"));
-			}
+			argumentizedString = LeafMatchIndex.stripReturn(argumentizedString);
 		}
 		return argumentizedString;
 	}
@@ -6886,9 +6863,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 				TreeMap<Double, Replacement> replacementMap = new TreeMap<Double, Replacement>();
 				int minDistance = replacementInfo.getRawDistance();
 				for(String s2 : variablesAndMethodInvocations2) {
-					if(Thread.interrupted()) {
-						throw new RefactoringMinerTimedOutException();
-					}
+					CancellationToken.checkpoint(Phase.BODY_MAPPING);
 					String temp = ReplacementUtil.performReplacement(replacementInfo.getArgumentizedString1(), replacementInfo.getArgumentizedString2(), s1, s2);
 					int distanceRaw = StringDistance.editDistance(temp, replacementInfo.getArgumentizedString2(), minDistance);
 					boolean multipleInstances = ReplacementUtil.countInstances(temp, s2) > 1;
@@ -9935,9 +9910,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 			for(String s1 : strings1) {
 				TreeMap<Double, Replacement> replacementMap = new TreeMap<Double, Replacement>();
 				for(String s2 : strings2) {
-					if(Thread.interrupted()) {
-						throw new RefactoringMinerTimedOutException();
-					}
+					CancellationToken.checkpoint(Phase.BODY_MAPPING);
 					boolean containsMethodSignatureOfAnonymousClass1 = containsMethodSignatureOfAnonymousClass(s1);
 					boolean containsMethodSignatureOfAnonymousClass2 = containsMethodSignatureOfAnonymousClass(s2);
 					if(containsMethodSignatureOfAnonymousClass1 != containsMethodSignatureOfAnonymousClass2 &&
@@ -9986,9 +9959,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
 			for(String s2 : strings2) {
 				TreeMap<Double, Replacement> replacementMap = new TreeMap<Double, Replacement>();
 				for(String s1 : strings1) {
-					if(Thread.interrupted()) {
-						throw new RefactoringMinerTimedOutException();
-					}
+					CancellationToken.checkpoint(Phase.BODY_MAPPING);
 					boolean containsMethodSignatureOfAnonymousClass1 = containsMethodSignatureOfAnonymousClass(s1);
 					boolean containsMethodSignatureOfAnonymousClass2 = containsMethodSignatureOfAnonymousClass(s2);
 					if(containsMethodSignatureOfAnonymousClass1 != containsMethodSignatureOfAnonymousClass2 &&
@@ -646,11 +646,9 @@ public class VariableReplacementAnalysis {
 			List<UMLAttribute> removedAttributes = new ArrayList<>();
 			removedAttributes.addAll(classDiff.getRemovedAttributes());
 			if(modelDiff != null) {
-				for(UMLAbstractClassDiff otherClassDiff : modelDiff.getCommonClassDiffList()) {
-					if(otherClassDiff.getNextClass().isInnerClass(classDiff.getNextClass())) {
-						addedAttributes.addAll(otherClassDiff.getAddedAttributes());
-						removedAttributes.addAll(otherClassDiff.getRemovedAttributes());
-					}
+				for(UMLAbstractClassDiff otherClassDiff : modelDiff.getOuterClassDiffs(classDiff.getNextClass())) {
+					addedAttributes.addAll(otherClassDiff.getAddedAttributes());
+					removedAttributes.addAll(otherClassDiff.getRemovedAttributes());
 				}
 			}
 			for(AbstractCodeFragment fragment1 : mapper.getNonMappedLeavesT1()) {
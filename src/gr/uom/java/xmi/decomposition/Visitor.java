@@ -913,8 +913,6 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public static String stringify(ASTNode node) {
-		ASTFlattener printer = new ASTFlattener();
-        node.accept(printer);
-        return printer.getResult();
+		return ASTFlattener.flatten(node);
 	}
 }
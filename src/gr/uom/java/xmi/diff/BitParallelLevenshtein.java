@@ -0,0 +1,132 @@
+package gr.uom.java.xmi.diff;
+
+import java.util.Arrays;
+
+/**
+ * Levenshtein distance computed with the bit-vector algorithm of Myers, in the block-based formulation of Hyyro for strings longer than 64 characters.
+ * Each character of the longer string advances a whole column of the dynamic programming matrix with a few word operations per 64 cells.
+ * <p>
+ * The shorter string is encoded as match bit vectors in a per-thread workspace, which is reused across calls, so that a distance computation does not allocate.
+ */
+final class BitParallelLevenshtein {
+	private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+	private BitParallelLevenshtein() {}
+
+	/**
+	 * @return the Levenshtein distance of the two strings
+	 */
+	static int distance(CharSequence a, CharSequence b) {
+		return distance(a, b, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return the Levenshtein distance of the two strings if it does not exceed the threshold, otherwise -1
+	 */
+	static int distance(CharSequence a, CharSequence b, int threshold) {
+		CharSequence pattern = a;
+		CharSequence text = b;
+		if(a.length() > b.length()) {
+			pattern = b;
+			text = a;
+		}
+		int m = pattern.length();
+		int n = text.length();
+		if(n - m > threshold) {
+			return -1;
+		}
+		if(m == 0) {
+			return n;
+		}
+		return WORKSPACE.get().distance(pattern, text, threshold);
+	}
+
+	private static final class Workspace {
+		//1-based index of each character of the pattern in the pattern alphabet, 0 for the characters not in the pattern
+		private final char[] alphabetIndex = new char[Character.MAX_VALUE + 1];
+		//match vectors of the pattern, one row of blocks per alphabet index, row 0 is left empty for the characters not in the pattern
+		private long[] peq = new long[64];
+		//positive and negative vertical deltas of the current column
+		private long[] pv = new long[1];
+		private long[] mv = new long[1];
+
+		private int distance(CharSequence pattern, CharSequence text, int threshold) {
+			int m = pattern.length();
+			int n = text.length();
+			int blocks = (m + 63) >>> 6;
+			try {
+				int alphabetSize = 0;
+				for(int i = 0; i < m; i++) {
+					char c = pattern.charAt(i);
+					if(alphabetIndex[c] == 0) {
+						alphabetIndex[c] = (char)++alphabetSize;
+					}
+				}
+				int peqLength = (alphabetSize + 1) * blocks;
+				if(peq.length < peqLength) {
+					peq = new long[Math.max(peqLength, 2 * peq.length)];
+				}
+				Arrays.fill(peq, 0, peqLength, 0L);
+				for(int i = 0; i < m; i++) {
+					peq[alphabetIndex[pattern.charAt(i)] * blocks + (i >>> 6)] |= 1L << i;
+				}
+				if(pv.length < blocks) {
+					pv = new long[blocks];
+					mv = new long[blocks];
+				}
+				Arrays.fill(pv, 0, blocks, -1L);
+				Arrays.fill(mv, 0, blocks, 0L);
+				int lastBlock = blocks - 1;
+				int lastBit = (m - 1) & 63;
+				int score = m;
+				for(int j = 0; j < n; j++) {
+					int row = alphabetIndex[text.charAt(j)] * blocks;
+					//the first row of the matrix grows by one in every column
+					int hin = 1;
+					for(int w = 0; w < blocks; w++) {
+						long eq = peq[row + w];
+						long pvw = pv[w];
+						long mvw = mv[w];
+						long xv = eq | mvw;
+						if(hin < 0) {
+							eq |= 1L;
+						}
+						long xh = (((eq & pvw) + pvw) ^ pvw) | eq;
+						long ph = mvw | ~(xh | pvw);
+						long mh = pvw & xh;
+						int hout;
+						if(w == lastBlock) {
+							//the rows past the end of the pattern do not affect the rows above them
+							hout = (int)((ph >>> lastBit) & 1L) - (int)((mh >>> lastBit) & 1L);
+						}
+						else {
+							hout = (int)(ph >>> 63) - (int)(mh >>> 63);
+						}
+						ph <<= 1;
+						mh <<= 1;
+						if(hin < 0) {
+							mh |= 1L;
+						}
+						else if(hin > 0) {
+							ph |= 1L;
+						}
+						pv[w] = mh | ~(xv | ph);
+						mv[w] = ph & xv;
+						hin = hout;
+					}
+					score += hin;
+					//the score changes by at most one per remaining column
+					if(score - (n - j - 1) > threshold) {
+						return -1;
+					}
+				}
+				return score <= threshold ? score : -1;
+			}
+			finally {
+				for(int i = 0; i < m; i++) {
+					alphabetIndex[pattern.charAt(i)] = 0;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package gr.uom.java.xmi.diff;
+
+import gr.uom.java.xmi.UMLAbstractClass;
+import gr.uom.java.xmi.UMLOperation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+
+import org.refactoringminer.api.CancellationToken;
+import org.refactoringminer.api.PhaseBudgetExhaustedException;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+
+/**
+ * Processes the diffs of the common classes of a model diff concurrently, with the same results as processing them one after the other.
+ * <p>
+ * When the class diffs are processed sequentially, a class diff can look up through the {@link UMLModelDiff} the class diffs processed before it,
+ * but none of the class diffs after it. The processor preserves this view: the lookups running in the task of a class diff only see the class diffs
+ * preceding it, and wait until these have been processed. The tasks are started in order on a fixed pool, so a task only waits for tasks that are already running,
+ * and the earliest unfinished task never waits. The pool can be shared by several processors, as the tasks of each processor are queued in order.
+ */
+class ParallelClassDiffProcessor {
+	private final List<UMLClassDiff> classDiffs;
+	private final List<FutureTask<Void>> results = new ArrayList<FutureTask<Void>>();
+	//position of the class diff processed by the current thread
+	private final ThreadLocal<Integer> currentPosition = new ThreadLocal<Integer>();
+	//positions of the class diffs by original class name, in the same way UMLModelDiff indexes its class diff lists
+	private final Map<String, Integer> classDiffNameIndex = new HashMap<String, Integer>();
+	private final Map<String, Integer> classDiffNameSuffixIndex = new HashMap<String, Integer>();
+	//positions of the class diffs whose next class declares an operation with a given name, in ascending order
+	private final Map<String, List<Integer>> operationNameIndex = new HashMap<String, List<Integer>>();
+
+	ParallelClassDiffProcessor(List<UMLClassDiff> classDiffs) {
+		this.classDiffs = classDiffs;
+		for(int i=0; i<classDiffs.size(); i++) {
+			UMLClassDiff classDiff = classDiffs.get(i);
+			UMLModelDiff.indexClassName(classDiff.getOriginalClassName(), i, classDiffNameIndex, classDiffNameSuffixIndex);
+			for(UMLOperation operation : classDiff.getNextClass().getOperations()) {
+				List<Integer> positions = operationNameIndex.computeIfAbsent(operation.getName(), k -> new ArrayList<Integer>());
+				if(positions.isEmpty() || positions.get(positions.size() - 1) != i) {
+					positions.add(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param pool A fixed pool running its tasks in submission order. The pool is not shut down.
+	 * @return the processed class diffs, in the order of the given list, including the ones whose processing stopped early because a phase budget ran out
+	 */
+	List<UMLClassDiff> process(ExecutorService pool) throws RefactoringMinerTimedOutException {
+		CancellationToken token = CancellationToken.current();
+		List<UMLClassDiff> processedClassDiffs = new ArrayList<UMLClassDiff>();
+		try {
+			//all the tasks are created before the first one starts, as the tasks look up the tasks before them
+			for(int i=0; i<classDiffs.size(); i++) {
+				int position = i;
+				results.add(new FutureTask<Void>(() -> {
+					if(token != null) {
+						token.attach();
+					}
+					currentPosition.set(position);
+					try {
+						classDiffs.get(position).process();
+						return null;
+					}
+					finally {
+						currentPosition.remove();
+						CancellationToken.detach();
+					}
+				}));
+			}
+			for(FutureTask<Void> result : results) {
+				pool.execute(result);
+			}
+			//wait for all the tasks, so that none of them is still running when the model diff moves on
+			List<Throwable> failures = new ArrayList<Throwable>();
+			for(FutureTask<Void> result : results) {
+				try {
+					result.get();
+					failures.add(null);
+				}
+				catch(ExecutionException e) {
+					failures.add(e.getCause());
+				}
+			}
+			for(int i=0; i<classDiffs.size(); i++) {
+				Throwable failure = failures.get(i);
+				if(failure instanceof RefactoringMinerTimedOutException && !(failure instanceof PhaseBudgetExhaustedException)) {
+					throw (RefactoringMinerTimedOutException)failure;
+				}
+				if(failure instanceof RuntimeException) {
+					throw (RuntimeException)failure;
+				}
+				if(failure instanceof Error) {
+					throw (Error)failure;
+				}
+				if(failure != null && !(failure instanceof PhaseBudgetExhaustedException)) {
+					throw new IllegalStateException(failure);
+				}
+				//a class diff whose processing stopped early keeps the body mappers created so far
+				processedClassDiffs.add(classDiffs.get(i));
+			}
+		}
+		catch(InterruptedException e) {
+			//the thread would have been stopped at its next checkpoint
+			throw new RefactoringMinerTimedOutException();
+		}
+		finally {
+			//only the tasks of this processor are stopped, the pool is still used by the next model diffs
+			for(FutureTask<Void> result : results) {
+				result.cancel(true);
+			}
+		}
+		return processedClassDiffs;
+	}
+
+	/**
+	 * @return true if the current thread is processing one of the class diffs
+	 */
+	boolean isProcessing() {
+		return currentPosition.get() != null;
+	}
+
+	/**
+	 * @return the first class diff visible to the current thread with the given original class name, or null
+	 */
+	UMLClassDiff getClassDiff(String className) {
+		return visibleClassDiff(classDiffNameIndex.get(className));
+	}
+
+	/**
+	 * @return the first class diff visible to the current thread whose original class name ends with "." followed by the given suffix, or null
+	 */
+	UMLClassDiff getClassDiffByNameSuffix(String suffix) {
+		return visibleClassDiff(classDiffNameSuffixIndex.get(suffix));
+	}
+
+	/**
+	 * @return the class diffs visible to the current thread whose next class declares an operation with the given name
+	 */
+	List<UMLClassDiff> getClassDiffsWithOperation(String operationName) {
+		List<UMLClassDiff> visibleClassDiffs = new ArrayList<UMLClassDiff>();
+		List<Integer> positions = operationNameIndex.get(operationName);
+		if(positions != null) {
+			int currentPosition = this.currentPosition.get();
+			for(int position : positions) {
+				if(position >= currentPosition) {
+					break;
+				}
+				visibleClassDiffs.add(processedClassDiff(position));
+			}
+		}
+		return visibleClassDiffs;
+	}
+
+	/**
+	 * @return the class diffs visible to the current thread whose next class is the outer class of the given class
+	 */
+	List<UMLClassDiff> getOuterClassDiffs(UMLAbstractClass innerClass) {
+		List<UMLClassDiff> visibleClassDiffs = new ArrayList<UMLClassDiff>();
+		int currentPosition = this.currentPosition.get();
+		for(int position=0; position<currentPosition; position++) {
+			if(classDiffs.get(position).getNextClass().isInnerClass(innerClass)) {
+				visibleClassDiffs.add(processedClassDiff(position));
+			}
+		}
+		return visibleClassDiffs;
+	}
+
+	private UMLClassDiff visibleClassDiff(Integer position) {
+		if(position != null && position < currentPosition.get()) {
+			return processedClassDiff(position);
+		}
+		return null;
+	}
+
+	private UMLClassDiff processedClassDiff(int position) {
+		try {
+			results.get(position).get();
+		}
+		catch(ExecutionException e) {
+			if(e.getCause() instanceof PhaseBudgetExhaustedException) {
+				//the class diff stopped early, but is still part of the model diff
+				return classDiffs.get(position);
+			}
+			//the class diffs after a failed one are discarded, as they would not have been processed sequentially
+			throw new CancellationException("class diff " + classDiffs.get(position).getOriginalClassName() + " failed");
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("class diff processing interrupted");
+		}
+		return classDiffs.get(position);
+	}
+}
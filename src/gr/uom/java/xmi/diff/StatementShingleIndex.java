@@ -0,0 +1,141 @@
+package gr.uom.java.xmi.diff;
+
+import gr.uom.java.xmi.LocationInfo.CodeElementType;
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.decomposition.AbstractCodeFragment;
+import gr.uom.java.xmi.decomposition.AbstractCodeMapping;
+import gr.uom.java.xmi.decomposition.CompositeStatementObject;
+import gr.uom.java.xmi.decomposition.LeafExpression;
+import gr.uom.java.xmi.decomposition.UMLOperationBodyMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from the statement shingles of a list of operations to the operations containing them.
+ * <p>
+ * The shingle of a statement is its string with the variables replaced by a placeholder and the {@code this.} qualifiers removed,
+ * so that a statement moved to another operation, where its variables are usually parameters named differently, keeps its shingle.
+ * An operation and a body mapper sharing no shingle can only be matched through replacements in every statement.
+ */
+class StatementShingleIndex {
+	private static final String VARIABLE_PLACEHOLDER = "$";
+	private final Map<String, List<UMLOperation>> operationsByShingle = new HashMap<String, List<UMLOperation>>();
+
+	StatementShingleIndex(List<UMLOperation> operations) {
+		for(UMLOperation operation : operations) {
+			if(operation.getBody() != null) {
+				CompositeStatementObject body = operation.getBody().getCompositeStatement();
+				Set<String> shingles = new HashSet<String>();
+				for(AbstractCodeFragment leaf : body.getLeaves()) {
+					addShingle(shingles, leaf);
+				}
+				for(CompositeStatementObject innerNode : body.getInnerNodes()) {
+					addShingle(shingles, innerNode);
+				}
+				for(String shingle : shingles) {
+					operationsByShingle.computeIfAbsent(shingle, k -> new ArrayList<UMLOperation>()).add(operation);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the number of shingles of the statements of the first operation not matched exactly by the mapper shared by each indexed operation,
+	 * which are the statements that may have been extracted to the indexed operations
+	 */
+	Map<UMLOperation, Integer> overlapWithUnmatchedStatementsT1(UMLOperationBodyMapper mapper) {
+		Set<String> shingles = new HashSet<String>();
+		for(AbstractCodeFragment leaf : mapper.getNonMappedLeavesT1()) {
+			addShingle(shingles, leaf);
+		}
+		for(CompositeStatementObject innerNode : mapper.getNonMappedInnerNodesT1()) {
+			addShingle(shingles, innerNode);
+		}
+		for(AbstractCodeMapping mapping : mapper.getMappings()) {
+			if(!mapping.isExact()) {
+				addShingle(shingles, mapping.getFragment1());
+			}
+		}
+		return overlap(shingles);
+	}
+
+	/**
+	 * @return the number of shingles of the statements of the second operation not matched exactly by the mapper shared by each indexed operation,
+	 * which are the statements that may have been inlined from the indexed operations
+	 */
+	Map<UMLOperation, Integer> overlapWithUnmatchedStatementsT2(UMLOperationBodyMapper mapper) {
+		Set<String> shingles = new HashSet<String>();
+		for(AbstractCodeFragment leaf : mapper.getNonMappedLeavesT2()) {
+			addShingle(shingles, leaf);
+		}
+		for(CompositeStatementObject innerNode : mapper.getNonMappedInnerNodesT2()) {
+			addShingle(shingles, innerNode);
+		}
+		for(AbstractCodeMapping mapping : mapper.getMappings()) {
+			if(!mapping.isExact()) {
+				addShingle(shingles, mapping.getFragment2());
+			}
+		}
+		return overlap(shingles);
+	}
+
+	private Map<UMLOperation, Integer> overlap(Set<String> shingles) {
+		Map<UMLOperation, Integer> overlap = new IdentityHashMap<UMLOperation, Integer>();
+		for(String shingle : shingles) {
+			List<UMLOperation> operations = operationsByShingle.get(shingle);
+			if(operations != null) {
+				for(UMLOperation operation : operations) {
+					overlap.merge(operation, 1, Integer::sum);
+				}
+			}
+		}
+		return overlap;
+	}
+
+	private static void addShingle(Set<String> shingles, AbstractCodeFragment fragment) {
+		//every operation body has blocks
+		if(!fragment.getLocationInfo().getCodeElementType().equals(CodeElementType.BLOCK)) {
+			shingles.add(shingle(fragment));
+		}
+	}
+
+	static String shingle(AbstractCodeFragment fragment) {
+		String string = fragment.getString().replace("this.", "");
+		Set<String> variables = new LinkedHashSet<String>();
+		for(LeafExpression variable : fragment.getVariables()) {
+			String name = variable.getString();
+			variables.add(name.startsWith("this.") ? name.substring(5) : name);
+		}
+		if(variables.isEmpty()) {
+			return string;
+		}
+		StringBuilder sb = new StringBuilder(string.length());
+		int i = 0;
+		while(i < string.length()) {
+			char c = string.charAt(i);
+			if(Character.isJavaIdentifierPart(c)) {
+				int end = i + 1;
+				while(end < string.length() && Character.isJavaIdentifierPart(string.charAt(end))) {
+					end++;
+				}
+				String identifier = string.substring(i, end);
+				//the members accessed through a qualifier are not variables
+				boolean qualified = i > 0 && string.charAt(i-1) == '.';
+				sb.append(!qualified && variables.contains(identifier) ? VARIABLE_PLACEHOLDER : identifier);
+				i = end;
+			}
+			else {
+				sb.append(c);
+				i++;
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -6,7 +6,6 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.text.similarity.LevenshteinDistance;
 
 import com.github.difflib.DiffUtils;
 import com.github.difflib.patch.AbstractDelta;
@@ -17,13 +16,20 @@ public class StringDistance {
 	private static final int MAX_STRING_LENGTH = 10000;
 	private static final Pattern COMMENT_LINE = Pattern.compile("^\\s*(//|\\*|import\\s).*");
 	
+	/**
+	 * @return the Levenshtein distance of the two strings if it does not exceed the threshold, otherwise -1.
+	 * Strings longer than {@value #MAX_STRING_LENGTH} characters are not compared, and the threshold is returned.
+	 */
 	public static int editDistance(String a, String b, int threshold) {
 		int length1 = a.length();
 		int length2 = b.length();
 		if(length1 > MAX_STRING_LENGTH || length2 > MAX_STRING_LENGTH) {
 			return threshold;
 		}
-		return new LevenshteinDistance(threshold).apply(a, b);
+		if(threshold < 0) {
+			throw new IllegalArgumentException("Threshold must not be negative");
+		}
+		return BitParallelLevenshtein.distance(a, b, threshold);
 	}
 
 	public static int editDistance(String a, String b) {
@@ -32,7 +38,7 @@ public class StringDistance {
 		if(length1 > MAX_STRING_LENGTH || length2 > MAX_STRING_LENGTH) {
 			return Math.max(length1, length2);
 		}
-		return new LevenshteinDistance().apply(a, b);
+		return BitParallelLevenshtein.distance(a, b);
 	}
 
 	public static boolean trivialCommentChange(String fileBefore, String fileAfter) throws IOException {
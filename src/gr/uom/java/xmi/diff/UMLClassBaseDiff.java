@@ -17,6 +17,9 @@ import java.util.TreeSet;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.refactoringminer.api.CancellationToken;
+import org.refactoringminer.api.CancellationToken.Phase;
+import org.refactoringminer.api.PhaseBudgetExhaustedException;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 
@@ -89,24 +92,52 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
 		return (UMLClass) nextClass;
 	}
 
+	/**
+	 * Compare the two classes. If the budget of the body mapping phase runs out, the step being run is left incomplete
+	 * and the steps mapping operation bodies fail fast, while the steps comparing the declarations of the classes still run.
+	 */
 	public void process() throws RefactoringMinerTimedOutException {
 		processImports();
-		processInitializers();
+		processBodyMappingStep(() -> {
+			CancellationToken.checkpoint(Phase.BODY_MAPPING);
+			processInitializers();
+		});
 		processModifiers();
 		processTypeParameters();
 		processAnnotations();
-		processEnumConstants();
+		processBodyMappingStep(this::processEnumConstants);
 		processInheritance();
-		processOperations();
-		createBodyMappers();
+		processBodyMappingStep(this::processOperations);
+		processBodyMappingStep(() -> {
+			createBodyMappers();
+			CancellationToken.checkpoint(Phase.BODY_MAPPING);
+		});
 		processAnonymousClasses();
-		checkForOperationSignatureChanges();
-		processAttributes();
-		checkForAttributeChanges();
-		checkForInlinedOperations();
-		checkForExtractedOperations();
-		checkForExtractedOperationsWithCallsInOtherMappers();
-		checkForMovedCodeBetweenOperations();
+		processBodyMappingStep(this::checkForOperationSignatureChanges);
+		processBodyMappingStep(this::processAttributes);
+		processBodyMappingStep(this::checkForAttributeChanges);
+		processBodyMappingStep(() -> {
+			CancellationToken.checkpoint(Phase.BODY_MAPPING);
+			checkForInlinedOperations();
+			checkForExtractedOperations();
+			checkForExtractedOperationsWithCallsInOtherMappers();
+			checkForMovedCodeBetweenOperations();
+		});
+	}
+
+	private interface ProcessingStep {
+		void run() throws RefactoringMinerTimedOutException;
+	}
+
+	private static void processBodyMappingStep(ProcessingStep step) throws RefactoringMinerTimedOutException {
+		try {
+			step.run();
+		} catch(PhaseBudgetExhaustedException e) {
+			if(e.getPhase() != Phase.BODY_MAPPING) {
+				throw e;
+			}
+			//keep what the step did before the budget ran out
+		}
 	}
 
 	private void checkForMovedCodeBetweenOperations() throws RefactoringMinerTimedOutException {
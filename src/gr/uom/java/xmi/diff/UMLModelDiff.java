@@ -21,6 +21,7 @@ import gr.uom.java.xmi.decomposition.AbstractCall;
 import gr.uom.java.xmi.decomposition.AbstractCodeFragment;
 import gr.uom.java.xmi.decomposition.AbstractCodeMapping;
 import gr.uom.java.xmi.decomposition.AbstractExpression;
+import gr.uom.java.xmi.decomposition.ArgumentizationScope;
 import gr.uom.java.xmi.decomposition.CompositeStatementObject;
 import gr.uom.java.xmi.decomposition.CompositeStatementObjectMapping;
 import gr.uom.java.xmi.decomposition.LeafExpression;
@@ -40,7 +41,10 @@ import gr.uom.java.xmi.decomposition.replacement.VariableReplacementWithMethodIn
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -50,9 +54,16 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.refactoringminer.api.CancellationToken;
+import org.refactoringminer.api.CancellationToken.Phase;
+import org.refactoringminer.api.PhaseBudgetExhaustedException;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 import org.refactoringminer.api.RefactoringType;
@@ -63,8 +74,8 @@ public class UMLModelDiff {
 	private final int MAXIMUM_NUMBER_OF_COMPARED_METHODS;
 	private UMLModel parentModel;
 	private UMLModel childModel;
-	private List<UMLClass> addedClasses;
-	private List<UMLClass> removedClasses;
+	private TrackedList<UMLClass> addedClasses;
+	private TrackedList<UMLClass> removedClasses;
 
 	private List<UMLGeneralization> addedGeneralizations;
 	private List<UMLGeneralization> removedGeneralizations;
@@ -73,18 +84,31 @@ public class UMLModelDiff {
 	private List<UMLRealization> removedRealizations;
 	private List<UMLRealizationDiff> realizationDiffList;
 
-	private List<UMLClassDiff> commonClassDiffList;
-	private List<UMLClassMoveDiff> classMoveDiffList;
-	private List<UMLClassMoveDiff> innerClassMoveDiffList;
-	private List<UMLClassRenameDiff> classRenameDiffList;
+	private TrackedList<UMLClassDiff> commonClassDiffList;
+	private TrackedList<UMLClassMoveDiff> classMoveDiffList;
+	private TrackedList<UMLClassMoveDiff> innerClassMoveDiffList;
+	private TrackedList<UMLClassRenameDiff> classRenameDiffList;
 	private List<UMLClassMergeDiff> classMergeDiffList;
 	private List<UMLClassSplitDiff> classSplitDiffList;
 	private List<UMLAttributeDiff> movedAttributeDiffList;
 	private List<Refactoring> refactorings;
 	private Set<Refactoring> moveRenameClassRefactorings;
 	private Set<String> deletedFolderPaths;
-	private Set<Pair<VariableDeclarationContainer, VariableDeclarationContainer>> processedOperationPairs = new HashSet<Pair<VariableDeclarationContainer, VariableDeclarationContainer>>();
+	private Set<Pair<VariableDeclarationContainer, VariableDeclarationContainer>> processedOperationPairs = ConcurrentHashMap.newKeySet();
 	private Set<Pair<UMLClass, UMLClass>> processedClassPairs = new HashSet<Pair<UMLClass, UMLClass>>();
+	//indexes over the common, move, inner move and rename class diff lists, rebuilt when any of the lists has been modified
+	private Map<String, UMLClassBaseDiff> classDiffNameIndex = new HashMap<String, UMLClassBaseDiff>();
+	private Map<String, UMLClassBaseDiff> classDiffNameSuffixIndex = new HashMap<String, UMLClassBaseDiff>();
+	private int indexedClassDiffListModifications = -1;
+	//indexes over the added and removed classes, grouping the classes that a matcher type may match
+	private Map<Class<?>, CandidateClassIndex> addedClassCandidateIndexes = new HashMap<Class<?>, CandidateClassIndex>();
+	private Map<Class<?>, CandidateClassIndex> removedClassCandidateIndexes = new HashMap<Class<?>, CandidateClassIndex>();
+	//the common class diffs being processed concurrently, which are not yet in commonClassDiffList
+	private ParallelClassDiffProcessor classDiffProcessor;
+	private ExecutorService operationMovePool;
+	private boolean candidatePruning = false;
+	private boolean bodyMapping = true;
+	private boolean refactoringInference = true;
 
 	public UMLModelDiff(UMLModel parentModel, UMLModel childModel) {
 		this.parentModel = parentModel;
@@ -95,18 +119,18 @@ public class UMLModelDiff {
 		else {
 			MAXIMUM_NUMBER_OF_COMPARED_METHODS = 200;
 		}
-		this.addedClasses = new ArrayList<UMLClass>();
-		this.removedClasses = new ArrayList<UMLClass>();
+		this.addedClasses = new TrackedList<UMLClass>();
+		this.removedClasses = new TrackedList<UMLClass>();
 		this.addedGeneralizations = new ArrayList<UMLGeneralization>();
 		this.removedGeneralizations = new ArrayList<UMLGeneralization>();
 		this.generalizationDiffList = new ArrayList<UMLGeneralizationDiff>();
 		this.realizationDiffList = new ArrayList<UMLRealizationDiff>();
 		this.addedRealizations = new ArrayList<UMLRealization>();
 		this.removedRealizations = new ArrayList<UMLRealization>();
-		this.commonClassDiffList = new ArrayList<UMLClassDiff>();
-		this.classMoveDiffList = new ArrayList<UMLClassMoveDiff>();
-		this.innerClassMoveDiffList = new ArrayList<UMLClassMoveDiff>();
-		this.classRenameDiffList = new ArrayList<UMLClassRenameDiff>();
+		this.commonClassDiffList = new TrackedList<UMLClassDiff>();
+		this.classMoveDiffList = new TrackedList<UMLClassMoveDiff>();
+		this.innerClassMoveDiffList = new TrackedList<UMLClassMoveDiff>();
+		this.classRenameDiffList = new TrackedList<UMLClassRenameDiff>();
 		this.classMergeDiffList = new ArrayList<UMLClassMergeDiff>();
 		this.classSplitDiffList = new ArrayList<UMLClassSplitDiff>();
 		this.movedAttributeDiffList = new ArrayList<UMLAttributeDiff>();
@@ -123,31 +147,19 @@ public class UMLModelDiff {
 	}
 
 	public UMLAbstractClass findClassInParentModel(String className) {
-		for(UMLClass umlClass : parentModel.getClassList()) {
-			if(umlClass.getName().equals(className)) {
-				return umlClass;
-			}
-		}
-		for(UMLClass umlClass : parentModel.getClassList()) {
-			if(umlClass.getName().endsWith("." + className)) {
-				return umlClass;
-			}
+		UMLClass umlClass = parentModel.getClassByName(className);
+		if(umlClass != null) {
+			return umlClass;
 		}
-		return null;
+		return parentModel.getClassByNameSuffix(className);
 	}
 
 	public UMLAbstractClass findClassInChildModel(String className) {
-		for(UMLClass umlClass : childModel.getClassList()) {
-			if(umlClass.getName().equals(className)) {
-				return umlClass;
-			}
+		UMLClass umlClass = childModel.getClassByName(className);
+		if(umlClass != null) {
+			return umlClass;
 		}
-		for(UMLClass umlClass : childModel.getClassList()) {
-			if(umlClass.getName().endsWith("." + className)) {
-				return umlClass;
-			}
-		}
-		return null;
+		return childModel.getClassByNameSuffix(className);
 	}
 
 	public void reportAddedClass(UMLClass umlClass) {
@@ -188,10 +200,128 @@ public class UMLModelDiff {
 		this.commonClassDiffList.add(classDiff);
 	}
 
+	/**
+	 * Process the given diffs of common classes and add them to the common class diffs, in the order of the list.
+	 * If the budget of the body mapping phase runs out, every class diff is still added, with the body mappers created before the budget ran out.
+	 * 
+	 * @param pool The pool used to process the class diffs concurrently, or null to process them sequentially. The pool is not shut down.
+	 * The class diffs look up each other as if they were processed one after the other, so that the results are identical to the ones of sequential processing.
+	 */
+	public void processCommonClassDiffs(List<UMLClassDiff> classDiffs, ExecutorService pool) throws RefactoringMinerTimedOutException {
+		if(!bodyMapping) {
+			for(UMLClassDiff classDiff : classDiffs) {
+				addUMLClassDiff(classDiff);
+			}
+		}
+		else if(pool != null && classDiffs.size() > 1) {
+			//the index is built before the class diffs are processed, and only read by them
+			updateClassDiffIndex();
+			classDiffProcessor = new ParallelClassDiffProcessor(classDiffs);
+			try {
+				for(UMLClassDiff classDiff : classDiffProcessor.process(pool)) {
+					addUMLClassDiff(classDiff);
+				}
+			}
+			finally {
+				classDiffProcessor = null;
+			}
+		}
+		else {
+			for(UMLClassDiff classDiff : classDiffs) {
+				try {
+					classDiff.process();
+				} finally {
+					//a class diff whose processing stopped early keeps the body mappers created so far
+					addUMLClassDiff(classDiff);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param operationMovePool The pool creating the candidate body mappers concurrently while looking for moved operations, or null to create them sequentially.
+	 * The pool is not shut down by the model diff, so that it can be shared by the model diffs of several commits.
+	 * The candidates are selected in the same order as in sequential processing, but the mappers of an operation are created
+	 * from the argumentization its enclosing statements had before the operation was compared, instead of the one left by the previous candidate.
+	 */
+	public void setOperationMovePool(ExecutorService operationMovePool) {
+		this.operationMovePool = operationMovePool;
+	}
+
+	/**
+	 * @param candidatePruning If true, the extract and move and the move and inline candidates are only compared with the body mappers sharing
+	 * at least one {@link StatementShingleIndex statement shingle} with them, starting from the mappers sharing the most shingles.
+	 * The refactorings whose statements were all matched through replacements are no longer detected.
+	 */
+	public void setCandidatePruning(boolean candidatePruning) {
+		this.candidatePruning = candidatePruning;
+	}
+
+	/**
+	 * Skip the phases whose results cannot contribute to refactorings of the given types, according to {@link RefactoringType#getRequiredPhases()}.
+	 * Without the body mapping phase, the diffs of the matched classes are not processed, and only the refactorings inferred from the class matching are reported.
+	 * Must be called before the classes are matched.
+	 */
+	public void setRefactoringTypesToConsider(Set<RefactoringType> refactoringTypes) {
+		Set<Phase> requiredPhases = EnumSet.noneOf(Phase.class);
+		for(RefactoringType refactoringType : refactoringTypes) {
+			requiredPhases.addAll(refactoringType.getRequiredPhases());
+		}
+		this.bodyMapping = requiredPhases.contains(Phase.BODY_MAPPING);
+		this.refactoringInference = requiredPhases.contains(Phase.REFACTORING_INFERENCE);
+	}
+
+	private void processClassDiff(UMLClassBaseDiff classDiff) throws RefactoringMinerTimedOutException {
+		if(bodyMapping) {
+			classDiff.process();
+		}
+	}
+
+	private Map<UMLOperationBodyMapper, Map<UMLOperation, Integer>> shingleOverlaps(List<UMLOperationBodyMapper> mappers, List<UMLOperation> operations, boolean extracted) {
+		StatementShingleIndex index = new StatementShingleIndex(operations);
+		Map<UMLOperationBodyMapper, Map<UMLOperation, Integer>> overlaps = new IdentityHashMap<UMLOperationBodyMapper, Map<UMLOperation, Integer>>();
+		for(UMLOperationBodyMapper mapper : mappers) {
+			overlaps.put(mapper, extracted ? index.overlapWithUnmatchedStatementsT1(mapper) : index.overlapWithUnmatchedStatementsT2(mapper));
+		}
+		return overlaps;
+	}
+
+	private static List<UMLOperationBodyMapper> mappersSharingShingles(List<UMLOperationBodyMapper> mappers, UMLOperation operation, Map<UMLOperationBodyMapper, Map<UMLOperation, Integer>> overlaps) {
+		List<UMLOperationBodyMapper> sharingMappers = new ArrayList<UMLOperationBodyMapper>();
+		for(UMLOperationBodyMapper mapper : mappers) {
+			if(overlaps.get(mapper).containsKey(operation)) {
+				sharingMappers.add(mapper);
+			}
+		}
+		//stable, so that the mappers with the same overlap keep their order
+		sharingMappers.sort((mapper1, mapper2) -> Integer.compare(overlaps.get(mapper2).get(operation), overlaps.get(mapper1).get(operation)));
+		return sharingMappers;
+	}
+
+	private boolean isProcessingCommonClassDiffs() {
+		return classDiffProcessor != null && classDiffProcessor.isProcessing();
+	}
+
 	public List<UMLClassDiff> getCommonClassDiffList() {
 		return commonClassDiffList;
 	}
 
+	/**
+	 * @return the common class diffs whose next class is the outer class of the given class
+	 */
+	public List<UMLClassDiff> getOuterClassDiffs(UMLAbstractClass innerClass) {
+		List<UMLClassDiff> outerClassDiffs = new ArrayList<UMLClassDiff>();
+		for(UMLClassDiff classDiff : commonClassDiffList) {
+			if(classDiff.getNextClass().isInnerClass(innerClass)) {
+				outerClassDiffs.add(classDiff);
+			}
+		}
+		if(isProcessingCommonClassDiffs()) {
+			outerClassDiffs.addAll(classDiffProcessor.getOuterClassDiffs(innerClass));
+		}
+		return outerClassDiffs;
+	}
+
 	public List<UMLClassMoveDiff> getClassMoveDiffList() {
 		return classMoveDiffList;
 	}
@@ -225,43 +355,118 @@ public class UMLModelDiff {
 	}
 
 	public UMLClassBaseDiff getUMLClassDiff(String className) {
+		updateClassDiffIndex();
+		UMLClassBaseDiff classDiff = classDiffNameIndex.get(className);
+		//the common class diffs being processed come after the ones in commonClassDiffList, and before the other class diffs
+		if(!(classDiff instanceof UMLClassDiff) && isProcessingCommonClassDiffs()) {
+			UMLClassDiff processedClassDiff = classDiffProcessor.getClassDiff(className);
+			if(processedClassDiff != null) {
+				return processedClassDiff;
+			}
+		}
+		return classDiff;
+	}
+
+	public UMLClassBaseDiff getUMLClassDiff(UMLType type) {
+		updateClassDiffIndex();
+		UMLClassBaseDiff classDiff = classDiffNameSuffixIndex.get(type.getClassType());
+		if(!(classDiff instanceof UMLClassDiff) && isProcessingCommonClassDiffs()) {
+			UMLClassDiff processedClassDiff = classDiffProcessor.getClassDiffByNameSuffix(type.getClassType());
+			if(processedClassDiff != null) {
+				return processedClassDiff;
+			}
+		}
+		return classDiff;
+	}
+
+	private void updateClassDiffIndex() {
+		int modifications = commonClassDiffList.modifications() + classMoveDiffList.modifications() +
+				innerClassMoveDiffList.modifications() + classRenameDiffList.modifications();
+		if(modifications == indexedClassDiffListModifications) {
+			return;
+		}
+		classDiffNameIndex.clear();
+		classDiffNameSuffixIndex.clear();
+		//the lists are indexed in the same order they used to be searched, and the first match wins
 		for(UMLClassDiff classDiff : commonClassDiffList) {
-			if(classDiff.matches(className))
-				return classDiff;
+			//UMLClassDiff matches only the name of the original class
+			indexClassDiff(classDiff, classDiff.getOriginalClassName());
 		}
 		for(UMLClassMoveDiff classDiff : classMoveDiffList) {
-			if(classDiff.matches(className))
-				return classDiff;
+			indexClassDiff(classDiff, classDiff.getOriginalClassName());
+			indexClassDiff(classDiff, classDiff.getNextClassName());
 		}
 		for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-			if(classDiff.matches(className))
-				return classDiff;
+			indexClassDiff(classDiff, classDiff.getOriginalClassName());
+			indexClassDiff(classDiff, classDiff.getNextClassName());
 		}
 		for(UMLClassRenameDiff classDiff : classRenameDiffList) {
-			if(classDiff.matches(className))
-				return classDiff;
+			indexClassDiff(classDiff, classDiff.getOriginalClassName());
+			indexClassDiff(classDiff, classDiff.getNextClassName());
 		}
-		return null;
+		indexedClassDiffListModifications = modifications;
 	}
 
-	public UMLClassBaseDiff getUMLClassDiff(UMLType type) {
-		for(UMLClassDiff classDiff : commonClassDiffList) {
-			if(classDiff.matches(type))
-				return classDiff;
+	private void indexClassDiff(UMLClassBaseDiff classDiff, String className) {
+		indexClassName(className, classDiff, classDiffNameIndex, classDiffNameSuffixIndex);
+	}
+
+	static <T> void indexClassName(String className, T value, Map<String, T> nameIndex, Map<String, T> nameSuffixIndex) {
+		nameIndex.putIfAbsent(className, value);
+		int dotIndex = className.indexOf('.');
+		while(dotIndex != -1) {
+			nameSuffixIndex.putIfAbsent(className.substring(dotIndex + 1), value);
+			dotIndex = className.indexOf('.', dotIndex + 1);
 		}
-		for(UMLClassMoveDiff classDiff : classMoveDiffList) {
-			if(classDiff.matches(type))
-				return classDiff;
+	}
+
+	/**
+	 * Groups the classes of a list by their {@link UMLClassMatcher#candidateKey(UMLClass)}, so that a class is compared only with the classes that the matcher may match.
+	 * The candidates are returned in list order, and the groups are rebuilt whenever the list has been modified.
+	 */
+	private static class CandidateClassIndex {
+		private final TrackedList<UMLClass> classes;
+		private final UMLClassMatcher matcher;
+		private final Map<UMLClass, Object> candidateKeys = new IdentityHashMap<UMLClass, Object>();
+		private Map<Object, List<UMLClass>> candidates = new HashMap<Object, List<UMLClass>>();
+		private int indexedModifications = -1;
+
+		private CandidateClassIndex(TrackedList<UMLClass> classes, UMLClassMatcher matcher) {
+			this.classes = classes;
+			this.matcher = matcher;
 		}
-		for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-			if(classDiff.matches(type))
-				return classDiff;
+
+		private List<UMLClass> getCandidates(UMLClass umlClass) {
+			Object key = candidateKey(umlClass);
+			if(key == null) {
+				return classes;
+			}
+			if(indexedModifications != classes.modifications()) {
+				//a new map is created, so that the lists previously returned are not affected
+				candidates = new HashMap<Object, List<UMLClass>>();
+				for(UMLClass candidate : classes) {
+					candidates.computeIfAbsent(candidateKey(candidate), k -> new ArrayList<UMLClass>()).add(candidate);
+				}
+				indexedModifications = classes.modifications();
+			}
+			return candidates.getOrDefault(key, Collections.emptyList());
 		}
-		for(UMLClassRenameDiff classDiff : classRenameDiffList) {
-			if(classDiff.matches(type))
-				return classDiff;
+
+		private Object candidateKey(UMLClass umlClass) {
+			if(!candidateKeys.containsKey(umlClass)) {
+				candidateKeys.put(umlClass, matcher.candidateKey(umlClass));
+			}
+			return candidateKeys.get(umlClass);
+		}
+	}
+
+	/**
+	 * ArrayList exposing its modification count, so that the indexes built over it can detect changes to the list.
+	 */
+	private static class TrackedList<T> extends ArrayList<T> {
+		private int modifications() {
+			return modCount;
 		}
-		return null;
 	}
 
 	private UMLClassBaseDiff getUMLClassDiffWithAttribute(Replacement pattern) {
@@ -534,28 +739,32 @@ public class UMLModelDiff {
 	}
 
 	public void checkForMovedClasses(Set<String> repositoryDirectories, UMLClassMatcher matcher) throws RefactoringMinerTimedOutException {
+		if(!addedClasses.isEmpty()) {
+			for(UMLClass removedClass : removedClasses) {
+				String removedClassSourceFile = removedClass.getSourceFile();
+				String removedClassSourceFolder = "";
+				if(removedClassSourceFile.contains("/")) {
+					removedClassSourceFolder = removedClassSourceFile.substring(0, removedClassSourceFile.lastIndexOf("/"));
+				}
+				if(!repositoryDirectories.contains(removedClassSourceFolder)) {
+					deletedFolderPaths.add(removedClassSourceFolder);
+					//add deleted sub-directories
+					String subDirectory = new String(removedClassSourceFolder);
+					while(subDirectory.contains("/")) {
+						subDirectory = subDirectory.substring(0, subDirectory.lastIndexOf("/"));
+						if(!repositoryDirectories.contains(subDirectory)) {
+							deletedFolderPaths.add(subDirectory);
+						}
+					}
+				}
+			}
+		}
 		if(removedClasses.size() <= addedClasses.size()) {
 			for(Iterator<UMLClass> removedClassIterator = removedClasses.iterator(); removedClassIterator.hasNext();) {
 				UMLClass removedClass = removedClassIterator.next();
+				CancellationToken.checkpoint(Phase.CLASS_MATCHING);
 				TreeSet<UMLClassMoveDiff> diffSet = new TreeSet<UMLClassMoveDiff>(new ClassMoveComparator());
-				for(Iterator<UMLClass> addedClassIterator = addedClasses.iterator(); addedClassIterator.hasNext();) {
-					UMLClass addedClass = addedClassIterator.next();
-					String removedClassSourceFile = removedClass.getSourceFile();
-					String removedClassSourceFolder = "";
-					if(removedClassSourceFile.contains("/")) {
-						removedClassSourceFolder = removedClassSourceFile.substring(0, removedClassSourceFile.lastIndexOf("/"));
-					}
-					if(!repositoryDirectories.contains(removedClassSourceFolder)) {
-						deletedFolderPaths.add(removedClassSourceFolder);
-						//add deleted sub-directories
-						String subDirectory = new String(removedClassSourceFolder);
-						while(subDirectory.contains("/")) {
-							subDirectory = subDirectory.substring(0, subDirectory.lastIndexOf("/"));
-							if(!repositoryDirectories.contains(subDirectory)) {
-								deletedFolderPaths.add(subDirectory);
-							}
-						}
-					}
+				for(UMLClass addedClass : candidateAddedClasses(removedClass, matcher)) {
 					MatchResult matchResult = matcher.match(removedClass, addedClass);
 					if(matchResult.isMatch()) {
 						if(!conflictingMoveOfTopLevelClass(removedClass, addedClass)) {
@@ -576,20 +785,20 @@ public class UMLModelDiff {
 						int matchedMembers1 = minClassMoveDiff.getMatchResult().getMatchedOperations() + minClassMoveDiff.getMatchResult().getMatchedAttributes();
 						int matchedMembers2 = minClassRenameDiff.getMatchResult().getMatchedOperations() + minClassRenameDiff.getMatchResult().getMatchedAttributes();
 						if(matchedMembers2 > matchedMembers1) {
-							minClassRenameDiff.process();
+							processClassDiff(minClassRenameDiff);
 							classRenameDiffList.add(minClassRenameDiff);
 							addedClasses.remove(minClassRenameDiff.getRenamedClass());
 							removedClassIterator.remove();
 						}
 						else {
-							minClassMoveDiff.process();
+							processClassDiff(minClassMoveDiff);
 							classMoveDiffList.add(minClassMoveDiff);
 							addedClasses.remove(minClassMoveDiff.getMovedClass());
 							removedClassIterator.remove();
 						}
 					}
 					else {
-						minClassMoveDiff.process();
+						processClassDiff(minClassMoveDiff);
 						classMoveDiffList.add(minClassMoveDiff);
 						addedClasses.remove(minClassMoveDiff.getMovedClass());
 						removedClassIterator.remove();
@@ -600,25 +809,9 @@ public class UMLModelDiff {
 		else {
 			for(Iterator<UMLClass> addedClassIterator = addedClasses.iterator(); addedClassIterator.hasNext();) {
 				UMLClass addedClass = addedClassIterator.next();
+				CancellationToken.checkpoint(Phase.CLASS_MATCHING);
 				TreeSet<UMLClassMoveDiff> diffSet = new TreeSet<UMLClassMoveDiff>(new ClassMoveComparator());
-				for(Iterator<UMLClass> removedClassIterator = removedClasses.iterator(); removedClassIterator.hasNext();) {
-					UMLClass removedClass = removedClassIterator.next();
-					String removedClassSourceFile = removedClass.getSourceFile();
-					String removedClassSourceFolder = "";
-					if(removedClassSourceFile.contains("/")) {
-						removedClassSourceFolder = removedClassSourceFile.substring(0, removedClassSourceFile.lastIndexOf("/"));
-					}
-					if(!repositoryDirectories.contains(removedClassSourceFolder)) {
-						deletedFolderPaths.add(removedClassSourceFolder);
-						//add deleted sub-directories
-						String subDirectory = new String(removedClassSourceFolder);
-						while(subDirectory.contains("/")) {
-							subDirectory = subDirectory.substring(0, subDirectory.lastIndexOf("/"));
-							if(!repositoryDirectories.contains(subDirectory)) {
-								deletedFolderPaths.add(subDirectory);
-							}
-						}
-					}
+				for(UMLClass removedClass : candidateRemovedClasses(addedClass, matcher)) {
 					MatchResult matchResult = matcher.match(removedClass, addedClass);
 					if(matchResult.isMatch()) {
 						if(!conflictingMoveOfTopLevelClass(removedClass, addedClass)) {
@@ -639,20 +832,20 @@ public class UMLModelDiff {
 						int matchedMembers1 = minClassMoveDiff.getMatchResult().getMatchedOperations() + minClassMoveDiff.getMatchResult().getMatchedAttributes();
 						int matchedMembers2 = minClassRenameDiff.getMatchResult().getMatchedOperations() + minClassRenameDiff.getMatchResult().getMatchedAttributes();
 						if(matchedMembers2 > matchedMembers1) {
-							minClassRenameDiff.process();
+							processClassDiff(minClassRenameDiff);
 							classRenameDiffList.add(minClassRenameDiff);
 							removedClasses.remove(minClassRenameDiff.getOriginalClass());
 							addedClassIterator.remove();
 						}
 						else {
-							minClassMoveDiff.process();
+							processClassDiff(minClassMoveDiff);
 							classMoveDiffList.add(minClassMoveDiff);
 							removedClasses.remove(minClassMoveDiff.getOriginalClass());
 							addedClassIterator.remove();
 						}
 					}
 					else {
-						minClassMoveDiff.process();
+						processClassDiff(minClassMoveDiff);
 						classMoveDiffList.add(minClassMoveDiff);
 						removedClasses.remove(minClassMoveDiff.getOriginalClass());
 						addedClassIterator.remove();
@@ -761,6 +954,7 @@ public class UMLModelDiff {
 			Set<UMLClass> mergedClassesToBeRemoved = new HashSet<UMLClass>();
 			for(Iterator<UMLClass> removedClassIterator = removedClasses.iterator(); removedClassIterator.hasNext();) {
 				UMLClass removedClass = removedClassIterator.next();
+				CancellationToken.checkpoint(Phase.CLASS_MATCHING);
 				TreeSet<UMLClassRenameDiff> diffSet = findRenameMatchesForRemovedClass(removedClass, matcher);
 				if(!diffSet.isEmpty()) {
 					UMLClassRenameDiff minClassRenameDiff = diffSet.first();
@@ -810,20 +1004,20 @@ public class UMLModelDiff {
 							int matchedMembers1 = minClassRenameDiff.getMatchResult().getMatchedOperations() + minClassRenameDiff.getMatchResult().getMatchedAttributes();
 							int matchedMembers2 = minClassRenameDiff2.getMatchResult().getMatchedOperations() + minClassRenameDiff2.getMatchResult().getMatchedAttributes();
 							if(matchedMembers2 > matchedMembers1) {
-								minClassRenameDiff2.process();
+								processClassDiff(minClassRenameDiff2);
 								classRenameDiffList.add(minClassRenameDiff2);
 								addedClasses.remove(minClassRenameDiff2.getRenamedClass());
 								removedClassIterator.remove();
 							}
 							else {
-								minClassRenameDiff.process();
+								processClassDiff(minClassRenameDiff);
 								classRenameDiffList.add(minClassRenameDiff);
 								addedClasses.remove(minClassRenameDiff.getRenamedClass());
 								removedClassIterator.remove();
 							}
 						}
 						else {
-							minClassRenameDiff.process();
+							processClassDiff(minClassRenameDiff);
 							classRenameDiffList.add(minClassRenameDiff);
 							addedClasses.remove(minClassRenameDiff.getRenamedClass());
 							removedClassIterator.remove();
@@ -836,6 +1030,7 @@ public class UMLModelDiff {
 		else {
 			for(Iterator<UMLClass> addedClassIterator = addedClasses.iterator(); addedClassIterator.hasNext();) {
 				UMLClass addedClass = addedClassIterator.next();
+				CancellationToken.checkpoint(Phase.CLASS_MATCHING);
 				TreeSet<UMLClassRenameDiff> diffSet = findRenameMatchesForAddedClass(addedClass, matcher);
 				if(!diffSet.isEmpty()) {
 					UMLClassRenameDiff minClassRenameDiff = diffSet.first();
@@ -882,20 +1077,20 @@ public class UMLModelDiff {
 							int matchedMembers1 = minClassRenameDiff.getMatchResult().getMatchedOperations() + minClassRenameDiff.getMatchResult().getMatchedAttributes();
 							int matchedMembers2 = minClassRenameDiff2.getMatchResult().getMatchedOperations() + minClassRenameDiff2.getMatchResult().getMatchedAttributes();
 							if(matchedMembers2 > matchedMembers1) {
-								minClassRenameDiff2.process();
+								processClassDiff(minClassRenameDiff2);
 								classRenameDiffList.add(minClassRenameDiff2);
 								removedClasses.remove(minClassRenameDiff2.getOriginalClass());
 								addedClassIterator.remove();
 							}
 							else {
-								minClassRenameDiff.process();
+								processClassDiff(minClassRenameDiff);
 								classRenameDiffList.add(minClassRenameDiff);
 								removedClasses.remove(minClassRenameDiff.getOriginalClass());
 								addedClassIterator.remove();
 							}
 						}
 						else {
-							minClassRenameDiff.process();
+							processClassDiff(minClassRenameDiff);
 							classRenameDiffList.add(minClassRenameDiff);
 							removedClasses.remove(minClassRenameDiff.getOriginalClass());
 							addedClassIterator.remove();
@@ -920,8 +1115,7 @@ public class UMLModelDiff {
 
 	private TreeSet<UMLClassRenameDiff> findRenameMatchesForRemovedClass(UMLClass removedClass, UMLClassMatcher matcher) {
 		TreeSet<UMLClassRenameDiff> diffSet = new TreeSet<UMLClassRenameDiff>(new ClassRenameComparator());
-		for(Iterator<UMLClass> addedClassIterator = addedClasses.iterator(); addedClassIterator.hasNext();) {
-			UMLClass addedClass = addedClassIterator.next();
+		for(UMLClass addedClass : candidateAddedClasses(removedClass, matcher)) {
 			if(matcher instanceof UMLClassMatcher.RelaxedRename) {
 				Pair<UMLClass, UMLClass> pair = Pair.of(removedClass, addedClass);
 				if(processedClassPairs.contains(pair)) {
@@ -944,8 +1138,7 @@ public class UMLModelDiff {
 
 	private TreeSet<UMLClassRenameDiff> findRenameMatchesForAddedClass(UMLClass addedClass, UMLClassMatcher matcher) {
 		TreeSet<UMLClassRenameDiff> diffSet = new TreeSet<UMLClassRenameDiff>(new ClassRenameComparator());
-		for(Iterator<UMLClass> removedClassIterator = removedClasses.iterator(); removedClassIterator.hasNext();) {
-			UMLClass removedClass = removedClassIterator.next();
+		for(UMLClass removedClass : candidateRemovedClasses(addedClass, matcher)) {
 			if(matcher instanceof UMLClassMatcher.RelaxedRename) {
 				Pair<UMLClass, UMLClass> pair = Pair.of(removedClass, addedClass);
 				if(processedClassPairs.contains(pair)) {
@@ -966,6 +1159,16 @@ public class UMLModelDiff {
 		return diffSet;
 	}
 
+	private List<UMLClass> candidateAddedClasses(UMLClass removedClass, UMLClassMatcher matcher) {
+		CandidateClassIndex index = addedClassCandidateIndexes.computeIfAbsent(matcher.getClass(), k -> new CandidateClassIndex(addedClasses, matcher));
+		return index.getCandidates(removedClass);
+	}
+
+	private List<UMLClass> candidateRemovedClasses(UMLClass addedClass, UMLClassMatcher matcher) {
+		CandidateClassIndex index = removedClassCandidateIndexes.computeIfAbsent(matcher.getClass(), k -> new CandidateClassIndex(removedClasses, matcher));
+		return index.getCandidates(addedClass);
+	}
+
 	private boolean innerClassWithTheSameName(UMLClass removedClass, UMLClass addedClass) {
 		if(!removedClass.isTopLevel() && !addedClass.isTopLevel()) {
 			String removedClassName = removedClass.getName();
@@ -2080,112 +2283,128 @@ public class UMLModelDiff {
 
 	public List<Refactoring> getRefactorings() throws RefactoringMinerTimedOutException {
 		Set<Refactoring> refactorings = getMoveRenameClassRefactorings();
-		refactorings.addAll(identifyConvertAnonymousClassToTypeRefactorings());
+		if(!refactoringInference) {
+			return filterOutDuplicateRefactorings(refactorings);
+		}
 		Map<Replacement, Set<CandidateAttributeRefactoring>> renameMap = new LinkedHashMap<Replacement, Set<CandidateAttributeRefactoring>>();
 		Map<MergeVariableReplacement, Set<CandidateMergeVariableRefactoring>> mergeMap = new LinkedHashMap<MergeVariableReplacement, Set<CandidateMergeVariableRefactoring>>();
-		for(UMLClassDiff classDiff : commonClassDiffList) {
-			refactorings.addAll(classDiff.getRefactorings());
-			extractMergePatterns(classDiff, mergeMap);
-			extractRenamePatterns(classDiff, renameMap);
-		}
-		for(UMLClassMoveDiff classDiff : classMoveDiffList) {
-			refactorings.addAll(classDiff.getRefactorings());
-			extractMergePatterns(classDiff, mergeMap);
-			extractRenamePatterns(classDiff, renameMap);
-		}
-		for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-			refactorings.addAll(classDiff.getRefactorings());
-			extractMergePatterns(classDiff, mergeMap);
-			extractRenamePatterns(classDiff, renameMap);
-		}
-		for(UMLClassRenameDiff classDiff : classRenameDiffList) {
-			refactorings.addAll(classDiff.getRefactorings());
-			extractMergePatterns(classDiff, mergeMap);
-			extractRenamePatterns(classDiff, renameMap);
-		}
-		Map<RenamePattern, Integer> typeRenamePatternMap = typeRenamePatternMap(refactorings);
-		for(RenamePattern pattern : typeRenamePatternMap.keySet()) {
-			if(typeRenamePatternMap.get(pattern) > 1) {
-				UMLClass removedClass = looksLikeRemovedClass(UMLType.extractTypeObject(pattern.getBefore()));
-				UMLClass addedClass = looksLikeAddedClass(UMLType.extractTypeObject(pattern.getAfter()));
-				if(removedClass != null && addedClass != null) {
-					UMLClassRenameDiff renameDiff = new UMLClassRenameDiff(removedClass, addedClass, this, new Rename().match(removedClass, addedClass));
-					renameDiff.process();
-					refactorings.addAll(renameDiff.getRefactorings());
-					extractMergePatterns(renameDiff, mergeMap);
-					extractRenamePatterns(renameDiff, renameMap);
-					classRenameDiffList.add(renameDiff);
-					Refactoring refactoring = null;
-					if(renameDiff.samePackage())
-						refactoring = new RenameClassRefactoring(renameDiff.getOriginalClass(), renameDiff.getRenamedClass());
-					else
-						refactoring = new MoveAndRenameClassRefactoring(renameDiff.getOriginalClass(), renameDiff.getRenamedClass());
-					refactorings.add(refactoring);
-					removedClasses.remove(removedClass);
-					addedClasses.remove(addedClass);
+		try {
+			refactorings.addAll(identifyConvertAnonymousClassToTypeRefactorings());
+			for(UMLClassDiff classDiff : commonClassDiffList) {
+				refactorings.addAll(classDiff.getRefactorings());
+				extractMergePatterns(classDiff, mergeMap);
+				extractRenamePatterns(classDiff, renameMap);
+			}
+			for(UMLClassMoveDiff classDiff : classMoveDiffList) {
+				refactorings.addAll(classDiff.getRefactorings());
+				extractMergePatterns(classDiff, mergeMap);
+				extractRenamePatterns(classDiff, renameMap);
+			}
+			for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
+				refactorings.addAll(classDiff.getRefactorings());
+				extractMergePatterns(classDiff, mergeMap);
+				extractRenamePatterns(classDiff, renameMap);
+			}
+			for(UMLClassRenameDiff classDiff : classRenameDiffList) {
+				refactorings.addAll(classDiff.getRefactorings());
+				extractMergePatterns(classDiff, mergeMap);
+				extractRenamePatterns(classDiff, renameMap);
+			}
+			Map<RenamePattern, Integer> typeRenamePatternMap = typeRenamePatternMap(refactorings);
+			for(RenamePattern pattern : typeRenamePatternMap.keySet()) {
+				if(typeRenamePatternMap.get(pattern) > 1) {
+					UMLClass removedClass = looksLikeRemovedClass(UMLType.extractTypeObject(pattern.getBefore()));
+					UMLClass addedClass = looksLikeAddedClass(UMLType.extractTypeObject(pattern.getAfter()));
+					if(removedClass != null && addedClass != null) {
+						UMLClassRenameDiff renameDiff = new UMLClassRenameDiff(removedClass, addedClass, this, new Rename().match(removedClass, addedClass));
+						renameDiff.process();
+						refactorings.addAll(renameDiff.getRefactorings());
+						extractMergePatterns(renameDiff, mergeMap);
+						extractRenamePatterns(renameDiff, renameMap);
+						classRenameDiffList.add(renameDiff);
+						Refactoring refactoring = null;
+						if(renameDiff.samePackage())
+							refactoring = new RenameClassRefactoring(renameDiff.getOriginalClass(), renameDiff.getRenamedClass());
+						else
+							refactoring = new MoveAndRenameClassRefactoring(renameDiff.getOriginalClass(), renameDiff.getRenamedClass());
+						refactorings.add(refactoring);
+						removedClasses.remove(removedClass);
+						addedClasses.remove(addedClass);
+					}
 				}
 			}
-		}
-		for(MergeVariableReplacement merge : mergeMap.keySet()) {
-			UMLClassBaseDiff diff = null;
-			for(String mergedVariable : merge.getMergedVariables()) {
-				Replacement replacement = new Replacement(mergedVariable, merge.getAfter(), ReplacementType.VARIABLE_NAME);
-				diff = getUMLClassDiffWithAttribute(replacement);
-			}
-			if(diff != null) {
-				Set<UMLAttribute> mergedAttributes = new LinkedHashSet<UMLAttribute>();
-				Set<VariableDeclaration> mergedVariables = new LinkedHashSet<VariableDeclaration>();
+			for(MergeVariableReplacement merge : mergeMap.keySet()) {
+				UMLClassBaseDiff diff = null;
 				for(String mergedVariable : merge.getMergedVariables()) {
-					UMLAttribute a1 = diff.findAttributeInOriginalClass(mergedVariable);
-					if(a1 != null) {
-						mergedAttributes.add(a1);
-						mergedVariables.add(a1.getVariableDeclaration());
+					Replacement replacement = new Replacement(mergedVariable, merge.getAfter(), ReplacementType.VARIABLE_NAME);
+					diff = getUMLClassDiffWithAttribute(replacement);
+				}
+				if(diff != null) {
+					Set<UMLAttribute> mergedAttributes = new LinkedHashSet<UMLAttribute>();
+					Set<VariableDeclaration> mergedVariables = new LinkedHashSet<VariableDeclaration>();
+					for(String mergedVariable : merge.getMergedVariables()) {
+						UMLAttribute a1 = diff.findAttributeInOriginalClass(mergedVariable);
+						if(a1 != null) {
+							mergedAttributes.add(a1);
+							mergedVariables.add(a1.getVariableDeclaration());
+						}
 					}
-				}
-				UMLAttribute a2 = diff.findAttributeInNextClass(merge.getAfter());
-				Set<CandidateMergeVariableRefactoring> set = mergeMap.get(merge);
-				if(mergedVariables.size() > 1 && mergedVariables.size() == merge.getMergedVariables().size() && a2 != null) {
-					int movedAttributeCount = diff.movedAttributeCount(set.iterator().next());
-					if(movedAttributeCount != mergedAttributes.size()) {
-						MergeAttributeRefactoring ref = new MergeAttributeRefactoring(mergedAttributes, a2, diff.getOriginalClassName(), diff.getNextClassName(), set);
-						if(!refactorings.contains(ref)) {
-							refactorings.add(ref);
-							Set<Refactoring> conflictingRefactorings = attributeRenamed(mergedVariables, a2.getVariableDeclaration(), refactorings);
-							if(!conflictingRefactorings.isEmpty()) {
-								refactorings.removeAll(conflictingRefactorings);
+					UMLAttribute a2 = diff.findAttributeInNextClass(merge.getAfter());
+					Set<CandidateMergeVariableRefactoring> set = mergeMap.get(merge);
+					if(mergedVariables.size() > 1 && mergedVariables.size() == merge.getMergedVariables().size() && a2 != null) {
+						int movedAttributeCount = diff.movedAttributeCount(set.iterator().next());
+						if(movedAttributeCount != mergedAttributes.size()) {
+							MergeAttributeRefactoring ref = new MergeAttributeRefactoring(mergedAttributes, a2, diff.getOriginalClassName(), diff.getNextClassName(), set);
+							if(!refactorings.contains(ref)) {
+								refactorings.add(ref);
+								Set<Refactoring> conflictingRefactorings = attributeRenamed(mergedVariables, a2.getVariableDeclaration(), refactorings);
+								if(!conflictingRefactorings.isEmpty()) {
+									refactorings.removeAll(conflictingRefactorings);
+								}
 							}
 						}
 					}
 				}
 			}
-		}
-		for(Replacement pattern : renameMap.keySet()) {
-			UMLClassBaseDiff diff = getUMLClassDiffWithAttribute(pattern);
-			Set<CandidateAttributeRefactoring> set = renameMap.get(pattern);
-			for(CandidateAttributeRefactoring candidate : set) {
-				if(candidate.getOriginalVariableDeclaration() == null && candidate.getRenamedVariableDeclaration() == null) {
-					if(diff != null) {
-						UMLAttribute a1 = diff.findAttributeInOriginalClass(pattern.getBefore());
-						UMLAttribute a2 = diff.findAttributeInNextClass(pattern.getAfter());
-						if(!diff.getOriginalClass().containsAttributeWithName(pattern.getAfter()) &&
-								!diff.getNextClass().containsAttributeWithName(pattern.getBefore()) &&
-								!attributeMerged(a1, a2, refactorings)) {
-							if(innerClassMoveDiffList.contains(diff)) {
-								if(a1 instanceof UMLEnumConstant && a2 instanceof UMLEnumConstant) {
-									UMLEnumConstantDiff enumConstantDiff = new UMLEnumConstantDiff((UMLEnumConstant)a1, (UMLEnumConstant)a2, diff, this);
-									if(!diff.getEnumConstantDiffList().contains(enumConstantDiff)) {
-										diff.getEnumConstantDiffList().add(enumConstantDiff);
+			for(Replacement pattern : renameMap.keySet()) {
+				UMLClassBaseDiff diff = getUMLClassDiffWithAttribute(pattern);
+				Set<CandidateAttributeRefactoring> set = renameMap.get(pattern);
+				for(CandidateAttributeRefactoring candidate : set) {
+					if(candidate.getOriginalVariableDeclaration() == null && candidate.getRenamedVariableDeclaration() == null) {
+						if(diff != null) {
+							UMLAttribute a1 = diff.findAttributeInOriginalClass(pattern.getBefore());
+							UMLAttribute a2 = diff.findAttributeInNextClass(pattern.getAfter());
+							if(!diff.getOriginalClass().containsAttributeWithName(pattern.getAfter()) &&
+									!diff.getNextClass().containsAttributeWithName(pattern.getBefore()) &&
+									!attributeMerged(a1, a2, refactorings)) {
+								if(innerClassMoveDiffList.contains(diff)) {
+									if(a1 instanceof UMLEnumConstant && a2 instanceof UMLEnumConstant) {
+										UMLEnumConstantDiff enumConstantDiff = new UMLEnumConstantDiff((UMLEnumConstant)a1, (UMLEnumConstant)a2, diff, this);
+										if(!diff.getEnumConstantDiffList().contains(enumConstantDiff)) {
+											diff.getEnumConstantDiffList().add(enumConstantDiff);
+										}
+										Set<Refactoring> enumConstantDiffRefactorings = enumConstantDiff.getRefactorings(set);
+										if(!refactorings.containsAll(enumConstantDiffRefactorings)) {
+											refactorings.addAll(enumConstantDiffRefactorings);
+											break;//it's not necessary to repeat the same process for all candidates in the set
+										}
 									}
-									Set<Refactoring> enumConstantDiffRefactorings = enumConstantDiff.getRefactorings(set);
-									if(!refactorings.containsAll(enumConstantDiffRefactorings)) {
-										refactorings.addAll(enumConstantDiffRefactorings);
-										break;//it's not necessary to repeat the same process for all candidates in the set
+									else {
+										UMLAttributeDiff attributeDiff = new UMLAttributeDiff(a1, a2, diff, this);
+										if(!diff.getAttributeDiffList().contains(attributeDiff)) {
+											diff.getAttributeDiffList().add(attributeDiff);
+										}
+										Set<Refactoring> attributeDiffRefactorings = attributeDiff.getRefactorings(set);
+										if(!refactorings.containsAll(attributeDiffRefactorings)) {
+											refactorings.addAll(attributeDiffRefactorings);
+											break;//it's not necessary to repeat the same process for all candidates in the set
+										}
 									}
 								}
 								else {
 									UMLAttributeDiff attributeDiff = new UMLAttributeDiff(a1, a2, diff, this);
-									if(!diff.getAttributeDiffList().contains(attributeDiff)) {
-										diff.getAttributeDiffList().add(attributeDiff);
+									if(!movedAttributeDiffList.contains(attributeDiff) && !a1.getClassName().equals(a2.getClassName())) {
+										movedAttributeDiffList.add(attributeDiff);
 									}
 									Set<Refactoring> attributeDiffRefactorings = attributeDiff.getRefactorings(set);
 									if(!refactorings.containsAll(attributeDiffRefactorings)) {
@@ -2194,158 +2413,166 @@ public class UMLModelDiff {
 									}
 								}
 							}
-							else {
-								UMLAttributeDiff attributeDiff = new UMLAttributeDiff(a1, a2, diff, this);
-								if(!movedAttributeDiffList.contains(attributeDiff) && !a1.getClassName().equals(a2.getClassName())) {
-									movedAttributeDiffList.add(attributeDiff);
-								}
-								Set<Refactoring> attributeDiffRefactorings = attributeDiff.getRefactorings(set);
-								if(!refactorings.containsAll(attributeDiffRefactorings)) {
-									refactorings.addAll(attributeDiffRefactorings);
-									break;//it's not necessary to repeat the same process for all candidates in the set
-								}
-							}
 						}
 					}
-				}
-				else if(candidate.getOriginalVariableDeclaration() != null) {
-					List<UMLClassBaseDiff> diffs1 = getUMLClassDiffWithExistingAttributeAfter(pattern);
-					List<UMLClassBaseDiff> diffs2 = getUMLClassDiffWithNewAttributeAfter(pattern);
-					if(!diffs1.isEmpty()) {
-						UMLClassBaseDiff diff1 = diffs1.get(0);
-						UMLClassBaseDiff originalClassDiff = null;
-						if(candidate.getOriginalAttribute() != null) {
-							originalClassDiff = getUMLClassDiff(candidate.getOriginalAttribute().getClassName()); 
-						}
-						else {
-							originalClassDiff = getUMLClassDiff(candidate.getOperationBefore().getClassName());
-						}
-						if(diffs1.size() > 1) {
-							for(UMLClassBaseDiff classDiff : diffs1) {
-								if(isSubclassOf(originalClassDiff.nextClass.getName(), classDiff.nextClass.getName())) {
-									diff1 = classDiff;
-									break;
+					else if(candidate.getOriginalVariableDeclaration() != null) {
+						List<UMLClassBaseDiff> diffs1 = getUMLClassDiffWithExistingAttributeAfter(pattern);
+						List<UMLClassBaseDiff> diffs2 = getUMLClassDiffWithNewAttributeAfter(pattern);
+						if(!diffs1.isEmpty()) {
+							UMLClassBaseDiff diff1 = diffs1.get(0);
+							UMLClassBaseDiff originalClassDiff = null;
+							if(candidate.getOriginalAttribute() != null) {
+								originalClassDiff = getUMLClassDiff(candidate.getOriginalAttribute().getClassName()); 
+							}
+							else {
+								originalClassDiff = getUMLClassDiff(candidate.getOperationBefore().getClassName());
+							}
+							if(diffs1.size() > 1) {
+								for(UMLClassBaseDiff classDiff : diffs1) {
+									if(isSubclassOf(originalClassDiff.nextClass.getName(), classDiff.nextClass.getName())) {
+										diff1 = classDiff;
+										break;
+									}
 								}
 							}
-						}
-						UMLAttribute a2 = diff1.findAttributeInNextClass(pattern.getAfter());
-						if(a2 != null) {
-							if(candidate.getOriginalVariableDeclaration().isAttribute()) {
-								if(originalClassDiff != null && originalClassDiff.removedAttributes.contains(candidate.getOriginalAttribute())) {
-									ReplaceAttributeRefactoring ref = new ReplaceAttributeRefactoring(candidate.getOriginalAttribute(), a2, set);
+							UMLAttribute a2 = diff1.findAttributeInNextClass(pattern.getAfter());
+							if(a2 != null) {
+								if(candidate.getOriginalVariableDeclaration().isAttribute()) {
+									if(originalClassDiff != null && originalClassDiff.removedAttributes.contains(candidate.getOriginalAttribute())) {
+										ReplaceAttributeRefactoring ref = new ReplaceAttributeRefactoring(candidate.getOriginalAttribute(), a2, set);
+										if(!refactorings.contains(ref)) {
+											refactorings.add(ref);
+											break;//it's not necessary to repeat the same process for all candidates in the set
+										}
+									}
+								}
+								else {
+									RenameVariableRefactoring ref = new RenameVariableRefactoring(candidate.getOriginalVariableDeclaration(), a2.getVariableDeclaration(), candidate.getOperationBefore(), candidate.getOperationAfter(), candidate.getReferences(), false);
 									if(!refactorings.contains(ref)) {
 										refactorings.add(ref);
 										break;//it's not necessary to repeat the same process for all candidates in the set
 									}
 								}
 							}
+						}
+						else if(!diffs2.isEmpty()) {
+							UMLClassBaseDiff diff2 = diffs2.get(0);
+							UMLClassBaseDiff originalClassDiff = null;
+							if(candidate.getOriginalAttribute() != null) {
+								originalClassDiff = getUMLClassDiff(candidate.getOriginalAttribute().getClassName()); 
+							}
 							else {
-								RenameVariableRefactoring ref = new RenameVariableRefactoring(candidate.getOriginalVariableDeclaration(), a2.getVariableDeclaration(), candidate.getOperationBefore(), candidate.getOperationAfter(), candidate.getReferences(), false);
-								if(!refactorings.contains(ref)) {
-									refactorings.add(ref);
-									break;//it's not necessary to repeat the same process for all candidates in the set
-								}
+								originalClassDiff = getUMLClassDiff(candidate.getOperationBefore().getClassName());
 							}
-						}
-					}
-					else if(!diffs2.isEmpty()) {
-						UMLClassBaseDiff diff2 = diffs2.get(0);
-						UMLClassBaseDiff originalClassDiff = null;
-						if(candidate.getOriginalAttribute() != null) {
-							originalClassDiff = getUMLClassDiff(candidate.getOriginalAttribute().getClassName()); 
-						}
-						else {
-							originalClassDiff = getUMLClassDiff(candidate.getOperationBefore().getClassName());
-						}
-						if(diffs2.size() > 1) {
-							for(UMLClassBaseDiff classDiff : diffs2) {
-								if(isSubclassOf(originalClassDiff.nextClass.getName(), classDiff.nextClass.getName())) {
-									diff2 = classDiff;
-									break;
+							if(diffs2.size() > 1) {
+								for(UMLClassBaseDiff classDiff : diffs2) {
+									if(isSubclassOf(originalClassDiff.nextClass.getName(), classDiff.nextClass.getName())) {
+										diff2 = classDiff;
+										break;
+									}
 								}
 							}
-						}
-						UMLAttribute a2 = diff2.findAttributeInNextClass(pattern.getAfter());
-						if(a2 != null) {
-							if(candidate.getOriginalVariableDeclaration().isAttribute()) {
-								if(originalClassDiff != null && originalClassDiff.removedAttributes.contains(candidate.getOriginalAttribute())) {
-									UMLAttributeDiff attributeDiff = new UMLAttributeDiff(candidate.getOriginalAttribute(), a2, diff2, this);
-									if(!movedAttributeDiffList.contains(attributeDiff)) {
-										movedAttributeDiffList.add(attributeDiff);
+							UMLAttribute a2 = diff2.findAttributeInNextClass(pattern.getAfter());
+							if(a2 != null) {
+								if(candidate.getOriginalVariableDeclaration().isAttribute()) {
+									if(originalClassDiff != null && originalClassDiff.removedAttributes.contains(candidate.getOriginalAttribute())) {
+										UMLAttributeDiff attributeDiff = new UMLAttributeDiff(candidate.getOriginalAttribute(), a2, diff2, this);
+										if(!movedAttributeDiffList.contains(attributeDiff)) {
+											movedAttributeDiffList.add(attributeDiff);
+										}
+										MoveAndRenameAttributeRefactoring ref = new MoveAndRenameAttributeRefactoring(candidate.getOriginalAttribute(), a2, set);
+										if(!refactorings.contains(ref)) {
+											refactorings.add(ref);
+											break;//it's not necessary to repeat the same process for all candidates in the set
+										}
 									}
-									MoveAndRenameAttributeRefactoring ref = new MoveAndRenameAttributeRefactoring(candidate.getOriginalAttribute(), a2, set);
+								}
+								else {
+									RenameVariableRefactoring ref = new RenameVariableRefactoring(candidate.getOriginalVariableDeclaration(), a2.getVariableDeclaration(), candidate.getOperationBefore(), candidate.getOperationAfter(), candidate.getReferences(), false);
 									if(!refactorings.contains(ref)) {
 										refactorings.add(ref);
 										break;//it's not necessary to repeat the same process for all candidates in the set
 									}
 								}
 							}
-							else {
-								RenameVariableRefactoring ref = new RenameVariableRefactoring(candidate.getOriginalVariableDeclaration(), a2.getVariableDeclaration(), candidate.getOperationBefore(), candidate.getOperationAfter(), candidate.getReferences(), false);
-								if(!refactorings.contains(ref)) {
-									refactorings.add(ref);
-									break;//it's not necessary to repeat the same process for all candidates in the set
-								}
-							}
 						}
 					}
 				}
 			}
-		}
-		refactorings.addAll(identifyExtractSuperclassRefactorings());
-		refactorings.addAll(identifyCollapseHierarchyRefactorings());
-		refactorings.addAll(identifyExtractClassRefactorings(commonClassDiffList));
-		refactorings.addAll(identifyExtractClassRefactorings(classMoveDiffList));
-		refactorings.addAll(identifyExtractClassRefactorings(innerClassMoveDiffList));
-		refactorings.addAll(identifyExtractClassRefactorings(classRenameDiffList));
-		checkForOperationMovesBetweenCommonClasses();
-		checkForOperationMovesIncludingRemovedAndAddedClasses();
-		List<UMLOperation> addedAndExtractedOperationsInCommonClasses = getAddedAndExtractedOperationsInCommonClasses();
-		List<UMLOperation> addedOperationsInMovedAndRenamedClasses = getAddedOperationsInMovedAndRenamedClasses();
-		List<UMLOperation> allAddedOperations = new ArrayList<UMLOperation>(addedAndExtractedOperationsInCommonClasses);
-		allAddedOperations.addAll(addedOperationsInMovedAndRenamedClasses);
-		if(addedAndExtractedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
-			checkForExtractedAndMovedOperations(getOperationBodyMappersInCommonClasses(), allAddedOperations);
-		}
-		if(addedOperationsInMovedAndRenamedClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
-			checkForExtractedAndMovedOperations(getOperationBodyMappersInMovedAndRenamedClasses(), allAddedOperations);
-		}
-		List<UMLOperation> removedAndInlinedOperationsInCommonClasses = getRemovedAndInlinedOperationsInCommonClasses();
-		if(removedAndInlinedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
-			checkForMovedAndInlinedOperations(getOperationBodyMappersInCommonClasses(), removedAndInlinedOperationsInCommonClasses);
-		}
-		List<MoveAttributeRefactoring> moveAttributeRefactorings = new ArrayList<MoveAttributeRefactoring>();
-		moveAttributeRefactorings.addAll(checkForAttributeMovesBetweenCommonClasses(renameMap, refactorings));
-		moveAttributeRefactorings.addAll(checkForAttributeMovesIncludingAddedClasses(renameMap, refactorings));
-		moveAttributeRefactorings.addAll(checkForAttributeMovesIncludingRemovedClasses(renameMap, refactorings));
-		refactorings.addAll(moveAttributeRefactorings);
-		for(MoveAttributeRefactoring moveAttributeRefactoring : moveAttributeRefactorings) {
-			UMLAttribute originalAttribute = moveAttributeRefactoring.getOriginalAttribute();
-			UMLAttribute movedAttribute = moveAttributeRefactoring.getMovedAttribute();
-			Set<Refactoring> conflictingRefactorings = movedAttributeRenamed(originalAttribute.getVariableDeclaration(), movedAttribute.getVariableDeclaration(), refactorings);
-			if(!conflictingRefactorings.isEmpty()) {
-				refactorings.removeAll(conflictingRefactorings);
-			}
-			UMLAttributeDiff attributeDiff = new UMLAttributeDiff(originalAttribute, movedAttribute, Collections.emptyList());
-			refactorings.addAll(attributeDiff.getRefactorings());
+			refactorings.addAll(identifyExtractSuperclassRefactorings());
+			refactorings.addAll(identifyCollapseHierarchyRefactorings());
+			refactorings.addAll(identifyExtractClassRefactorings(commonClassDiffList));
+			refactorings.addAll(identifyExtractClassRefactorings(classMoveDiffList));
+			refactorings.addAll(identifyExtractClassRefactorings(innerClassMoveDiffList));
+			refactorings.addAll(identifyExtractClassRefactorings(classRenameDiffList));
+		} catch(PhaseBudgetExhaustedException e) {
+			//keep the refactorings detected before the budget of the body mapping or refactoring inference phase ran out
+		}
+		try {
+			CancellationToken.checkpoint(Phase.REFACTORING_INFERENCE);
+			checkForOperationMovesBetweenCommonClasses();
+			CancellationToken.checkpoint(Phase.REFACTORING_INFERENCE);
+			checkForOperationMovesIncludingRemovedAndAddedClasses();
+			CancellationToken.checkpoint(Phase.REFACTORING_INFERENCE);
+			List<UMLOperation> addedAndExtractedOperationsInCommonClasses = getAddedAndExtractedOperationsInCommonClasses();
+			List<UMLOperation> addedOperationsInMovedAndRenamedClasses = getAddedOperationsInMovedAndRenamedClasses();
+			List<UMLOperation> allAddedOperations = new ArrayList<UMLOperation>(addedAndExtractedOperationsInCommonClasses);
+			allAddedOperations.addAll(addedOperationsInMovedAndRenamedClasses);
+			if(addedAndExtractedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
+				checkForExtractedAndMovedOperations(getOperationBodyMappersInCommonClasses(), allAddedOperations);
+			}
+			CancellationToken.checkpoint(Phase.REFACTORING_INFERENCE);
+			if(addedOperationsInMovedAndRenamedClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
+				checkForExtractedAndMovedOperations(getOperationBodyMappersInMovedAndRenamedClasses(), allAddedOperations);
+			}
+			CancellationToken.checkpoint(Phase.REFACTORING_INFERENCE);
+			List<UMLOperation> removedAndInlinedOperationsInCommonClasses = getRemovedAndInlinedOperationsInCommonClasses();
+			if(removedAndInlinedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
+				checkForMovedAndInlinedOperations(getOperationBodyMappersInCommonClasses(), removedAndInlinedOperationsInCommonClasses);
+			}
+		} catch(PhaseBudgetExhaustedException e) {
+			//keep the move, extract and inline refactorings detected so far
+		}
+		try {
+			List<MoveAttributeRefactoring> moveAttributeRefactorings = new ArrayList<MoveAttributeRefactoring>();
+			moveAttributeRefactorings.addAll(checkForAttributeMovesBetweenCommonClasses(renameMap, refactorings));
+			moveAttributeRefactorings.addAll(checkForAttributeMovesIncludingAddedClasses(renameMap, refactorings));
+			moveAttributeRefactorings.addAll(checkForAttributeMovesIncludingRemovedClasses(renameMap, refactorings));
+			refactorings.addAll(moveAttributeRefactorings);
+			for(MoveAttributeRefactoring moveAttributeRefactoring : moveAttributeRefactorings) {
+				UMLAttribute originalAttribute = moveAttributeRefactoring.getOriginalAttribute();
+				UMLAttribute movedAttribute = moveAttributeRefactoring.getMovedAttribute();
+				Set<Refactoring> conflictingRefactorings = movedAttributeRenamed(originalAttribute.getVariableDeclaration(), movedAttribute.getVariableDeclaration(), refactorings);
+				if(!conflictingRefactorings.isEmpty()) {
+					refactorings.removeAll(conflictingRefactorings);
+				}
+				UMLAttributeDiff attributeDiff = new UMLAttributeDiff(originalAttribute, movedAttribute, Collections.emptyList());
+				refactorings.addAll(attributeDiff.getRefactorings());
+			}
+		} catch(PhaseBudgetExhaustedException e) {
+			//keep the refactorings detected before the budget of the body mapping or refactoring inference phase ran out
 		}
 		refactorings.addAll(this.refactorings);
 		Set<Refactoring> packageRefactorings = filterPackageRefactorings(refactorings);
-		for(UMLClassDiff classDiff : commonClassDiffList) {
-			inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
-			detectImportDeclarationChanges(classDiff, packageRefactorings);
-		}
-		for(UMLClassMoveDiff classDiff : classMoveDiffList) {
-			inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
-			detectImportDeclarationChanges(classDiff, packageRefactorings);
-		}
-		for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-			inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
-			detectImportDeclarationChanges(classDiff, packageRefactorings);
-		}
-		for(UMLClassRenameDiff classDiff : classRenameDiffList) {
-			inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
-			detectImportDeclarationChanges(classDiff, packageRefactorings);
+		try {
+			for(UMLClassDiff classDiff : commonClassDiffList) {
+				inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
+				detectImportDeclarationChanges(classDiff, packageRefactorings);
+			}
+			for(UMLClassMoveDiff classDiff : classMoveDiffList) {
+				inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
+				detectImportDeclarationChanges(classDiff, packageRefactorings);
+			}
+			for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
+				inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
+				detectImportDeclarationChanges(classDiff, packageRefactorings);
+			}
+			for(UMLClassRenameDiff classDiff : classRenameDiffList) {
+				inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
+				detectImportDeclarationChanges(classDiff, packageRefactorings);
+			}
+		} catch(PhaseBudgetExhaustedException e) {
+			//keep the refactorings detected before the budget of the body mapping or refactoring inference phase ran out
 		}
 		return filterOutDuplicateRefactorings(refactorings);
 	}
@@ -2616,6 +2843,15 @@ public class UMLModelDiff {
 				mappers.add(mapper);
 			}
 		}
+		if(isProcessingCommonClassDiffs()) {
+			//the mappers of a class diff have operations of its next class, and a matching signature requires the same operation name
+			for(UMLClassDiff classDiff : classDiffProcessor.getClassDiffsWithOperation(operation2.getName())) {
+				UMLOperationBodyMapper mapper = classDiff.findMapperWithMatchingSignature2(operation2);
+				if(mapper != null) {
+					mappers.add(mapper);
+				}
+			}
+		}
 		for(UMLClassMoveDiff classDiff : classMoveDiffList) {
 			UMLOperationBodyMapper mapper = classDiff.findMapperWithMatchingSignature2(operation2);
 			if(mapper != null) {
@@ -2681,9 +2917,11 @@ public class UMLModelDiff {
 	}
 
 	private void checkForMovedAndInlinedOperations(List<UMLOperationBodyMapper> mappers, List<UMLOperation> removedOperations) throws RefactoringMinerTimedOutException {
+		Map<UMLOperationBodyMapper, Map<UMLOperation, Integer>> overlaps = candidatePruning ? shingleOverlaps(mappers, removedOperations, false) : null;
 		for(Iterator<UMLOperation> removedOperationIterator = removedOperations.iterator(); removedOperationIterator.hasNext();) {
 			UMLOperation removedOperation = removedOperationIterator.next();
-			for(UMLOperationBodyMapper mapper : mappers) {
+			List<UMLOperationBodyMapper> candidateMappers = overlaps != null ? mappersSharingShingles(mappers, removedOperation, overlaps) : mappers;
+			for(UMLOperationBodyMapper mapper : candidateMappers) {
 				if((mapper.nonMappedElementsT2() > 0 || includesReplacementInvolvingRemovedMethod(mapper.getReplacementsInvolvingMethodInvocation(), removedOperation, mapper.getContainer1(), mapper.getClassDiff())) && !mapper.containsInlineOperationRefactoring(removedOperation)) {
 					List<AbstractCall> operationInvocations = mapper.getContainer1().getAllOperationInvocations();
 					List<AbstractCall> removedOperationInvocations = new ArrayList<AbstractCall>();
@@ -2873,10 +3111,12 @@ public class UMLModelDiff {
 	}
 
 	private void checkForExtractedAndMovedOperations(List<UMLOperationBodyMapper> mappers, List<UMLOperation> addedOperations) throws RefactoringMinerTimedOutException {
+		Map<UMLOperationBodyMapper, Map<UMLOperation, Integer>> overlaps = candidatePruning ? shingleOverlaps(mappers, addedOperations, true) : null;
 		for(Iterator<UMLOperation> addedOperationIterator = addedOperations.iterator(); addedOperationIterator.hasNext();) {
 			UMLOperation addedOperation = addedOperationIterator.next();
 			if(!getterOrSetterCorrespondingToRenamedAttribute(addedOperation)) {
-				for(UMLOperationBodyMapper mapper : mappers) {
+				List<UMLOperationBodyMapper> candidateMappers = overlaps != null ? mappersSharingShingles(mappers, addedOperation, overlaps) : mappers;
+				for(UMLOperationBodyMapper mapper : candidateMappers) {
 					Pair<VariableDeclarationContainer, VariableDeclarationContainer> pair = Pair.of(mapper.getContainer1(), addedOperation);
 					String className = mapper.getContainer2().getClassName();
 					if(!className.equals(addedOperation.getClassName()) && (mapper.nonMappedElementsT1() > 0 || includesReplacementInvolvingAddedMethod(mapper.getReplacementsInvolvingMethodInvocation(), addedOperation, mapper.getContainer2(), mapper.getClassDiff())) && !mapper.containsExtractOperationRefactoring(addedOperation) && !processedOperationPairs.contains(pair)) {
@@ -3276,44 +3516,175 @@ public class UMLModelDiff {
 	}
 
 	private void checkForOperationMoves(List<UMLOperation> addedOperations, List<UMLOperation> removedOperations) throws RefactoringMinerTimedOutException {
+		checkForOperationMoves(addedOperations, removedOperations, operationMovePool);
+	}
+
+	/**
+	 * Create the body mappers of the given pairs of removed and added operations, which have not been compared before, and group the mappers qualifying the pair as a move by their exact matches.
+	 * With a pool, the mappers are created concurrently, each one in its own {@link ArgumentizationScope}, and the scopes are committed in the order of the pairs,
+	 * so that the operations are left argumentized as if the mappers had been created one after the other. A mapper that read an argumentization
+	 * written by the mappers before it is created again, after them, so that the mappers are identical to the ones of sequential processing.
+	 */
+	private TreeMap<Integer, List<UMLOperationBodyMapper>> findOperationMoveCandidates(List<Pair<UMLOperation, UMLOperation>> operationPairs, List<UMLOperation> addedOperations, ExecutorService pool) throws RefactoringMinerTimedOutException {
+		List<OperationMoveCandidate> candidates = new ArrayList<OperationMoveCandidate>();
+		Set<Pair<UMLOperation, UMLOperation>> comparedPairs = new HashSet<Pair<UMLOperation, UMLOperation>>();
+		for(Pair<UMLOperation, UMLOperation> pair : operationPairs) {
+			UMLOperation removedOperation = pair.getLeft();
+			UMLOperation addedOperation = pair.getRight();
+			if(!processedOperationPairs.contains(pair) && removedOperation.testMethodCheck(addedOperation) && !removedOperation.getClassName().equals(addedOperation.getClassName()) && comparedPairs.add(pair)) {
+				UMLClassBaseDiff umlClassDiff = getUMLClassDiff(removedOperation.getClassName());
+				if(umlClassDiff == null) {
+					umlClassDiff = getUMLClassDiff(addedOperation.getClassName());
+				}
+				candidates.add(new OperationMoveCandidate(removedOperation, addedOperation, umlClassDiff));
+			}
+		}
+		TreeMap<Integer, List<UMLOperationBodyMapper>> operationBodyMapperMap = new TreeMap<Integer, List<UMLOperationBodyMapper>>();
+		if(pool == null || candidates.size() < 2) {
+			for(OperationMoveCandidate candidate : candidates) {
+				evaluateOperationMove(candidate, addedOperations);
+				processedOperationPairs.add(Pair.of(candidate.removedOperation, candidate.addedOperation));
+				candidate.addTo(operationBodyMapperMap);
+			}
+			return operationBodyMapperMap;
+		}
+		//the mappers look up the class diffs through the index, which is only read while they are created
+		updateClassDiffIndex();
+		CancellationToken token = CancellationToken.current();
+		List<Future<?>> results = new ArrayList<Future<?>>();
+		for(OperationMoveCandidate candidate : candidates) {
+			results.add(pool.submit(() -> {
+				if(token != null) {
+					token.attach();
+				}
+				candidate.scope.enter();
+				try {
+					evaluateOperationMove(candidate, addedOperations);
+					return null;
+				}
+				finally {
+					candidate.scope.exit();
+					CancellationToken.detach();
+				}
+			}));
+		}
+		//wait for all the mappers, so that none of the scopes is still entered when they are committed
+		List<Throwable> failures = new ArrayList<Throwable>();
+		try {
+			for(Future<?> result : results) {
+				try {
+					result.get();
+					failures.add(null);
+				}
+				catch(ExecutionException e) {
+					failures.add(e.getCause());
+				}
+			}
+		}
+		catch(InterruptedException e) {
+			//the pool may be shared, so only the mappers of this diff are cancelled
+			for(Future<?> result : results) {
+				result.cancel(true);
+			}
+			//the thread would have been stopped at its next checkpoint
+			throw new RefactoringMinerTimedOutException();
+		}
+		for(int i=0; i<candidates.size(); i++) {
+			OperationMoveCandidate candidate = candidates.get(i);
+			Throwable failure = failures.get(i);
+			if(candidate.scope.readsCurrentArgumentization()) {
+				candidate.scope.commit();
+			}
+			else {
+				//the mapper saw an argumentization written by the mappers before it, so it is created again as in sequential processing
+				candidate.mapper = null;
+				candidate.exactMatches = 0;
+				failure = null;
+				try {
+					evaluateOperationMove(candidate, addedOperations);
+				}
+				catch(RefactoringMinerTimedOutException | RuntimeException | Error e) {
+					failure = e;
+				}
+			}
+			//the mappers after a failed one would not have been created sequentially
+			if(failure instanceof RefactoringMinerTimedOutException) {
+				throw (RefactoringMinerTimedOutException)failure;
+			}
+			if(failure instanceof RuntimeException) {
+				throw (RuntimeException)failure;
+			}
+			if(failure instanceof Error) {
+				throw (Error)failure;
+			}
+			if(failure != null) {
+				throw new IllegalStateException(failure);
+			}
+			processedOperationPairs.add(Pair.of(candidate.removedOperation, candidate.addedOperation));
+			candidate.addTo(operationBodyMapperMap);
+		}
+		return operationBodyMapperMap;
+	}
+
+	private void evaluateOperationMove(OperationMoveCandidate candidate, List<UMLOperation> addedOperations) throws RefactoringMinerTimedOutException {
+		UMLOperation removedOperation = candidate.removedOperation;
+		UMLOperation addedOperation = candidate.addedOperation;
+		UMLOperationBodyMapper operationBodyMapper = new UMLOperationBodyMapper(removedOperation, addedOperation, candidate.umlClassDiff);
+		int mappings = operationBodyMapper.mappingsWithoutBlocks();
+		if((mappings > 0 && mappedElementsMoreThanNonMappedT1AndT2(mappings, operationBodyMapper)) || removedOperation.equalSignatureForAbstractMethods(addedOperation) ||
+				(mappings > 0 && isPartOfMethodExtracted(removedOperation, addedOperation, addedOperations, candidate.umlClassDiff))) {
+			int exactMatches = operationBodyMapper.exactMatches();
+			List<AbstractCodeMapping> exactMappings = operationBodyMapper.getExactMatches();
+			for(AbstractCodeMapping mapping : exactMappings) {
+				String fragment1 = mapping.getFragment1().getString();
+				if(RETURN_NUMBER_LITERAL.matcher(fragment1).matches()) {
+					exactMatches--;
+				}
+			}
+			candidate.mapper = operationBodyMapper;
+			candidate.exactMatches = exactMatches;
+		}
+	}
+
+	private static class OperationMoveCandidate {
+		private final UMLOperation removedOperation;
+		private final UMLOperation addedOperation;
+		private final UMLClassBaseDiff umlClassDiff;
+		private final ArgumentizationScope scope = new ArgumentizationScope();
+		//the mapper of the operations, if it qualifies the pair as a move
+		private UMLOperationBodyMapper mapper;
+		private int exactMatches;
+
+		private OperationMoveCandidate(UMLOperation removedOperation, UMLOperation addedOperation, UMLClassBaseDiff umlClassDiff) {
+			this.removedOperation = removedOperation;
+			this.addedOperation = addedOperation;
+			this.umlClassDiff = umlClassDiff;
+		}
+
+		private void addTo(TreeMap<Integer, List<UMLOperationBodyMapper>> operationBodyMapperMap) {
+			if(mapper != null) {
+				if(operationBodyMapperMap.containsKey(exactMatches)) {
+					List<UMLOperationBodyMapper> mapperList = operationBodyMapperMap.get(exactMatches);
+					mapperList.add(mapper);
+				}
+				else {
+					List<UMLOperationBodyMapper> mapperList = new ArrayList<UMLOperationBodyMapper>();
+					mapperList.add(mapper);
+					operationBodyMapperMap.put(exactMatches, mapperList);
+				}
+			}
+		}
+	}
+
+	private void checkForOperationMoves(List<UMLOperation> addedOperations, List<UMLOperation> removedOperations, ExecutorService pool) throws RefactoringMinerTimedOutException {
 		if(addedOperations.size() <= removedOperations.size()) {
 			for(Iterator<UMLOperation> addedOperationIterator = addedOperations.iterator(); addedOperationIterator.hasNext();) {
 				UMLOperation addedOperation = addedOperationIterator.next();
-				TreeMap<Integer, List<UMLOperationBodyMapper>> operationBodyMapperMap = new TreeMap<Integer, List<UMLOperationBodyMapper>>();
-				for(Iterator<UMLOperation> removedOperationIterator = removedOperations.iterator(); removedOperationIterator.hasNext();) {
-					UMLOperation removedOperation = removedOperationIterator.next();
-
-					Pair<VariableDeclarationContainer, VariableDeclarationContainer> pair = Pair.of(removedOperation, addedOperation);
-					if(!processedOperationPairs.contains(pair) && removedOperation.testMethodCheck(addedOperation) && !removedOperation.getClassName().equals(addedOperation.getClassName())) {
-						UMLClassBaseDiff umlClassDiff = getUMLClassDiff(removedOperation.getClassName());
-						if(umlClassDiff == null) {
-							umlClassDiff = getUMLClassDiff(addedOperation.getClassName());
-						}
-						UMLOperationBodyMapper operationBodyMapper = new UMLOperationBodyMapper(removedOperation, addedOperation, umlClassDiff);
-						processedOperationPairs.add(pair);
-						int mappings = operationBodyMapper.mappingsWithoutBlocks();
-						if((mappings > 0 && mappedElementsMoreThanNonMappedT1AndT2(mappings, operationBodyMapper)) || addedOperation.equalSignatureForAbstractMethods(removedOperation) ||
-								(mappings > 0 && isPartOfMethodExtracted(removedOperation, addedOperation, addedOperations, umlClassDiff))) {
-							int exactMatches = operationBodyMapper.exactMatches();
-							List<AbstractCodeMapping> exactMappings = operationBodyMapper.getExactMatches();
-							for(AbstractCodeMapping mapping : exactMappings) {
-								String fragment1 = mapping.getFragment1().getString();
-								if(RETURN_NUMBER_LITERAL.matcher(fragment1).matches()) {
-									exactMatches--;
-								}
-							}
-							if(operationBodyMapperMap.containsKey(exactMatches)) {
-								List<UMLOperationBodyMapper> mapperList = operationBodyMapperMap.get(exactMatches);
-								mapperList.add(operationBodyMapper);
-							}
-							else {
-								List<UMLOperationBodyMapper> mapperList = new ArrayList<UMLOperationBodyMapper>();
-								mapperList.add(operationBodyMapper);
-								operationBodyMapperMap.put(exactMatches, mapperList);
-							}
-						}
-					}
+				List<Pair<UMLOperation, UMLOperation>> operationPairs = new ArrayList<Pair<UMLOperation, UMLOperation>>();
+				for(UMLOperation removedOperation : removedOperations) {
+					operationPairs.add(Pair.of(removedOperation, addedOperation));
 				}
+				TreeMap<Integer, List<UMLOperationBodyMapper>> operationBodyMapperMap = findOperationMoveCandidates(operationPairs, addedOperations, pool);
 				if(!operationBodyMapperMap.isEmpty()) {
 					List<UMLOperationBodyMapper> firstMappers = firstMappers(operationBodyMapperMap);
 					Collections.sort(firstMappers, new UMLOperationBodyMapperComparator());
@@ -3434,41 +3805,11 @@ public class UMLModelDiff {
 		else {
 			for(Iterator<UMLOperation> removedOperationIterator = removedOperations.iterator(); removedOperationIterator.hasNext();) {
 				UMLOperation removedOperation = removedOperationIterator.next();
-				TreeMap<Integer, List<UMLOperationBodyMapper>> operationBodyMapperMap = new TreeMap<Integer, List<UMLOperationBodyMapper>>();
-				for(Iterator<UMLOperation> addedOperationIterator = addedOperations.iterator(); addedOperationIterator.hasNext();) {
-					UMLOperation addedOperation = addedOperationIterator.next();
-
-					Pair<VariableDeclarationContainer, VariableDeclarationContainer> pair = Pair.of(removedOperation, addedOperation);
-					if(!processedOperationPairs.contains(pair) && removedOperation.testMethodCheck(addedOperation) && !removedOperation.getClassName().equals(addedOperation.getClassName())) {
-						UMLClassBaseDiff umlClassDiff = getUMLClassDiff(removedOperation.getClassName());
-						if(umlClassDiff == null) {
-							umlClassDiff = getUMLClassDiff(addedOperation.getClassName());
-						}
-						UMLOperationBodyMapper operationBodyMapper = new UMLOperationBodyMapper(removedOperation, addedOperation, umlClassDiff);
-						processedOperationPairs.add(pair);
-						int mappings = operationBodyMapper.mappingsWithoutBlocks();
-						if((mappings > 0 && mappedElementsMoreThanNonMappedT1AndT2(mappings, operationBodyMapper)) || removedOperation.equalSignatureForAbstractMethods(addedOperation) ||
-								(mappings > 0 && isPartOfMethodExtracted(removedOperation, addedOperation, addedOperations, umlClassDiff))) {
-							int exactMatches = operationBodyMapper.exactMatches();
-							List<AbstractCodeMapping> exactMappings = operationBodyMapper.getExactMatches();
-							for(AbstractCodeMapping mapping : exactMappings) {
-								String fragment1 = mapping.getFragment1().getString();
-								if(RETURN_NUMBER_LITERAL.matcher(fragment1).matches()) {
-									exactMatches--;
-								}
-							}
-							if(operationBodyMapperMap.containsKey(exactMatches)) {
-								List<UMLOperationBodyMapper> mapperList = operationBodyMapperMap.get(exactMatches);
-								mapperList.add(operationBodyMapper);
-							}
-							else {
-								List<UMLOperationBodyMapper> mapperList = new ArrayList<UMLOperationBodyMapper>();
-								mapperList.add(operationBodyMapper);
-								operationBodyMapperMap.put(exactMatches, mapperList);
-							}
-						}
-					}
+				List<Pair<UMLOperation, UMLOperation>> operationPairs = new ArrayList<Pair<UMLOperation, UMLOperation>>();
+				for(UMLOperation addedOperation : addedOperations) {
+					operationPairs.add(Pair.of(removedOperation, addedOperation));
 				}
+				TreeMap<Integer, List<UMLOperationBodyMapper>> operationBodyMapperMap = findOperationMoveCandidates(operationPairs, addedOperations, pool);
 				if(!operationBodyMapperMap.isEmpty()) {
 					List<UMLOperationBodyMapper> firstMappers = firstMappers(operationBodyMapperMap);
 					Collections.sort(firstMappers, new UMLOperationBodyMapperComparator());
@@ -1,10 +1,8 @@
 package org.refactoringminer;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -16,9 +14,12 @@ import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringHandler;
 import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
 import org.refactoringminer.util.GitServiceImpl;
+import org.refactoringminer.util.RefactoringJSONWriter;
 
 public class RefactoringMiner {
 	private static Path path = null;
+	private static boolean jsonLines = false;
+	private static RefactoringJSONWriter writer = null;
 	public static void main(String[] args) throws Exception {
 		if (args.length < 1) {
 			throw argumentException();
@@ -64,14 +65,9 @@ public class RefactoringMiner {
 			GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
 			startJSON();
 			detector.detectAll(repo, branch, new RefactoringHandler() {
-				private int commitCount = 0;
 				@Override
 				public void handle(String commitId, List<Refactoring> refactorings) {
-					if(commitCount > 0) {
-						betweenCommitsJSON();
-					}
 					commitJSON(gitURL, commitId, refactorings);
-					commitCount++;
 				}
 
 				@Override
@@ -91,7 +87,7 @@ public class RefactoringMiner {
 	}
 
 	private static boolean containsBranchArgument(String[] args) {
-		return args.length == 3 || (args.length > 3 && args[3].equalsIgnoreCase("-json"));
+		return args.length == 3 || (args.length > 3 && isJSONOption(args[3]));
 	}
 
 	public static void detectBetweenCommits(String[] args) throws Exception {
@@ -108,14 +104,9 @@ public class RefactoringMiner {
 			GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
 			startJSON();
 			detector.detectBetweenCommits(repo, startCommit, endCommit, new RefactoringHandler() {
-				private int commitCount = 0;
 				@Override
 				public void handle(String commitId, List<Refactoring> refactorings) {
-					if(commitCount > 0) {
-						betweenCommitsJSON();
-					}
 					commitJSON(gitURL, commitId, refactorings);
-					commitCount++;
 				}
 
 				@Override
@@ -148,14 +139,9 @@ public class RefactoringMiner {
 			GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
 			startJSON();
 			detector.detectBetweenTags(repo, startTag, endTag, new RefactoringHandler() {
-				private int commitCount = 0;
 				@Override
 				public void handle(String commitId, List<Refactoring> refactorings) {
-					if(commitCount > 0) {
-						betweenCommitsJSON();
-					}
 					commitJSON(gitURL, commitId, refactorings);
-					commitCount++;
 				}
 
 				@Override
@@ -175,7 +161,7 @@ public class RefactoringMiner {
 	}
 
 	private static boolean containsEndArgument(String[] args) {
-		return args.length == 4 || (args.length > 4 && args[4].equalsIgnoreCase("-json"));
+		return args.length == 4 || (args.length > 4 && isJSONOption(args[4]));
 	}
 
 	public static void detectAtCommit(String[] args) throws Exception {
@@ -244,16 +230,11 @@ public class RefactoringMiner {
 		GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
 		startJSON();
 		detector.detectAtPullRequest(gitURL, pullId, new RefactoringHandler() {
-			private int commitCount = 0;
 			@Override
 			public void handle(String commitId, List<Refactoring> refactorings) {
 				Comparator<Refactoring> comparator = (Refactoring r1, Refactoring r2) -> r1.toString().compareTo(r2.toString());
 				Collections.sort(refactorings, comparator);
-				if(commitCount > 0) {
-					betweenCommitsJSON();
-				}
 				commitJSON(gitURL, commitId, refactorings);
-				commitCount++;
 			}
 
 			@Override
@@ -265,59 +246,23 @@ public class RefactoringMiner {
 		endJSON();
 	}
 
+	private static boolean isJSONOption(String arg) {
+		return arg.equalsIgnoreCase("-json") || arg.equalsIgnoreCase("-jsonl");
+	}
+
 	private static int processJSONoption(String[] args, int maxArgLength) {
-		if (args[args.length-2].equalsIgnoreCase("-json")) {
+		if (isJSONOption(args[args.length-2])) {
 			path = Paths.get(args[args.length-1]);
-			try {
-				if(Files.exists(path)) {
-					Files.delete(path);
-				}
-				if(Files.notExists(path)) {
-					Files.createFile(path);
-				}
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+			jsonLines = args[args.length-2].equalsIgnoreCase("-jsonl");
 			maxArgLength = maxArgLength + 2;
 		}
 		return maxArgLength;
 	}
 
 	private static void commitJSON(String cloneURL, String currentCommitId, List<Refactoring> refactoringsAtRevision) {
-		if(path != null) {
-			StringBuilder sb = new StringBuilder();
-			sb.append("{").append("\n");
-			sb.append("\t").append("\"").append("repository").append("\"").append(": ").append("\"").append(cloneURL).append("\"").append(",").append("\n");
-			sb.append("\t").append("\"").append("sha1").append("\"").append(": ").append("\"").append(currentCommitId).append("\"").append(",").append("\n");
-			String url = GitHistoryRefactoringMinerImpl.extractCommitURL(cloneURL, currentCommitId);
-			sb.append("\t").append("\"").append("url").append("\"").append(": ").append("\"").append(url).append("\"").append(",").append("\n");
-			sb.append("\t").append("\"").append("refactorings").append("\"").append(": ");
-			sb.append("[");
-			int counter = 0;
-			for(Refactoring refactoring : refactoringsAtRevision) {
-				sb.append(refactoring.toJSON());
-				if(counter < refactoringsAtRevision.size()-1) {
-					sb.append(",");
-				}
-				sb.append("\n");
-				counter++;
-			}
-			sb.append("]").append("\n");
-			sb.append("}");
+		if(writer != null) {
 			try {
-				Files.write(path, sb.toString().getBytes(), StandardOpenOption.APPEND);
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		}
-	}
-
-	private static void betweenCommitsJSON() {
-		if(path != null) {
-			StringBuilder sb = new StringBuilder();
-			sb.append(",").append("\n");
-			try {
-				Files.write(path, sb.toString().getBytes(), StandardOpenOption.APPEND);
+				writer.writeCommit(cloneURL, currentCommitId, refactoringsAtRevision);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -326,12 +271,8 @@ public class RefactoringMiner {
 
 	private static void startJSON() {
 		if(path != null) {
-			StringBuilder sb = new StringBuilder();
-			sb.append("{").append("\n");
-			sb.append("\"").append("commits").append("\"").append(": ");
-			sb.append("[").append("\n");
 			try {
-				Files.write(path, sb.toString().getBytes(), StandardOpenOption.APPEND);
+				writer = new RefactoringJSONWriter(path, jsonLines);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -339,20 +280,20 @@ public class RefactoringMiner {
 	}
 
 	private static void endJSON() {
-		if(path != null) {
-			StringBuilder sb = new StringBuilder();
-			sb.append("]").append("\n");
-			sb.append("}");
+		if(writer != null) {
 			try {
-				Files.write(path, sb.toString().getBytes(), StandardOpenOption.APPEND);
+				writer.close();
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
+			writer = null;
 		}
 	}
 
 	private static void printTips() {
 		System.out.println("-h\t\t\t\t\t\t\t\t\t\t\tShow options");
+		System.out.println(
+				"-jsonl <path-to-json-file>\t\t\t\t\t\t\t\tCan be used instead of -json with any option below, to write one JSON object per commit and line. Output files ending with .gz are gzip-compressed.");
 		System.out.println(
 				"-a <git-repo-folder> <branch> -json <path-to-json-file>\t\t\t\t\tDetect all refactorings at <branch> for <git-repo-folder>. If <branch> is not specified, commits from all branches are analyzed.");
 		System.out.println(
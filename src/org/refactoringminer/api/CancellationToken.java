@@ -0,0 +1,171 @@
+package org.refactoringminer.api;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline and cancellation state of the analysis of a single commit, checked cooperatively by the diff pipeline.
+ * <p>
+ * The token is attached to the threads running the analysis, and is polled through {@link #checkpoint(Phase)}.
+ * When the token is cancelled, the thread is interrupted or the overall deadline has passed, a {@link RefactoringMinerTimedOutException} is thrown
+ * and the analysis is abandoned, as with the timeouts of {@link GitHistoryRefactoringMiner}.
+ * When only the budget of a phase has run out, a {@link PhaseBudgetExhaustedException} is thrown, the pipeline skips the rest of that phase,
+ * and the refactorings detected so far are reported as a partial result (see {@link RefactoringHandler#handlePartial(String, java.util.List, Set)}).
+ */
+public class CancellationToken {
+	public enum Phase {
+		PARSING,
+		CLASS_MATCHING,
+		BODY_MAPPING,
+		REFACTORING_INFERENCE
+	}
+
+	private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<CancellationToken>();
+	private final long deadline;
+	private final long[] phaseBudgets = new long[Phase.values().length];
+	private final long[] phaseDeadlines = new long[Phase.values().length];
+	private volatile int startedPhases;
+	private volatile int exhaustedPhases;
+	private volatile boolean cancelled;
+
+	/**
+	 * @param timeout The overall timeout of the analysis, or 0 for no timeout.
+	 * @param phaseBudgets The time budget of each phase. A budget starts when the phase reaches its first checkpoint. Phases without a budget are only bounded by the overall timeout.
+	 * @param unit The time unit of the timeout and the budgets.
+	 */
+	public CancellationToken(long timeout, Map<Phase, Long> phaseBudgets, TimeUnit unit) {
+		this.deadline = timeout > 0 ? System.nanoTime() + unit.toNanos(timeout) : 0;
+		for (Map.Entry<Phase, Long> entry : phaseBudgets.entrySet()) {
+			this.phaseBudgets[entry.getKey().ordinal()] = unit.toNanos(entry.getValue());
+		}
+	}
+
+	/**
+	 * Attach this token to the current thread, so that the checkpoints executed by the thread poll it.
+	 * All threads working on the same analysis should attach the same token.
+	 */
+	public void attach() {
+		CURRENT.set(this);
+	}
+
+	/**
+	 * Detach any token from the current thread.
+	 */
+	public static void detach() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * @return the token attached to the current thread, or null
+	 */
+	public static CancellationToken current() {
+		return CURRENT.get();
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @return the phases whose budget ran out, and which therefore did not complete
+	 */
+	public Set<Phase> getExhaustedPhases() {
+		Set<Phase> phases = EnumSet.noneOf(Phase.class);
+		for (Phase phase : Phase.values()) {
+			if (isExhausted(phase)) {
+				phases.add(phase);
+			}
+		}
+		return Collections.unmodifiableSet(phases);
+	}
+
+	public boolean isExhausted(Phase phase) {
+		return (exhaustedPhases & (1 << phase.ordinal())) != 0;
+	}
+
+	public boolean isPartial() {
+		return exhaustedPhases != 0;
+	}
+
+	/**
+	 * Check whether the current thread should stop working on the given phase.
+	 * 
+	 * @throws RefactoringMinerTimedOutException if the thread has been interrupted, or the token attached to the thread has been cancelled or its deadline has passed
+	 * @throws PhaseBudgetExhaustedException if the budget of the given phase has run out
+	 */
+	public static void checkpoint(Phase phase) throws RefactoringMinerTimedOutException {
+		if (Thread.interrupted()) {
+			throw new RefactoringMinerTimedOutException();
+		}
+		CancellationToken token = CURRENT.get();
+		if (token != null) {
+			token.check(phase);
+		}
+	}
+
+	/**
+	 * Variant of {@link #checkpoint(Phase)} for code that cannot propagate a {@link RefactoringMinerTimedOutException}.
+	 * The interrupt status of the thread is preserved.
+	 * 
+	 * @return true if the work on the given phase should stop
+	 */
+	public static boolean shouldStop(Phase phase) {
+		if (Thread.currentThread().isInterrupted()) {
+			return true;
+		}
+		CancellationToken token = CURRENT.get();
+		if (token != null) {
+			try {
+				token.check(phase);
+			} catch (RefactoringMinerTimedOutException e) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void check(Phase phase) throws RefactoringMinerTimedOutException {
+		if (cancelled) {
+			throw new RefactoringMinerTimedOutException();
+		}
+		int index = phase.ordinal();
+		int mask = 1 << index;
+		if ((exhaustedPhases & mask) != 0) {
+			throw new PhaseBudgetExhaustedException(phase);
+		}
+		if (deadline == 0 && phaseBudgets[index] == 0) {
+			return;
+		}
+		if (phaseBudgets[index] > 0 && (startedPhases & mask) == 0) {
+			startPhase(index);
+		}
+		long now = System.nanoTime();
+		if (deadline != 0 && now - deadline > 0) {
+			cancelled = true;
+			throw new RefactoringMinerTimedOutException();
+		}
+		if (phaseBudgets[index] > 0 && now - phaseDeadlines[index] > 0) {
+			exhaustPhase(index);
+			throw new PhaseBudgetExhaustedException(phase);
+		}
+	}
+
+	private synchronized void startPhase(int index) {
+		int mask = 1 << index;
+		if ((startedPhases & mask) == 0) {
+			phaseDeadlines[index] = System.nanoTime() + phaseBudgets[index];
+			startedPhases |= mask;
+		}
+	}
+
+	private synchronized void exhaustPhase(int index) {
+		exhaustedPhases |= 1 << index;
+	}
+}
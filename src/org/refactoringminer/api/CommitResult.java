@@ -0,0 +1,56 @@
+package org.refactoringminer.api;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The outcome of the analysis of a commit: either the refactorings detected in the commit, or the exception that stopped the analysis.
+ */
+public class CommitResult {
+	private final String commitId;
+	private final List<Refactoring> refactorings;
+	private final Exception exception;
+	private final Set<CancellationToken.Phase> exhaustedPhases;
+
+	public CommitResult(String commitId, List<Refactoring> refactorings, Exception exception, Set<CancellationToken.Phase> exhaustedPhases) {
+		this.commitId = commitId;
+		this.refactorings = refactorings;
+		this.exception = exception;
+		this.exhaustedPhases = exhaustedPhases;
+	}
+
+	/**
+	 * @return The sha of the analyzed commit.
+	 */
+	public String getCommitId() {
+		return commitId;
+	}
+
+	/**
+	 * @return List of refactorings detected in the commit, or null if the analysis failed.
+	 */
+	public List<Refactoring> getRefactorings() {
+		return refactorings;
+	}
+
+	/**
+	 * @return The exception thrown during the analysis of the commit, or null if the analysis succeeded.
+	 */
+	public Exception getException() {
+		return exception;
+	}
+
+	/**
+	 * @return The phases that did not complete because their time budget ran out (see {@link CancellationToken}).
+	 */
+	public Set<CancellationToken.Phase> getExhaustedPhases() {
+		return exhaustedPhases;
+	}
+
+	/**
+	 * @return True if the analysis stopped early, and only the refactorings detected before it stopped are reported.
+	 */
+	public boolean isPartial() {
+		return !exhaustedPhases.isEmpty();
+	}
+}
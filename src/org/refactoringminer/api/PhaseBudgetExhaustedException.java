@@ -0,0 +1,17 @@
+package org.refactoringminer.api;
+
+/**
+ * Thrown by {@link CancellationToken#checkpoint(CancellationToken.Phase)} when the time budget of a phase has run out.
+ * Code that does not handle it treats it like any other timeout.
+ */
+public class PhaseBudgetExhaustedException extends RefactoringMinerTimedOutException {
+	private final CancellationToken.Phase phase;
+
+	public PhaseBudgetExhaustedException(CancellationToken.Phase phase) {
+		this.phase = phase;
+	}
+
+	public CancellationToken.Phase getPhase() {
+		return phase;
+	}
+}
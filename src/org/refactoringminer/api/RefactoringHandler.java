@@ -1,6 +1,7 @@
 package org.refactoringminer.api;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Handler object that works in conjunction with {@link org.refactoringminer.api.GitHistoryRefactoringMiner}.
@@ -28,6 +29,19 @@ public abstract class RefactoringHandler {
 	 */
 	public void handle(String commitId, List<Refactoring> refactorings) {}
 
+	/**
+	 * This method is called instead of {@link #handle(String, List)} when the analysis of a commit stopped early,
+	 * because the time budget of one or more phases ran out (see {@link CancellationToken}).
+	 * The default implementation passes the refactorings detected so far to {@link #handle(String, List)}.
+	 * 
+	 * @param commitId The sha of the analyzed commit.
+	 * @param refactorings List of refactorings detected in the commit before the analysis stopped.
+	 * @param exhaustedPhases The phases that did not complete.
+	 */
+	public void handlePartial(String commitId, List<Refactoring> refactorings, Set<CancellationToken.Phase> exhaustedPhases) {
+		handle(commitId, refactorings);
+	}
+
 	/**
      * This method is called whenever an exception is thrown during the analysis of the given commit.
      * You should override this method to do your custom logic in the case of exceptions (e.g. skip or rethrow).
@@ -1,9 +1,12 @@
 package org.refactoringminer.api;
 
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.refactoringminer.api.CancellationToken.Phase;
 import org.refactoringminer.util.AstUtils;
 import org.refactoringminer.util.RefactoringRelationship;
 
@@ -215,6 +218,16 @@ public enum RefactoringType {
 		PARAMETERIZE_TEST
 	};
 
+	//refactorings reported from the matched classes alone, without processing the class diffs
+	private static final Set<RefactoringType> CLASS_MATCHING_TYPES = EnumSet.of(
+		MOVE_CLASS,
+		MOVE_SOURCE_FOLDER,
+		RENAME_PACKAGE,
+		MOVE_PACKAGE,
+		SPLIT_PACKAGE,
+		MERGE_PACKAGE
+	);
+
 	private RefactoringType(String displayName, String regex, int ... aggregateGroups) {
 		this.displayName = displayName;
 		this.regex = Pattern.compile(regex);
@@ -229,6 +242,17 @@ public enum RefactoringType {
 		return this.displayName;
 	}
 
+    /**
+     * @return the phases of the analysis of a commit whose results may contribute to refactorings of this type.
+     * As the body mapping and the refactoring inference feed each other, a type requiring one of them requires both.
+     */
+    public Set<Phase> getRequiredPhases() {
+        if (CLASS_MATCHING_TYPES.contains(this)) {
+            return EnumSet.of(Phase.PARSING, Phase.CLASS_MATCHING);
+        }
+        return EnumSet.allOf(Phase.class);
+    }
+
     public String getAbbreviation() {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < this.displayName.length(); i++) {
@@ -79,7 +79,21 @@ public class ASTDiff extends Diff {
 	}
 
 	public void computeEditScript(Map<String, TreeContext> parentContextMap, Map<String, TreeContext> childContextMap) {
-		EditScript newEditScript = new SimplifiedChawatheScriptGenerator().computeActions(multiMappings,parentContextMap,childContextMap);
+		completeEditScript(generateEditScript(parentContextMap, childContextMap));
+	}
+
+	/**
+	 * First step of {@link #computeEditScript(Map, Map)}, which can run concurrently for diffs with different trees.
+	 */
+	public EditScript generateEditScript(Map<String, TreeContext> parentContextMap, Map<String, TreeContext> childContextMap) {
+		return new SimplifiedChawatheScriptGenerator().computeActions(multiMappings,parentContextMap,childContextMap);
+	}
+
+	/**
+	 * Second step of {@link #computeEditScript(Map, Map)}, adding the multi-move actions to the generated edit script.
+	 * The multi-move actions are numbered across the diffs, so the diffs are completed one at a time.
+	 */
+	public void completeEditScript(EditScript newEditScript) {
 		processMultiMappings(multiMappings, newEditScript);
 		for(Action action : newEditScript) {
 			editScript.add(action);
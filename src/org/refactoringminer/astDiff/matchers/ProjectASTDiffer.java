@@ -1,5 +1,6 @@
 package org.refactoringminer.astDiff.matchers;
 
+import com.github.gumtreediff.actions.EditScript;
 import com.github.gumtreediff.matchers.Mapping;
 import com.github.gumtreediff.tree.Tree;
 import com.github.gumtreediff.tree.TreeContext;
@@ -21,6 +22,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -36,12 +41,50 @@ public class ProjectASTDiffer
 	private ExtendedMultiMappingStore finalOptimization;
 	private List<Refactoring> modelDiffRefactorings;
 	private final Set<ASTDiff> diffSet = new LinkedHashSet<>();
+	private final ExecutorService pool;
 
 	public ProjectASTDiffer(UMLModelDiff modelDiff) throws RefactoringMinerTimedOutException {
+		this(modelDiff, 1);
+	}
+
+	/**
+	 * @param parallelism The number of files matched and edit scripts computed concurrently.
+	 * The diff set is identical to the one of sequential processing, and in the same order.
+	 */
+	public ProjectASTDiffer(UMLModelDiff modelDiff, int parallelism) throws RefactoringMinerTimedOutException {
 		this.modelDiff = modelDiff;
+		if (parallelism > 1) {
+			this.pool = Executors.newFixedThreadPool(parallelism);
+			try {
+				diff();
+			}
+			finally {
+				pool.shutdownNow();
+			}
+		}
+		else {
+			this.pool = null;
+			diff();
+		}
+	}
+
+	/**
+	 * @param pool The pool used to match the files and compute the edit scripts concurrently, or null to process them sequentially.
+	 * The pool is not shut down, so that its threads are reused by the next differs. The diff set is identical to the one of sequential processing, and in the same order.
+	 */
+	public ProjectASTDiffer(UMLModelDiff modelDiff, ExecutorService pool) throws RefactoringMinerTimedOutException {
+		this.modelDiff = modelDiff;
+		this.pool = pool;
 		diff();
 	}
 
+	//differ matching the files of a single class diff for a concurrent task, as the matching keeps its intermediate mappings in fields
+	private ProjectASTDiffer(UMLModelDiff modelDiff, List<Refactoring> modelDiffRefactorings) {
+		this.modelDiff = modelDiff;
+		this.modelDiffRefactorings = modelDiffRefactorings;
+		this.pool = null;
+	}
+
 	public Set<ASTDiff> getDiffSet() {
 		return diffSet;
 	}
@@ -52,6 +95,13 @@ public class ProjectASTDiffer
 		long finish = System.currentTimeMillis();
 		logger.info("ModelDiff.getRefactorings() execution time: " + (finish - start)/ 1000 + " seconds");
 		long diff_execution_started = System.currentTimeMillis();
+		if (pool != null) {
+			makeASTDiffsConcurrently();
+			long diff_execution_finished =  System.currentTimeMillis();
+			logger.info("Diff execution: " + (diff_execution_finished - diff_execution_started)/ 1000 + " seconds");
+			computeAllEditScriptsConcurrently();
+			return;
+		}
 		makeASTDiff(modelDiff.getCommonClassDiffList(),false);
 		makeASTDiff(modelDiff.getClassRenameDiffList(),false);
 		makeASTDiff(modelDiff.getClassMoveDiffList(),false);
@@ -63,6 +113,136 @@ public class ProjectASTDiffer
 		computeAllEditScripts();
 	}
 
+	/**
+	 * Same as the sequential {@link #makeASTDiff(List, boolean)} calls, with the files of the class diffs matched concurrently.
+	 * Whether a class diff is merged into the diff of a preceding class diff only depends on the file paths, so the merges are planned before the matching,
+	 * and applied afterwards in the order of the class diffs.
+	 */
+	private void makeASTDiffsConcurrently() throws RefactoringMinerTimedOutException {
+		List<ClassDiffMatching> matchings = new ArrayList<>();
+		List<ClassDiffMatching> added = new ArrayList<>();
+		planMatchings(modelDiff.getCommonClassDiffList(), false, matchings, added);
+		planMatchings(modelDiff.getClassRenameDiffList(), false, matchings, added);
+		planMatchings(modelDiff.getClassMoveDiffList(), false, matchings, added);
+		planMatchings(modelDiff.getInnerClassMoveDiffList(), true, matchings, added);
+		planMatchings(getExtraDiffs(), true, matchings, added);
+		//the tree metrics are computed lazily over a whole tree, so they are computed before the tasks read them
+		for (TreeContext treeContext : modelDiff.getParentModel().getTreeContextMap().values())
+			treeContext.getRoot().getMetrics();
+		for (TreeContext treeContext : modelDiff.getChildModel().getTreeContextMap().values())
+			treeContext.getRoot().getMetrics();
+		List<Future<ASTDiff>> results = new ArrayList<>();
+		for (ClassDiffMatching matching : matchings) {
+			results.add(pool.submit(() ->
+				new ProjectASTDiffer(modelDiff, modelDiffRefactorings).process(matching.classDiff, findTreeContexts(matching.classDiff), matching.mergeFlag)));
+		}
+		try {
+			for (int i = 0; i < matchings.size(); i++) {
+				ClassDiffMatching matching = matchings.get(i);
+				ASTDiff classASTDiff = waitFor(results.get(i));
+				if (matching.append != null)
+					matching.append.astDiff.getAllMappings().mergeMappings(classASTDiff.getAllMappings());
+				else {
+					matching.astDiff = classASTDiff;
+					diffSet.add(classASTDiff);
+				}
+			}
+		}
+		finally {
+			cancel(results);
+		}
+	}
+
+	private void planMatchings(List<? extends UMLAbstractClassDiff> umlClassBaseDiffList, boolean mergeFlag, List<ClassDiffMatching> matchings, List<ClassDiffMatching> added) {
+		for (UMLAbstractClassDiff classDiff : umlClassBaseDiffList) {
+			ClassDiffMatching append = null;
+			for (ClassDiffMatching existing : added) {
+				if (existing.srcPath.equals(classDiff.getOriginalClass().getSourceFile())
+						|| existing.dstPath.equals(classDiff.getNextClass().getSourceFile())) {
+					append = existing;
+					break;
+				}
+			}
+			ClassDiffMatching matching = new ClassDiffMatching(classDiff, (append != null) || mergeFlag, append);
+			matchings.add(matching);
+			if (append == null) {
+				boolean duplicate = false;
+				for (ClassDiffMatching existing : added) {
+					if (existing.srcPath.equals(matching.srcPath) && existing.dstPath.equals(matching.dstPath))
+						duplicate = true;
+				}
+				if (!duplicate)
+					added.add(matching);
+			}
+		}
+	}
+
+	/**
+	 * The edit scripts of the diffs are generated concurrently, as each diff has its own trees.
+	 * The multi-move actions are numbered across the diffs, so they are added to the edit scripts in the order of the diff set.
+	 */
+	private void computeAllEditScriptsConcurrently() throws RefactoringMinerTimedOutException {
+		long editScript_start = System.currentTimeMillis();
+		Map<String, TreeContext> parentContextMap = modelDiff.getParentModel().getTreeContextMap();
+		Map<String, TreeContext> childContextMap = modelDiff.getChildModel().getTreeContextMap();
+		List<Future<EditScript>> results = new ArrayList<>();
+		for (ASTDiff diff : diffSet) {
+			results.add(pool.submit(() -> diff.generateEditScript(parentContextMap, childContextMap)));
+		}
+		try {
+			int i = 0;
+			for (ASTDiff diff : diffSet) {
+				diff.completeEditScript(waitFor(results.get(i++)));
+			}
+		}
+		finally {
+			cancel(results);
+		}
+		long editScript_end = System.currentTimeMillis();
+		logger.info("EditScript execution: " + (editScript_end - editScript_start)/ 1000 + " seconds");
+	}
+
+	//the pool may be shared, so only the tasks of this differ are stopped when one of them fails
+	private static void cancel(List<? extends Future<?>> results) {
+		for (Future<?> result : results)
+			result.cancel(true);
+	}
+
+	private static <T> T waitFor(Future<T> result) throws RefactoringMinerTimedOutException {
+		try {
+			return result.get();
+		}
+		catch (InterruptedException e) {
+			throw new RefactoringMinerTimedOutException();
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private static class ClassDiffMatching {
+		private final UMLAbstractClassDiff classDiff;
+		private final boolean mergeFlag;
+		//the matching whose diff the mappings of this matching are merged into, or null
+		private final ClassDiffMatching append;
+		private final String srcPath;
+		private final String dstPath;
+		private ASTDiff astDiff;
+
+		private ClassDiffMatching(UMLAbstractClassDiff classDiff, boolean mergeFlag, ClassDiffMatching append) {
+			this.classDiff = classDiff;
+			this.mergeFlag = mergeFlag;
+			this.append = append;
+			this.srcPath = classDiff.getOriginalClass().getLocationInfo().getFilePath();
+			this.dstPath = classDiff.getNextClass().getLocationInfo().getFilePath();
+		}
+	}
+
 	private List<? extends UMLAbstractClassDiff> getExtraDiffs() {
 		List<UMLAbstractClassDiff> extraDiffs = new ArrayList<>();
 		for (Refactoring modelDiffRefactoring : modelDiffRefactorings) {
@@ -0,0 +1,144 @@
+package org.refactoringminer.astDiff.utils;
+
+import com.github.gumtreediff.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offset index over the nodes of a tree, answering which is the first node in pre-order lying between two positions.
+ * <p>
+ * The nodes are kept in pre-order. As the start positions of the nodes of a parsed file do not decrease in pre-order, the nodes starting
+ * after a position form a suffix, and the first of them ending before a position is found by descending a tree of minimum end positions.
+ * When the start positions do decrease somewhere in pre-order, the index is not usable, and the lookups fall back to a pre-order scan.
+ * The tree must not be modified after the index has been built.
+ */
+public class TreeOffsetIndex {
+	private static final String METADATA_KEY = "offset_index";
+	private final Tree root;
+	private final boolean ordered;
+	private final Positions all;
+	private final Map<String, Positions> positionsByType = new HashMap<>();
+
+	private TreeOffsetIndex(Tree root) {
+		this.root = root;
+		List<Tree> nodes = new ArrayList<>();
+		boolean ordered = true;
+		int previousPos = Integer.MIN_VALUE;
+		for (Tree t : root.preOrder()) {
+			if (t.getPos() < previousPos)
+				ordered = false;
+			previousPos = t.getPos();
+			nodes.add(t);
+		}
+		this.ordered = ordered;
+		this.all = ordered ? new Positions(nodes) : null;
+	}
+
+	/**
+	 * @return the index of the given root, built on the first call and attached to the root
+	 */
+	public static TreeOffsetIndex of(Tree root) {
+		synchronized (root) {
+			Object index = root.getMetadata(METADATA_KEY);
+			//a copy of the root may carry the index of the original tree
+			if (index instanceof TreeOffsetIndex && ((TreeOffsetIndex) index).root == root)
+				return (TreeOffsetIndex) index;
+			TreeOffsetIndex newIndex = new TreeOffsetIndex(root);
+			root.setMetadata(METADATA_KEY, newIndex);
+			return newIndex;
+		}
+	}
+
+	/**
+	 * @return the first node in pre-order with a start position not before {@code position} and an end position not after {@code endPosition}, or null
+	 */
+	public Tree getTreeBetweenPositions(int position, int endPosition) {
+		if (!ordered)
+			return TreeUtilFunctions.scanTreeBetweenPositions(root, position, endPosition);
+		return all.first(position, endPosition);
+	}
+
+	/**
+	 * @return the first node in pre-order of the given type with a start position not before {@code position} and an end position not after {@code endPosition}, or null
+	 */
+	public Tree getTreeBetweenPositions(int position, int endPosition, String type) {
+		if (!ordered)
+			return TreeUtilFunctions.scanTreeBetweenPositions(root, position, endPosition, type);
+		Positions positions;
+		synchronized (positionsByType) {
+			positions = positionsByType.get(type);
+			if (positions == null) {
+				List<Tree> nodes = new ArrayList<>();
+				for (Tree t : all.nodes)
+					if (t.getType().name.equals(type))
+						nodes.add(t);
+				positions = new Positions(nodes);
+				positionsByType.put(type, positions);
+			}
+		}
+		return positions.first(position, endPosition);
+	}
+
+	private static class Positions {
+		private final Tree[] nodes;
+		private final int[] starts;
+		//minimum end position of the nodes below each node of a complete binary tree over the nodes, the leaves start at index size
+		private final int[] minEnds;
+		private final int size;
+
+		private Positions(List<Tree> nodes) {
+			this.nodes = nodes.toArray(new Tree[0]);
+			this.starts = new int[this.nodes.length];
+			int size = 1;
+			while (size < this.nodes.length)
+				size <<= 1;
+			this.size = size;
+			this.minEnds = new int[2 * size];
+			Arrays.fill(minEnds, Integer.MAX_VALUE);
+			for (int i = 0; i < this.nodes.length; i++) {
+				starts[i] = this.nodes[i].getPos();
+				minEnds[size + i] = this.nodes[i].getEndPos();
+			}
+			for (int i = size - 1; i > 0; i--)
+				minEnds[i] = Math.min(minEnds[2 * i], minEnds[2 * i + 1]);
+		}
+
+		private Tree first(int position, int endPosition) {
+			int from = lowerBound(position);
+			if (from == nodes.length)
+				return null;
+			int index = first(1, 0, size, from, endPosition);
+			return index != -1 ? nodes[index] : null;
+		}
+
+		private int first(int node, int low, int high, int from, int endPosition) {
+			if (high <= from || low >= nodes.length || minEnds[node] > endPosition)
+				return -1;
+			if (high - low == 1)
+				return low;
+			int middle = (low + high) >>> 1;
+			int index = first(2 * node, low, middle, from, endPosition);
+			if (index != -1)
+				return index;
+			return first(2 * node + 1, middle, high, from, endPosition);
+		}
+
+		//index of the first node starting at or after the given position
+		private int lowerBound(int position) {
+			int low = 0;
+			int high = starts.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (starts[middle] < position)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			return low;
+		}
+	}
+}
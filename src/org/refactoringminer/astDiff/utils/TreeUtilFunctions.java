@@ -23,7 +23,7 @@ import org.refactoringminer.astDiff.matchers.Constants;
  */
 public class TreeUtilFunctions {
 
-	private static FakeTree _instance;
+	private static final FakeTree _instance = new FakeTree();
 
 	public static Tree findByLocationInfo(Tree tree, LocationInfo locationInfo){
 		int startoffset = locationInfo.getStartOffset();
@@ -56,6 +56,19 @@ public class TreeUtilFunctions {
 	}
 
 	public static Tree getTreeBetweenPositions(Tree tree, int position, int endPosition) {
+		//the whole tree of a file is looked up repeatedly, and its subtrees are small enough to be scanned
+		if (tree.isRoot())
+			return TreeOffsetIndex.of(tree).getTreeBetweenPositions(position, endPosition);
+		return scanTreeBetweenPositions(tree, position, endPosition);
+	}
+
+	public static Tree getTreeBetweenPositions(Tree tree, int position, int endPosition,String type) {
+		if (tree.isRoot())
+			return TreeOffsetIndex.of(tree).getTreeBetweenPositions(position, endPosition, type);
+		return scanTreeBetweenPositions(tree, position, endPosition, type);
+	}
+
+	static Tree scanTreeBetweenPositions(Tree tree, int position, int endPosition) {
 		for (Tree t: tree.preOrder()) {
 			if (t.getPos() >= position && t.getEndPos() <= endPosition)
 				return t;
@@ -63,7 +76,7 @@ public class TreeUtilFunctions {
 		return null;
 	}
 
-	public static Tree getTreeBetweenPositions(Tree tree, int position, int endPosition,String type) {
+	static Tree scanTreeBetweenPositions(Tree tree, int position, int endPosition,String type) {
 		for (Tree t: tree.preOrder()) {
 			if (t.getPos() >= position && t.getEndPos() <= endPosition)
 				if (t.getType().name.equals(type))
@@ -137,8 +150,6 @@ public class TreeUtilFunctions {
 
 	public static FakeTree getFakeTreeInstance()
 	{
-		if (_instance == null)
-			_instance = new FakeTree();
 		return _instance;
 	}
 
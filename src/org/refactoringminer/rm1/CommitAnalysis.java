@@ -0,0 +1,37 @@
+package org.refactoringminer.rm1;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.diff.MoveSourceFolderRefactoring;
+
+/**
+ * The intermediate state of the analysis of a commit, filled in by the read, parse and diff stages of
+ * {@link GitHistoryRefactoringMinerImpl}, which may run on different threads.
+ */
+class CommitAnalysis {
+	final RevCommit commit;
+	final Map<String, String> renamedFilesHint = new HashMap<String, String>();
+	final Set<String> repositoryDirectoriesBefore = new LinkedHashSet<String>();
+	final Set<String> repositoryDirectoriesCurrent = new LinkedHashSet<String>();
+	final Map<String, String> fileContentsBefore = new LinkedHashMap<String, String>();
+	final Map<String, String> fileContentsCurrent = new LinkedHashMap<String, String>();
+	final Map<String, ObjectId> fileBlobIdsBefore = new HashMap<String, ObjectId>();
+	final Map<String, ObjectId> fileBlobIdsCurrent = new HashMap<String, ObjectId>();
+	boolean javaFilesChanged;
+	List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings;
+	UMLModel parentUMLModel;
+	UMLModel currentUMLModel;
+
+	CommitAnalysis(RevCommit commit) {
+		this.commit = commit;
+	}
+}
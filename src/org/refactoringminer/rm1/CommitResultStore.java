@@ -0,0 +1,306 @@
+package org.refactoringminer.rm1;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringType;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gr.uom.java.xmi.LocationInfo.CodeElementType;
+import gr.uom.java.xmi.diff.CodeRange;
+
+/**
+ * Embedded on-disk store of the refactorings detected per commit, used by {@link GitHistoryRefactoringMinerImpl#setResultStore(CommitResultStore)}
+ * to skip the analysis of commits mined by a previous run.
+ * <p>
+ * The results are kept in an append-only log with one JSON record per line ({@value #LOG_FILE}), and an index file ({@value #INDEX_FILE})
+ * with the offset of each record, keyed by commit SHA and configuration id. A record is indexed only after it has been written to the log,
+ * so when the store is reopened after a crash, the records missing from the index are recovered from the log and an incomplete last record is discarded.
+ */
+public class CommitResultStore implements Closeable {
+	public static final String LOG_FILE = "commits.log";
+	public static final String INDEX_FILE = "commits.idx";
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final FileChannel log;
+	private final FileChannel index;
+	private final Map<Key, Entry> entries = new HashMap<Key, Entry>();
+
+	/**
+	 * Open the store kept in the given directory, creating it if it does not exist.
+	 */
+	public CommitResultStore(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		this.log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.index = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			long indexedLength = loadIndex();
+			recoverLog(indexedLength);
+		} catch (IOException | RuntimeException e) {
+			close();
+			throw e;
+		}
+	}
+
+	public synchronized boolean contains(String commitId, String configId) {
+		return entries.containsKey(new Key(commitId, configId));
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the refactorings stored for the given commit and configuration, or null if the commit has not been stored
+	 */
+	public synchronized List<Refactoring> get(String commitId, String configId) throws IOException {
+		Entry entry = entries.get(new Key(commitId, configId));
+		if (entry == null) {
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+		while (buffer.hasRemaining()) {
+			if (log.read(buffer, entry.offset + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of " + LOG_FILE + " reading commit " + commitId);
+			}
+		}
+		JsonNode record = mapper.readTree(buffer.array());
+		List<Refactoring> refactorings = new ArrayList<Refactoring>();
+		for (JsonNode refactoring : record.get("refactorings")) {
+			refactorings.add(readRefactoring(refactoring));
+		}
+		return refactorings;
+	}
+
+	/**
+	 * Append the refactorings of the given commit. If the commit has already been stored with the same configuration, the call has no effect.
+	 */
+	public synchronized void put(String commitId, String configId, List<Refactoring> refactorings) throws IOException {
+		Key key = new Key(commitId, configId);
+		if (entries.containsKey(key)) {
+			return;
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+			generator.writeStartObject();
+			generator.writeStringField("commitId", commitId);
+			generator.writeStringField("configId", configId);
+			generator.writeArrayFieldStart("refactorings");
+			for (Refactoring refactoring : refactorings) {
+				writeRefactoring(generator, refactoring);
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+		int length = out.size();
+		out.write('\n');
+		long offset = log.size();
+		writeFully(log, ByteBuffer.wrap(out.toByteArray()), offset);
+		log.force(false);
+		byte[] indexLine = (configId + "\t" + commitId + "\t" + offset + "\t" + length + "\n").getBytes(StandardCharsets.UTF_8);
+		writeFully(index, ByteBuffer.wrap(indexLine), index.size());
+		entries.put(key, new Entry(offset, length));
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			log.close();
+		} finally {
+			index.close();
+		}
+	}
+
+	private long loadIndex() throws IOException {
+		byte[] content = readFully(index, 0, index.size());
+		long indexedLength = 0;
+		int lineStart = 0;
+		for (int i = 0; i < content.length; i++) {
+			if (content[i] == '\n') {
+				String[] tokens = new String(content, lineStart, i - lineStart, StandardCharsets.UTF_8).split("\t");
+				Entry entry = new Entry(Long.parseLong(tokens[2]), Integer.parseInt(tokens[3]));
+				entries.put(new Key(tokens[1], tokens[0]), entry);
+				indexedLength = Math.max(indexedLength, entry.offset + entry.length + 1);
+				lineStart = i + 1;
+			}
+		}
+		if (lineStart < content.length) {
+			//incomplete line written before a crash
+			index.truncate(lineStart);
+		}
+		return indexedLength;
+	}
+
+	private void recoverLog(long indexedLength) throws IOException {
+		long logLength = log.size();
+		if (indexedLength > logLength) {
+			throw new IOException(INDEX_FILE + " refers to records beyond the end of " + LOG_FILE);
+		}
+		byte[] content = readFully(log, indexedLength, logLength - indexedLength);
+		int lineStart = 0;
+		for (int i = 0; i < content.length; i++) {
+			if (content[i] == '\n') {
+				JsonNode record = mapper.readTree(new String(content, lineStart, i - lineStart, StandardCharsets.UTF_8));
+				String commitId = record.get("commitId").asText();
+				String configId = record.get("configId").asText();
+				long offset = indexedLength + lineStart;
+				int length = i - lineStart;
+				byte[] indexLine = (configId + "\t" + commitId + "\t" + offset + "\t" + length + "\n").getBytes(StandardCharsets.UTF_8);
+				writeFully(index, ByteBuffer.wrap(indexLine), index.size());
+				entries.put(new Key(commitId, configId), new Entry(offset, length));
+				lineStart = i + 1;
+			}
+		}
+		if (lineStart < content.length) {
+			//incomplete record written before a crash
+			log.truncate(indexedLength + lineStart);
+		}
+	}
+
+	private static byte[] readFully(FileChannel channel, long position, long length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(length));
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				break;
+			}
+		}
+		return buffer.array();
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, position + buffer.position());
+		}
+	}
+
+	private static void writeRefactoring(JsonGenerator generator, Refactoring refactoring) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("refactoringType", refactoring.getRefactoringType().name());
+		generator.writeStringField("type", refactoring.getName());
+		generator.writeStringField("description", refactoring.toString());
+		writeCodeRanges(generator, "leftSideLocations", refactoring.leftSide());
+		writeCodeRanges(generator, "rightSideLocations", refactoring.rightSide());
+		writeInvolvedClasses(generator, "involvedClassesBefore", refactoring.getInvolvedClassesBeforeRefactoring());
+		writeInvolvedClasses(generator, "involvedClassesAfter", refactoring.getInvolvedClassesAfterRefactoring());
+		generator.writeEndObject();
+	}
+
+	private static void writeCodeRanges(JsonGenerator generator, String fieldName, List<CodeRange> ranges) throws IOException {
+		generator.writeArrayFieldStart(fieldName);
+		for (CodeRange range : ranges) {
+			generator.writeStartObject();
+			generator.writeStringField("filePath", range.getFilePath());
+			generator.writeNumberField("startLine", range.getStartLine());
+			generator.writeNumberField("endLine", range.getEndLine());
+			generator.writeNumberField("startColumn", range.getStartColumn());
+			generator.writeNumberField("endColumn", range.getEndColumn());
+			generator.writeStringField("codeElementType", range.getCodeElementType().name());
+			generator.writeStringField("description", range.getDescription());
+			generator.writeStringField("codeElement", range.getCodeElement());
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+	}
+
+	private static void writeInvolvedClasses(JsonGenerator generator, String fieldName, Set<ImmutablePair<String, String>> involvedClasses) throws IOException {
+		generator.writeArrayFieldStart(fieldName);
+		for (ImmutablePair<String, String> pair : involvedClasses) {
+			generator.writeStartArray();
+			generator.writeString(pair.getLeft());
+			generator.writeString(pair.getRight());
+			generator.writeEndArray();
+		}
+		generator.writeEndArray();
+	}
+
+	private static Refactoring readRefactoring(JsonNode node) {
+		return new StoredRefactoring(RefactoringType.valueOf(node.get("refactoringType").asText()),
+				node.get("type").asText(),
+				node.get("description").asText(),
+				readCodeRanges(node.get("leftSideLocations")),
+				readCodeRanges(node.get("rightSideLocations")),
+				readInvolvedClasses(node.get("involvedClassesBefore")),
+				readInvolvedClasses(node.get("involvedClassesAfter")));
+	}
+
+	private static List<CodeRange> readCodeRanges(JsonNode array) {
+		List<CodeRange> ranges = new ArrayList<CodeRange>();
+		for (JsonNode node : array) {
+			CodeRange range = new CodeRange(node.get("filePath").asText(),
+					node.get("startLine").asInt(), node.get("endLine").asInt(),
+					node.get("startColumn").asInt(), node.get("endColumn").asInt(),
+					CodeElementType.valueOf(node.get("codeElementType").asText()));
+			range.setDescription(textOrNull(node.get("description")));
+			range.setCodeElement(textOrNull(node.get("codeElement")));
+			ranges.add(range);
+		}
+		return ranges;
+	}
+
+	private static Set<ImmutablePair<String, String>> readInvolvedClasses(JsonNode array) {
+		Set<ImmutablePair<String, String>> involvedClasses = new LinkedHashSet<ImmutablePair<String, String>>();
+		for (JsonNode pair : array) {
+			involvedClasses.add(new ImmutablePair<String, String>(textOrNull(pair.get(0)), textOrNull(pair.get(1))));
+		}
+		return involvedClasses;
+	}
+
+	private static String textOrNull(JsonNode node) {
+		return node == null || node.isNull() ? null : node.asText();
+	}
+
+	private static class Key {
+		private final String commitId;
+		private final String configId;
+
+		private Key(String commitId, String configId) {
+			this.commitId = commitId;
+			this.configId = configId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(commitId, configId);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj instanceof Key) {
+				Key other = (Key) obj;
+				return commitId.equals(other.commitId) && configId.equals(other.configId);
+			}
+			return false;
+		}
+	}
+
+	private static class Entry {
+		private final long offset;
+		private final int length;
+
+		private Entry(long offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+}
@@ -2,6 +2,7 @@ package org.refactoringminer.rm1;
 
 import gr.uom.java.xmi.UMLModel;
 import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.decomposition.SymbolTable;
 import gr.uom.java.xmi.diff.MoveSourceFolderRefactoring;
 import gr.uom.java.xmi.diff.MovedClassToAnotherSourceFolder;
 import gr.uom.java.xmi.diff.RenamePattern;
@@ -23,8 +24,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,13 +38,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -54,6 +60,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
@@ -68,6 +75,9 @@ import org.kohsuke.github.GHTree;
 import org.kohsuke.github.GHTreeEntry;
 import org.kohsuke.github.GitHub;
 import org.kohsuke.github.PagedIterable;
+import org.refactoringminer.api.CancellationToken;
+import org.refactoringminer.api.CancellationToken.Phase;
+import org.refactoringminer.api.CommitResult;
 import org.refactoringminer.api.GitHistoryRefactoringMiner;
 import org.refactoringminer.api.GitService;
 import org.refactoringminer.api.Refactoring;
@@ -82,16 +92,39 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMiner {
+public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMiner, AutoCloseable {
 
 	private final static Logger logger = LoggerFactory.getLogger(GitHistoryRefactoringMinerImpl.class);
 	private Set<RefactoringType> refactoringTypesToConsider = null;
 	private GitHub gitHub;
+	private int parallelism = 1;
+	private boolean orderedDelivery = true;
+	private int commitTimeout = 0;
+	private UMLModelCache modelCache = null;
+	private int parsingParallelism = 1;
+	private ExecutorService parsingPool = null;
+	private int diffParallelism = 1;
+	private ExecutorService classDiffPool = null;
+	private int operationMoveParallelism = 1;
+	private ExecutorService operationMovePool = null;
+	private int astDiffParallelism = 1;
+	private ExecutorService astDiffPool = null;
+	private int renameLimit = 0;
+	private boolean candidatePruning = false;
+	private boolean stringInterning = false;
+	private CommitResultStore resultStore = null;
+	private boolean pipelined = false;
+	private final Map<Phase, Long> phaseBudgets = new EnumMap<Phase, Long>(Phase.class);
+	private final RepositoryDirectoryCache repositoryDirectoryCache = new RepositoryDirectoryCache();
 	
 	public GitHistoryRefactoringMinerImpl() {
 		this.setRefactoringTypesToConsider(RefactoringType.ALL);
 	}
 
+	/**
+	 * Only the refactorings of the given types are reported. The phases of the analysis whose results cannot contribute to these types
+	 * are skipped, as given by {@link RefactoringType#getRequiredPhases()}.
+	 */
 	public void setRefactoringTypesToConsider(RefactoringType ... types) {
 		this.refactoringTypesToConsider = new HashSet<RefactoringType>();
 		for (RefactoringType type : types) {
@@ -99,7 +132,288 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		}
 	}
 	
+	/**
+	 * Set the number of worker threads used to analyze commits in {@code detectAll}, {@code fetchAndDetectNew},
+	 * {@code detectBetweenCommits} and {@code detectBetweenTags}. The {@link RefactoringHandler} callbacks are
+	 * always invoked from the calling thread, so handlers do not need to be thread-safe.
+	 * 
+	 * @param parallelism The number of commits analyzed concurrently. The default value 1 analyzes commits sequentially.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1");
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @param orderedDelivery If true (default), the results of commits analyzed in parallel are passed to
+	 * {@link RefactoringHandler#handle(String, List)} in the order of the commit walk, otherwise in completion order.
+	 */
+	public void setOrderedDelivery(boolean orderedDelivery) {
+		this.orderedDelivery = orderedDelivery;
+	}
+
+	/**
+	 * @param commitTimeout A timeout, in seconds, for the analysis of each commit in {@code detectAll}, {@code fetchAndDetectNew},
+	 * {@code detectBetweenCommits} and {@code detectBetweenTags}. Commits exceeding the timeout are reported to
+	 * {@link RefactoringHandler#handleException(String, Exception)} with a {@link RefactoringMinerTimedOutException}.
+	 * The default value 0 disables the timeout.
+	 */
+	public void setCommitTimeout(int commitTimeout) {
+		this.commitTimeout = commitTimeout;
+	}
+
+	/**
+	 * Enable the reuse of parsed files across consecutive commits. On a linear history, the files of each commit are
+	 * parsed once as the current version and reused as the parent version of the next commit.
+	 * Only the parsed compilation units are reused, the models of each commit are created from scratch, so that the detected refactorings are the same as without the cache.
+	 * The cache is only used when commits are analyzed sequentially.
+	 * 
+	 * @param maximumSize The maximum number of parsed files kept in memory. This is a count of whole JDT ASTs, each taking several times the size of its
+	 * source file, and not a memory budget: a few hundred files usually cover the files changed by consecutive commits. The value 0 (default) disables the cache.
+	 */
+	public void setModelCacheSize(int maximumSize) {
+		this.modelCache = maximumSize > 0 ? new UMLModelCache(maximumSize) : null;
+	}
+
+	/**
+	 * Overlap the analysis of consecutive commits when they are analyzed sequentially: while a commit is diffed,
+	 * the models of the next commit are built, and the blobs of the commit after it are loaded.
+	 * The refactorings are still passed to the {@link RefactoringHandler} in the order of the commit walk, from the calling thread.
+	 * Pipelining applies to {@code detectAll}, {@code fetchAndDetectNew}, {@code detectBetweenCommits} and {@code detectBetweenTags},
+	 * when the parallelism is 1 and no commit timeout is set.
+	 * 
+	 * @param pipelined If true, the read, parse and diff stages of consecutive commits run concurrently. The default value is false.
+	 */
+	public void setPipelined(boolean pipelined) {
+		this.pipelined = pipelined;
+	}
+
+	/**
+	 * Set the number of threads used to parse the Java files of each analyzed version.
+	 * The threads, and the parser of each thread, are kept by the miner and reused by all the analyzed commits until {@link #close()} is called.
+	 * 
+	 * @param parsingParallelism The number of files parsed concurrently. The default value 1 parses files sequentially.
+	 */
+	public void setParsingParallelism(int parsingParallelism) {
+		if (parsingParallelism < 1) {
+			throw new IllegalArgumentException("parsingParallelism must be at least 1");
+		}
+		this.parsingParallelism = parsingParallelism;
+		if (parsingPool != null) {
+			parsingPool.shutdown();
+		}
+		this.parsingPool = parsingParallelism > 1 ? newDaemonThreadPool(parsingParallelism, "parser") : null;
+	}
+
+	/**
+	 * Stop the threads kept by the miner. The threads are daemon threads, and are created again if the corresponding option is set again.
+	 */
+	@Override
+	public void close() {
+		if (parsingPool != null) {
+			parsingPool.shutdownNow();
+			parsingPool = null;
+			parsingParallelism = 1;
+		}
+		if (classDiffPool != null) {
+			classDiffPool.shutdownNow();
+			classDiffPool = null;
+			diffParallelism = 1;
+		}
+		if (operationMovePool != null) {
+			operationMovePool.shutdownNow();
+			operationMovePool = null;
+			operationMoveParallelism = 1;
+		}
+		if (astDiffPool != null) {
+			astDiffPool.shutdownNow();
+			astDiffPool = null;
+			astDiffParallelism = 1;
+		}
+	}
+
+	static ExecutorService newDaemonThreadPool(int nThreads, String name) {
+		return Executors.newFixedThreadPool(nThreads, newDaemonThreadFactory(name));
+	}
+
+	static ThreadFactory newDaemonThreadFactory(String name) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "RefactoringMiner-" + name + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Set the number of threads used to diff the classes present in both versions of each analyzed commit.
+	 * The detected refactorings are identical to the ones of sequential processing.
+	 * The threads are kept by the miner and reused by all the analyzed commits until {@link #close()} is called.
+	 * 
+	 * @param diffParallelism The number of class diffs processed concurrently. The default value 1 processes class diffs sequentially.
+	 */
+	public void setDiffParallelism(int diffParallelism) {
+		if (diffParallelism < 1) {
+			throw new IllegalArgumentException("diffParallelism must be at least 1");
+		}
+		this.diffParallelism = diffParallelism;
+		if (classDiffPool != null) {
+			classDiffPool.shutdown();
+		}
+		this.classDiffPool = diffParallelism > 1 ? newDaemonThreadPool(diffParallelism, "class-diff") : null;
+	}
+
+	/**
+	 * Set the number of threads used to compare the removed and added operations of each analyzed commit while looking for moved operations.
+	 * The candidate body mappers of an operation are created concurrently and selected in the same order as in sequential processing.
+	 * The detected refactorings are identical to the ones of sequential processing: a candidate depending on the argumentization left by the candidates
+	 * before it is created again after them.
+	 * The threads are kept by the miner and reused by all the analyzed commits until {@link #close()} is called.
+	 * 
+	 * @param operationMoveParallelism The number of candidate body mappers created concurrently. The default value 1 creates them sequentially.
+	 */
+	public void setOperationMoveParallelism(int operationMoveParallelism) {
+		if (operationMoveParallelism < 1) {
+			throw new IllegalArgumentException("operationMoveParallelism must be at least 1");
+		}
+		this.operationMoveParallelism = operationMoveParallelism;
+		if (operationMovePool != null) {
+			operationMovePool.shutdown();
+		}
+		this.operationMovePool = operationMoveParallelism > 1 ? newDaemonThreadPool(operationMoveParallelism, "operation-move") : null;
+	}
+
+	/**
+	 * Set the maximum number of added or deleted Java files in a commit for which renamed files are detected by content similarity,
+	 * in the git services created by the miner (see {@link GitServiceImpl#setRenameLimit(int)}).
+	 * 
+	 * @param renameLimit The maximum number of added or deleted Java files. By default, the diff.renameLimit setting of the repository is used.
+	 */
+	public void setRenameLimit(int renameLimit) {
+		if (renameLimit < 1) {
+			throw new IllegalArgumentException("renameLimit must be at least 1");
+		}
+		this.renameLimit = renameLimit;
+	}
+
+	private GitServiceImpl withRenameLimit(GitServiceImpl gitService) {
+		if (renameLimit > 0) {
+			gitService.setRenameLimit(renameLimit);
+		}
+		return gitService;
+	}
+
+	/**
+	 * Set the number of threads used to match the files and compute the edit scripts of the AST diffs.
+	 * The AST diffs are identical to the ones of sequential processing, and in the same order.
+	 * The threads are kept by the miner and reused by all the AST diffs until {@link #close()} is called.
+	 * 
+	 * @param astDiffParallelism The number of files matched concurrently. The default value 1 matches them sequentially.
+	 */
+	public void setASTDiffParallelism(int astDiffParallelism) {
+		if (astDiffParallelism < 1) {
+			throw new IllegalArgumentException("astDiffParallelism must be at least 1");
+		}
+		this.astDiffParallelism = astDiffParallelism;
+		if (astDiffPool != null) {
+			astDiffPool.shutdown();
+		}
+		this.astDiffPool = astDiffParallelism > 1 ? newDaemonThreadPool(astDiffParallelism, "ast-diff") : null;
+	}
+
+	/**
+	 * Only compare the operations added or removed in a commit, while looking for extracted and moved or moved and inlined operations,
+	 * with the source or target operations sharing at least one statement, apart from their variable names.
+	 * This skips most of the body mappers created for commits adding or removing many operations,
+	 * but misses the refactorings in which every moved statement was also modified.
+	 * 
+	 * @param candidatePruning true to skip the candidates sharing no statement. The default value false compares all the candidates.
+	 */
+	public void setCandidatePruning(boolean candidatePruning) {
+		this.candidatePruning = candidatePruning;
+	}
+
+	/**
+	 * Intern the strings of the statements and expressions of the models of each analyzed commit in a table shared by the parent and current models,
+	 * so that the equal strings of both models are kept once, and compared by reference. The table is dropped after the commit is parsed.
+	 * The detected refactorings are the same as without interning.
+	 * 
+	 * @param stringInterning true to intern the strings. The default value false keeps the strings as created by the parser.
+	 */
+	public void setStringInterning(boolean stringInterning) {
+		this.stringInterning = stringInterning;
+	}
+
+	/**
+	 * Persist the refactorings of each analyzed commit in the given store, and serve the commits already stored,
+	 * under the same {@link #getConfigId()}, from the store instead of analyzing them again.
+	 * A mining run that was interrupted can thus be resumed, and a repeated run only analyzes the new commits.
+	 * 
+	 * @param resultStore The store to use, or null (default) to analyze every commit.
+	 */
+	public void setResultStore(CommitResultStore resultStore) {
+		this.resultStore = resultStore;
+	}
+
+	/**
+	 * @return the refactorings of the given commit kept in the result store, or null if there is no result store or the commit has not been stored
+	 */
+	List<Refactoring> loadStoredRefactorings(String commitId) throws IOException {
+		if (resultStore != null) {
+			List<Refactoring> refactorings = resultStore.get(commitId, getConfigId());
+			if (refactorings != null) {
+				return filter(refactorings);
+			}
+		}
+		return null;
+	}
+
+	void storeRefactorings(String commitId, List<Refactoring> refactorings) throws IOException {
+		if (resultStore != null) {
+			resultStore.put(commitId, getConfigId(), refactorings);
+		}
+	}
+
+	/**
+	 * Bound the time spent by the analysis of each commit in a single phase. When the budget of a phase runs out, the rest of the phase is skipped,
+	 * and the refactorings detected so far are passed to {@link RefactoringHandler#handlePartial(String, List, Set)} instead of
+	 * {@link RefactoringHandler#handle(String, List)}. Partial results are never kept in the result store.
+	 * 
+	 * @param phase The phase to bound.
+	 * @param seconds The budget of the phase in seconds. The value 0 (default) removes the budget.
+	 */
+	public void setPhaseBudget(Phase phase, int seconds) {
+		if (seconds > 0) {
+			phaseBudgets.put(phase, (long) seconds);
+		}
+		else {
+			phaseBudgets.remove(phase);
+		}
+	}
+
+	/**
+	 * @return a new token enforcing the phase budgets for the analysis of a commit, or null if no budget has been set
+	 */
+	CancellationToken newCancellationToken() {
+		if (phaseBudgets.isEmpty()) {
+			return null;
+		}
+		return new CancellationToken(0, phaseBudgets, TimeUnit.SECONDS);
+	}
+
 	private void detect(GitService gitService, Repository repository, final RefactoringHandler handler, Iterator<RevCommit> i) {
+		if (parallelism > 1 || commitTimeout > 0) {
+			ParallelCommitDetector detector = new ParallelCommitDetector(this, gitService, repository, parallelism, orderedDelivery, commitTimeout);
+			detector.detect(handler, i);
+			return;
+		}
+		if (pipelined) {
+			PipelinedCommitDetector detector = new PipelinedCommitDetector(this, gitService, repository);
+			detector.detect(handler, i);
+			return;
+		}
 		int commitsCount = 0;
 		int errorCommitsCount = 0;
 		int refactoringsCount = 0;
@@ -134,41 +448,114 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 	}
 
 	protected List<Refactoring> detectRefactorings(GitService gitService, Repository repository, final RefactoringHandler handler, RevCommit currentCommit) throws Exception {
-		List<Refactoring> refactoringsAtRevision;
 		String commitId = currentCommit.getId().getName();
+		List<Refactoring> refactoringsAtRevision = loadStoredRefactorings(commitId);
+		if (refactoringsAtRevision == null) {
+			CancellationToken token = newCancellationToken();
+			if (token != null) {
+				token.attach();
+			}
+			try (ObjectReader reader = repository.newObjectReader()) {
+				refactoringsAtRevision = detectRefactorings(gitService, repository, reader, currentCommit);
+			} finally {
+				CancellationToken.detach();
+			}
+			if (token != null && token.isPartial()) {
+				handler.handlePartial(commitId, refactoringsAtRevision, token.getExhaustedPhases());
+				return refactoringsAtRevision;
+			}
+			storeRefactorings(commitId, refactoringsAtRevision);
+		}
+		handler.handle(commitId, refactoringsAtRevision);
+		return refactoringsAtRevision;
+	}
+
+	/**
+	 * Detect the refactorings of the given commit without notifying any handler.
+	 * All blobs are read through the given {@code reader}, which must not be shared with other threads.
+	 */
+	protected List<Refactoring> detectRefactorings(GitService gitService, Repository repository, ObjectReader reader, RevCommit currentCommit) throws Exception {
+		CommitAnalysis analysis = readCommit(gitService, repository, reader, currentCommit);
+		parseCommit(analysis);
+		return diffCommit(analysis);
+	}
+
+	/**
+	 * First stage of the analysis of a commit: find the changed files and read their contents before and after the commit.
+	 */
+	CommitAnalysis readCommit(GitService gitService, Repository repository, ObjectReader reader, RevCommit currentCommit) throws Exception {
+		CommitAnalysis analysis = new CommitAnalysis(currentCommit);
 		Set<String> filePathsBefore = new LinkedHashSet<String>();
 		Set<String> filePathsCurrent = new LinkedHashSet<String>();
-		Map<String, String> renamedFilesHint = new HashMap<String, String>();
-		gitService.fileTreeDiff(repository, currentCommit, filePathsBefore, filePathsCurrent, renamedFilesHint);
-		
-		Set<String> repositoryDirectoriesBefore = new LinkedHashSet<String>();
-		Set<String> repositoryDirectoriesCurrent = new LinkedHashSet<String>();
-		Map<String, String> fileContentsBefore = new LinkedHashMap<String, String>();
-		Map<String, String> fileContentsCurrent = new LinkedHashMap<String, String>();
+		gitService.fileTreeDiff(repository, currentCommit, filePathsBefore, filePathsCurrent, analysis.renamedFilesHint);
 		// If no java files changed, there is no refactoring. Also, if there are
 		// only ADD's or only REMOVE's there is no refactoring
 		if (!filePathsBefore.isEmpty() && !filePathsCurrent.isEmpty() && currentCommit.getParentCount() > 0) {
 			RevCommit parentCommit = currentCommit.getParent(0);
-			populateFileContents(repository, parentCommit, filePathsBefore, fileContentsBefore, repositoryDirectoriesBefore);
-			populateFileContents(repository, currentCommit, filePathsCurrent, fileContentsCurrent, repositoryDirectoriesCurrent);
-			List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, renamedFilesHint);
-			UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
-			UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
-			
-			UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
-			refactoringsAtRevision = modelDiff.getRefactorings();
-			refactoringsAtRevision.addAll(moveSourceFolderRefactorings);
-			refactoringsAtRevision = filter(refactoringsAtRevision);
+			populateFileContents(repository, reader, parentCommit, filePathsBefore, analysis.fileContentsBefore, analysis.fileBlobIdsBefore, analysis.repositoryDirectoriesBefore, repositoryDirectoryCache);
+			populateFileContents(repository, reader, currentCommit, filePathsCurrent, analysis.fileContentsCurrent, analysis.fileBlobIdsCurrent, analysis.repositoryDirectoriesCurrent, repositoryDirectoryCache);
+			analysis.javaFilesChanged = true;
+		}
+		return analysis;
+	}
+
+	/**
+	 * Second stage of the analysis of a commit: match the identical files and build the models of the remaining files.
+	 */
+	void parseCommit(CommitAnalysis analysis) throws Exception {
+		if (analysis.javaFilesChanged) {
+			analysis.moveSourceFolderRefactorings = processIdenticalFiles(analysis.fileContentsBefore, analysis.fileContentsCurrent,
+					analysis.fileBlobIdsBefore, analysis.fileBlobIdsCurrent, analysis.renamedFilesHint);
+			SymbolTable symbols = stringInterning ? new SymbolTable() : null;
+			if (modelCache != null && parallelism == 1) {
+				analysis.parentUMLModel = modelCache.createModel(analysis.fileContentsBefore, analysis.fileBlobIdsBefore, analysis.repositoryDirectoriesBefore, false, parsingPool, symbols);
+				analysis.currentUMLModel = modelCache.createModel(analysis.fileContentsCurrent, analysis.fileBlobIdsCurrent, analysis.repositoryDirectoriesCurrent, false, parsingPool, symbols);
+			}
+			else {
+				analysis.parentUMLModel = createModel(analysis.fileContentsBefore, analysis.repositoryDirectoriesBefore, parsingPool, symbols);
+				analysis.currentUMLModel = createModel(analysis.fileContentsCurrent, analysis.repositoryDirectoriesCurrent, parsingPool, symbols);
+			}
+		}
+	}
+
+	/**
+	 * Last stage of the analysis of a commit: diff the models and infer the refactorings.
+	 */
+	List<Refactoring> diffCommit(CommitAnalysis analysis) throws Exception {
+		List<Refactoring> refactoringsAtRevision;
+		if (analysis.javaFilesChanged) {
+			CancellationToken token = CancellationToken.current();
+			if (token != null && token.isExhausted(Phase.PARSING)) {
+				//diffing incompletely parsed models would report the classes of the unparsed files as removed or added
+				refactoringsAtRevision = filter(new ArrayList<Refactoring>(analysis.moveSourceFolderRefactorings));
+			}
+			else {
+				UMLModelDiff modelDiff = analysis.parentUMLModel.diff(analysis.currentUMLModel, classDiffPool, refactoringTypesToConsider);
+				modelDiff.setOperationMovePool(operationMovePool);
+				modelDiff.setCandidatePruning(candidatePruning);
+				refactoringsAtRevision = modelDiff.getRefactorings();
+				refactoringsAtRevision.addAll(analysis.moveSourceFolderRefactorings);
+				refactoringsAtRevision = filter(refactoringsAtRevision);
+			}
 		} else {
-			//logger.info(String.format("Ignored revision %s with no changes in java files", commitId));
+			//logger.info(String.format("Ignored revision %s with no changes in java files", analysis.commit.getId().getName()));
 			refactoringsAtRevision = Collections.emptyList();
 		}
-		handler.handle(commitId, refactoringsAtRevision);
 		return refactoringsAtRevision;
 	}
 
 	public static List<MoveSourceFolderRefactoring> processIdenticalFiles(Map<String, String> fileContentsBefore, Map<String, String> fileContentsCurrent,
 			Map<String, String> renamedFilesHint) throws IOException {
+		return processIdenticalFiles(fileContentsBefore, fileContentsCurrent, Collections.emptyMap(), Collections.emptyMap(), renamedFilesHint);
+	}
+
+	/**
+	 * @param fileBlobIdsBefore The ids of the git blobs of the files before the commit. Two files with blob ids are identical if their blob ids are equal,
+	 * without comparing their contents. The files without a blob id are compared by content.
+	 * @param fileBlobIdsCurrent The ids of the git blobs of the files after the commit.
+	 */
+	public static List<MoveSourceFolderRefactoring> processIdenticalFiles(Map<String, String> fileContentsBefore, Map<String, String> fileContentsCurrent,
+			Map<String, ObjectId> fileBlobIdsBefore, Map<String, ObjectId> fileBlobIdsCurrent, Map<String, String> renamedFilesHint) throws IOException {
 		Map<String, String> identicalFiles = new HashMap<String, String>();
 		Map<Pair<String, String>, Integer> consistentSourceFolderChanges = new HashMap<>();
 		Map<String, String> nonIdenticalFiles = new HashMap<String, String>();
@@ -178,7 +565,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 				String renamedFile = renamedFilesHint.get(key);
 				String fileBefore = fileContentsBefore.get(key);
 				String fileAfter = fileContentsCurrent.get(renamedFile);
-				if(fileBefore.equals(fileAfter) || StringDistance.trivialCommentChange(fileBefore, fileAfter)) {
+				if(identicalOrTrivialCommentChange(fileBlobIdsBefore.get(key), fileBefore, fileBlobIdsCurrent.get(renamedFile), fileAfter)) {
 					identicalFiles.put(key, renamedFile);
 					if(key.contains("/") && renamedFile.contains("/")) {
 						String prefix1 = key.substring(0, key.indexOf("/"));
@@ -199,7 +586,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			if(fileContentsCurrent.containsKey(key)) {
 				String fileBefore = fileContentsBefore.get(key);
 				String fileAfter = fileContentsCurrent.get(key);
-				if(fileBefore.equals(fileAfter) || StringDistance.trivialCommentChange(fileBefore, fileAfter)) {
+				if(identicalOrTrivialCommentChange(fileBlobIdsBefore.get(key), fileBefore, fileBlobIdsCurrent.get(key), fileAfter)) {
 					identicalFiles.put(key, key);
 				}
 				else {
@@ -210,19 +597,34 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		fileContentsBefore.keySet().removeAll(identicalFiles.keySet());
 		fileContentsCurrent.keySet().removeAll(identicalFiles.values());
 		//second iteration to find renamed/moved files with identical contents
+		//a trivial comment change preserves either the length or the number of lines of a file, so only the files after the commit
+		//sharing one of them with a file before the commit are compared with it, in the order of the files after the commit
+		List<String> keys2 = new ArrayList<String>(fileContentsCurrent.keySet());
+		Map<Integer, List<Integer>> positionsByLength = new HashMap<Integer, List<Integer>>();
+		Map<Integer, List<Integer>> positionsByLineCount = new HashMap<Integer, List<Integer>>();
+		for(int i=0; i<keys2.size(); i++) {
+			String fileAfter = fileContentsCurrent.get(keys2.get(i));
+			positionsByLength.computeIfAbsent(fileAfter.length(), k -> new ArrayList<Integer>()).add(i);
+			positionsByLineCount.computeIfAbsent(lineCount(fileAfter), k -> new ArrayList<Integer>()).add(i);
+		}
+		Set<String> identicalFileValues = new HashSet<String>(identicalFiles.values());
+		Set<String> nonIdenticalFileValues = new HashSet<String>(nonIdenticalFiles.values());
 		for(String key1 : fileContentsBefore.keySet()) {
 			if(!identicalFiles.containsKey(key1) && !nonIdenticalFiles.containsKey(key1)) {
 				String prefix1 = key1.substring(0, key1.indexOf("/"));
 				String fileBefore = fileContentsBefore.get(key1);
 				boolean matchWithConsistentSourceFolderChangeFound = false;
 				List<String> matches = new ArrayList<String>();
-				for(String key2 : fileContentsCurrent.keySet()) {
-					if(!identicalFiles.containsValue(key2) && !nonIdenticalFiles.containsValue(key2)) {
+				List<Integer> candidatePositions = mergePositions(positionsByLength.get(fileBefore.length()), positionsByLineCount.get(lineCount(fileBefore)));
+				for(int position : candidatePositions) {
+					String key2 = keys2.get(position);
+					if(!identicalFileValues.contains(key2) && !nonIdenticalFileValues.contains(key2)) {
 						String prefix2 = key2.substring(0, key2.indexOf("/"));
 						String fileAfter = fileContentsCurrent.get(key2);
-						if(fileBefore.equals(fileAfter) || StringDistance.trivialCommentChange(fileBefore, fileAfter)) {
+						if(identicalOrTrivialCommentChange(fileBlobIdsBefore.get(key1), fileBefore, fileBlobIdsCurrent.get(key2), fileAfter)) {
 							if(consistentSourceFolderChanges.containsKey(Pair.of(prefix1, prefix2))) {
 								identicalFiles.put(key1, key2);
+								identicalFileValues.add(key2);
 								matchWithConsistentSourceFolderChangeFound = true;
 								break;
 							}
@@ -235,6 +637,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 				if(!matchWithConsistentSourceFolderChangeFound) {
 					if(matches.size() == 1) {
 						identicalFiles.put(key1, matches.get(0));
+						identicalFileValues.add(matches.get(0));
 					}
 					else if(matches.size() > 1) {
 						int minEditDistance = key1.length();
@@ -249,6 +652,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 						}
 						if(bestMatch != null) {
 							identicalFiles.put(key1, bestMatch);
+							identicalFileValues.add(bestMatch);
 						}
 					}
 				}
@@ -290,34 +694,103 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		return moveSourceFolderRefactorings;
 	}
 
+	private static boolean identicalOrTrivialCommentChange(ObjectId blobIdBefore, String fileBefore, ObjectId blobIdAfter, String fileAfter) throws IOException {
+		if(blobIdBefore != null && blobIdAfter != null) {
+			if(blobIdBefore.equals(blobIdAfter)) {
+				return true;
+			}
+		}
+		else if(fileBefore.equals(fileAfter)) {
+			return true;
+		}
+		return StringDistance.trivialCommentChange(fileBefore, fileAfter);
+	}
+
+	//number of lines read by IOUtils.readLines
+	private static int lineCount(String file) {
+		int lineCount = 0;
+		for(int i=0; i<file.length(); i++) {
+			char c = file.charAt(i);
+			if(c == '\n') {
+				lineCount++;
+			}
+			else if(c == '\r') {
+				lineCount++;
+				if(i+1 < file.length() && file.charAt(i+1) == '\n') {
+					i++;
+				}
+			}
+		}
+		if(file.length() > 0) {
+			char last = file.charAt(file.length()-1);
+			if(last != '\n' && last != '\r') {
+				lineCount++;
+			}
+		}
+		return lineCount;
+	}
+
+	//union of two ascending lists of positions, in ascending order
+	private static List<Integer> mergePositions(List<Integer> positions1, List<Integer> positions2) {
+		if(positions1 == null) {
+			return positions2 != null ? positions2 : Collections.emptyList();
+		}
+		if(positions2 == null) {
+			return positions1;
+		}
+		List<Integer> positions = new ArrayList<Integer>(positions1.size() + positions2.size());
+		int i = 0, j = 0;
+		while(i < positions1.size() || j < positions2.size()) {
+			if(j == positions2.size() || (i < positions1.size() && positions1.get(i) < positions2.get(j))) {
+				positions.add(positions1.get(i++));
+			}
+			else if(i == positions1.size() || positions2.get(j) < positions1.get(i)) {
+				positions.add(positions2.get(j++));
+			}
+			else {
+				positions.add(positions1.get(i++));
+				j++;
+			}
+		}
+		return positions;
+	}
+
 	public static void populateFileContents(Repository repository, RevCommit commit,
 			Set<String> filePaths, Map<String, String> fileContents, Set<String> repositoryDirectories) throws Exception {
+		try (ObjectReader reader = repository.newObjectReader()) {
+			populateFileContents(repository, reader, commit, filePaths, fileContents, new HashMap<String, ObjectId>(), repositoryDirectories);
+		}
+	}
+
+	public static void populateFileContents(Repository repository, ObjectReader reader, RevCommit commit,
+			Set<String> filePaths, Map<String, String> fileContents, Map<String, ObjectId> fileBlobIds, Set<String> repositoryDirectories) throws Exception {
+		populateFileContents(repository, reader, commit, filePaths, fileContents, fileBlobIds, repositoryDirectories, new RepositoryDirectoryCache());
+	}
+
+	/**
+	 * Read the given files of a commit by path, and the directories of the commit through the given cache, instead of walking the whole tree of the commit.
+	 */
+	public static void populateFileContents(Repository repository, ObjectReader reader, RevCommit commit,
+			Set<String> filePaths, Map<String, String> fileContents, Map<String, ObjectId> fileBlobIds, Set<String> repositoryDirectories,
+			RepositoryDirectoryCache repositoryDirectoryCache) throws Exception {
 		logger.info("Processing {} {} ...", repository.getDirectory().getParent().toString(), commit.getName());
 		RevTree parentTree = commit.getTree();
-		try (TreeWalk treeWalk = new TreeWalk(repository)) {
-			treeWalk.addTree(parentTree);
-			treeWalk.setRecursive(true);
-			while (treeWalk.next()) {
-				String pathString = treeWalk.getPathString();
-				if(filePaths.contains(pathString)) {
+		//in the order of a tree walk
+		List<String> sortedFilePaths = new ArrayList<String>(filePaths);
+		Collections.sort(sortedFilePaths);
+		for(String pathString : sortedFilePaths) {
+			try (TreeWalk treeWalk = TreeWalk.forPath(repository, reader, pathString, parentTree)) {
+				if(treeWalk != null && !treeWalk.isSubtree()) {
 					ObjectId objectId = treeWalk.getObjectId(0);
-					ObjectLoader loader = repository.open(objectId);
+					ObjectLoader loader = reader.open(objectId);
 					StringWriter writer = new StringWriter();
 					IOUtils.copy(loader.openStream(), writer);
 					fileContents.put(pathString, writer.toString());
-				}
-				if(pathString.endsWith(".java") && pathString.contains("/")) {
-					String directory = pathString.substring(0, pathString.lastIndexOf("/"));
-					repositoryDirectories.add(directory);
-					//include sub-directories
-					String subDirectory = new String(directory);
-					while(subDirectory.contains("/")) {
-						subDirectory = subDirectory.substring(0, subDirectory.lastIndexOf("/"));
-						repositoryDirectories.add(subDirectory);
-					}
+					fileBlobIds.put(pathString, objectId);
 				}
 			}
 		}
+		repositoryDirectories.addAll(repositoryDirectoryCache.getRepositoryDirectories(repository, reader, parentTree));
 	}
 
 	protected List<Refactoring> detectRefactorings(final RefactoringHandler handler, File projectFolder, String cloneURL, String currentCommitId) {
@@ -344,9 +817,11 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 				populateFileContents(currentFolder, filesCurrent, fileContentsCurrent, repositoryDirectoriesCurrent);
 				populateFileContents(parentFolder, filesBefore, fileContentsBefore, repositoryDirectoriesBefore);
 				List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, renamedFilesHint); 
-				UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
-				UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
-				UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
+				UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore, parsingPool);
+				UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent, parsingPool);
+				UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel, classDiffPool, refactoringTypesToConsider);
+				modelDiff.setOperationMovePool(operationMovePool);
+				modelDiff.setCandidatePruning(candidatePruning);
 				refactoringsAtRevision = modelDiff.getRefactorings();
 				refactoringsAtRevision.addAll(moveSourceFolderRefactorings);
 				refactoringsAtRevision = filter(refactoringsAtRevision);
@@ -523,12 +998,12 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 	
 	@Override
 	public void detectAll(Repository repository, String branch, final RefactoringHandler handler) throws Exception {
-		GitService gitService = new GitServiceImpl() {
+		GitService gitService = withRenameLimit(new GitServiceImpl() {
 			@Override
 			public boolean isCommitAnalyzed(String sha1) {
 				return handler.skipCommit(sha1);
 			}
-		};
+		});
 		RevWalk walk = gitService.createAllRevsWalk(repository, branch);
 		try {
 			detect(gitService, repository, handler, walk.iterator());
@@ -539,12 +1014,12 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 
 	@Override
 	public void fetchAndDetectNew(Repository repository, final RefactoringHandler handler) throws Exception {
-		GitService gitService = new GitServiceImpl() {
+		GitService gitService = withRenameLimit(new GitServiceImpl() {
 			@Override
 			public boolean isCommitAnalyzed(String sha1) {
 				return handler.skipCommit(sha1);
 			}
-		};
+		});
 		RevWalk walk = gitService.fetchAndCreateNewRevsWalk(repository);
 		try {
 			detect(gitService, repository, handler, walk.iterator());
@@ -557,10 +1032,30 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		return new UMLModelASTReader(fileContents, repositoryDirectories, false).getUmlModel();
 	}
 
+	public static UMLModel createModel(Map<String, String> fileContents, Set<String> repositoryDirectories, int parsingParallelism) throws Exception {
+		return new UMLModelASTReader(fileContents, repositoryDirectories, false, parsingParallelism).getUmlModel();
+	}
+
+	public static UMLModel createModel(Map<String, String> fileContents, Set<String> repositoryDirectories, ExecutorService parsingPool) throws Exception {
+		return new UMLModelASTReader(fileContents, repositoryDirectories, false, parsingPool).getUmlModel();
+	}
+
+	public static UMLModel createModel(Map<String, String> fileContents, Set<String> repositoryDirectories, ExecutorService parsingPool, SymbolTable symbols) throws Exception {
+		return new UMLModelASTReader(fileContents, null, repositoryDirectories, false, parsingPool, symbols).getUmlModel();
+	}
+
 	public static UMLModel createModelForASTDiff(Map<String, String> fileContents, Set<String> repositoryDirectories) throws Exception {
 		return new UMLModelASTReader(fileContents, repositoryDirectories, true).getUmlModel();
 	}
 
+	public static UMLModel createModelForASTDiff(Map<String, String> fileContents, Set<String> repositoryDirectories, int parsingParallelism) throws Exception {
+		return new UMLModelASTReader(fileContents, repositoryDirectories, true, parsingParallelism).getUmlModel();
+	}
+
+	public static UMLModel createModelForASTDiff(Map<String, String> fileContents, Set<String> repositoryDirectories, ExecutorService parsingPool) throws Exception {
+		return new UMLModelASTReader(fileContents, repositoryDirectories, true, parsingPool).getUmlModel();
+	}
+
 	private static final String systemFileSeparator = Matcher.quoteReplacement(File.separator);
 
 	private static List<String> getJavaFilePaths(File folder) throws IOException {
@@ -601,8 +1096,8 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		String id = rootDirBefore + " -> " + rootDirCurrent;
 		try {
 			List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsAfter, Collections.emptyMap()); 
-			UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
-			UMLModel currentUMLModel = createModel(fileContentsAfter, repositoryDirectoriesCurrent);
+			UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore, parsingPool);
+			UMLModel currentUMLModel = createModel(fileContentsAfter, repositoryDirectoriesCurrent, parsingPool);
 			UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
 			refactorings = modelDiff.getRefactorings();
 			refactorings.addAll(moveSourceFolderRefactorings);
@@ -635,8 +1130,8 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 					populateFileContents(nextFile, getJavaFilePaths(nextFile), fileContentsCurrent, repositoryDirectoriesCurrent);
 					populateFileContents(previousFile, getJavaFilePaths(previousFile), fileContentsBefore, repositoryDirectoriesBefore);
 					List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, Collections.emptyMap()); 
-					UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
-					UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
+					UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore, parsingPool);
+					UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent, parsingPool);
 					UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
 					refactorings = modelDiff.getRefactorings();
 					refactorings.addAll(moveSourceFolderRefactorings);
@@ -653,8 +1148,8 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 						populateFileContents(nextFile.getParentFile(), List.of(nextFileName), fileContentsCurrent, repositoryDirectoriesCurrent);
 						populateFileContents(previousFile.getParentFile(), List.of(previousFileName), fileContentsBefore, repositoryDirectoriesBefore);
 						List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, Collections.emptyMap()); 
-						UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore);
-						UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent);
+						UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore, parsingPool);
+						UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent, parsingPool);
 						UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
 						refactorings = modelDiff.getRefactorings();
 						refactorings.addAll(moveSourceFolderRefactorings);
@@ -675,7 +1170,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		String cloneURL = repository.getConfig().getString("remote", "origin", "url");
 		File metadataFolder = repository.getDirectory();
 		File projectFolder = metadataFolder.getParentFile();
-		GitService gitService = new GitServiceImpl();
+		GitService gitService = withRenameLimit(new GitServiceImpl());
 		RevWalk walk = new RevWalk(repository);
 		try {
 			RevCommit commit = walk.parseCommit(repository.resolve(commitId));
@@ -717,20 +1212,44 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		}
 	}
 
+	/**
+	 * @return "RM1" with the default options. The options that change the detected refactorings, namely the refactoring types to consider,
+	 * the candidate pruning and the rename limit, are part of the id, so that the results of runs with different options
+	 * are kept apart in a {@link CommitResultStore}.
+	 */
 	@Override
 	public String getConfigId() {
-	    return "RM1";
+		StringBuilder options = new StringBuilder();
+		if (refactoringTypesToConsider != null && !refactoringTypesToConsider.equals(new HashSet<RefactoringType>(Arrays.asList(RefactoringType.ALL)))) {
+			List<String> typeNames = new ArrayList<String>();
+			for (RefactoringType type : refactoringTypesToConsider) {
+				typeNames.add(type.name());
+			}
+			Collections.sort(typeNames);
+			options.append("types=").append(String.join(",", typeNames)).append(";");
+		}
+		if (candidatePruning) {
+			options.append("candidatePruning;");
+		}
+		if (renameLimit > 0) {
+			options.append("renameLimit=").append(renameLimit).append(";");
+		}
+		if (options.length() == 0) {
+			return "RM1";
+		}
+		//the id is also used in file names, so long option lists are replaced by their digest
+		return "RM1-" + UUID.nameUUIDFromBytes(options.toString().getBytes(StandardCharsets.UTF_8));
 	}
 
 	@Override
 	public void detectBetweenTags(Repository repository, String startTag, String endTag, RefactoringHandler handler)
 			throws Exception {
-		GitService gitService = new GitServiceImpl() {
+		GitService gitService = withRenameLimit(new GitServiceImpl() {
 			@Override
 			public boolean isCommitAnalyzed(String sha1) {
 				return handler.skipCommit(sha1);
 			}
-		};
+		});
 		
 		Iterable<RevCommit> walk = gitService.createRevsWalkBetweenTags(repository, startTag, endTag);
 		detect(gitService, repository, handler, walk.iterator());
@@ -739,17 +1258,42 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 	@Override
 	public void detectBetweenCommits(Repository repository, String startCommitId, String endCommitId,
 			RefactoringHandler handler) throws Exception {
-		GitService gitService = new GitServiceImpl() {
+		GitService gitService = withRenameLimit(new GitServiceImpl() {
 			@Override
 			public boolean isCommitAnalyzed(String sha1) {
 				return handler.skipCommit(sha1);
 			}
-		};
+		});
 		
 		Iterable<RevCommit> walk = gitService.createRevsWalkBetweenCommits(repository, startCommitId, endCommitId);
 		detect(gitService, repository, handler, walk.iterator());
 	}
 
+	/**
+	 * Analyze the commits of the given branch lazily, as the returned stream is consumed. The commits are analyzed by a pool of
+	 * {@link #setParallelism(int) parallelism} worker threads, at most twice the parallelism commits ahead of the consumer,
+	 * so that a slow consumer slows down the analysis instead of results being buffered.
+	 * The results are in the order of the commit walk, unless {@link #setOrderedDelivery(boolean) ordered delivery} is disabled.
+	 * The stream must be closed to stop the workers, e.g. with a try-with-resources statement.
+	 */
+	public Stream<CommitResult> streamAll(Repository repository, String branch) throws Exception {
+		GitService gitService = withRenameLimit(new GitServiceImpl());
+		RevWalk walk = gitService.createAllRevsWalk(repository, branch);
+		ParallelCommitDetector detector = new ParallelCommitDetector(this, gitService, repository, parallelism, orderedDelivery, commitTimeout);
+		return detector.stream(walk.iterator()).onClose(walk::dispose);
+	}
+
+	/**
+	 * Analyze the commits between the given commits lazily, as the returned stream is consumed (see {@link #streamAll(Repository, String)}).
+	 * The stream must be closed to stop the workers.
+	 */
+	public Stream<CommitResult> streamBetweenCommits(Repository repository, String startCommitId, String endCommitId) throws Exception {
+		GitService gitService = withRenameLimit(new GitServiceImpl());
+		Iterable<RevCommit> walk = gitService.createRevsWalkBetweenCommits(repository, startCommitId, endCommitId);
+		ParallelCommitDetector detector = new ParallelCommitDetector(this, gitService, repository, parallelism, orderedDelivery, commitTimeout);
+		return detector.stream(walk.iterator());
+	}
+
 	@Override
 	public void detectAtCommit(String gitURL, String commitId, RefactoringHandler handler, int timeout) {
 		ExecutorService service = Executors.newSingleThreadExecutor();
@@ -779,8 +1323,8 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			Map<String, String> renamedFilesHint = new ConcurrentHashMap<String, String>();
 			populateWithGitHubAPI(gitURL, currentCommitId, fileContentsBefore, fileContentsCurrent, renamedFilesHint, repositoryDirectoriesBefore, repositoryDirectoriesCurrent);
 			List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, renamedFilesHint);
-			UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
-			UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
+			UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent, parsingPool);
+			UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore, parsingPool);
 			UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
 			refactoringsAtRevision = modelDiff.getRefactorings();
 			refactoringsAtRevision.addAll(moveSourceFolderRefactorings);
@@ -1036,7 +1580,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		String cloneURL = repository.getConfig().getString("remote", "origin", "url");
 		File metadataFolder = repository.getDirectory();
 		File projectFolder = metadataFolder.getParentFile();
-		GitService gitService = new GitServiceImpl();
+		GitService gitService = withRenameLimit(new GitServiceImpl());
 		RevWalk walk = new RevWalk(repository);
 		try {
 			RevCommit currentCommit = walk.parseCommit(repository.resolve(commitId));
@@ -1058,10 +1602,10 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 					populateFileContents(repository, parentCommit, filePathsBefore, fileContentsBefore, repositoryDirectoriesBefore);
 					populateFileContents(repository, currentCommit, filePathsCurrent, fileContentsCurrent, repositoryDirectoriesCurrent);
 					List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, renamedFilesHint);
-					UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore);
-					UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent);
+					UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore, parsingPool);
+					UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent, parsingPool);
 					UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
-					ProjectASTDiffer differ = new ProjectASTDiffer(modelDiff);
+					ProjectASTDiffer differ = new ProjectASTDiffer(modelDiff, astDiffPool);
 					for(ASTDiff diff : differ.getDiffSet()) {
 						diff.setSrcContents(fileContentsBefore.get(diff.getSrcPath()));
 						diff.setDstContents(fileContentsCurrent.get(diff.getDstPath()));
@@ -1095,10 +1639,10 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 					populateFileContents(currentFolder, filesCurrent, fileContentsCurrent, repositoryDirectoriesCurrent);
 					populateFileContents(parentFolder, filesBefore, fileContentsBefore, repositoryDirectoriesBefore);
 					List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, renamedFilesHint); 
-					UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore);
-					UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent);
+					UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore, parsingPool);
+					UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent, parsingPool);
 					UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
-					ProjectASTDiffer differ = new ProjectASTDiffer(modelDiff);
+					ProjectASTDiffer differ = new ProjectASTDiffer(modelDiff, astDiffPool);
 					for(ASTDiff diff : differ.getDiffSet()) {
 						diff.setSrcContents(fileContentsBefore.get(diff.getSrcPath()));
 						diff.setDstContents(fileContentsCurrent.get(diff.getDstPath()));
@@ -1134,10 +1678,10 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 					Map<String, String> renamedFilesHint = new ConcurrentHashMap<String, String>();
 					populateWithGitHubAPI(gitURL, commitId, fileContentsBefore, fileContentsCurrent, renamedFilesHint, repositoryDirectoriesBefore, repositoryDirectoriesCurrent);
 					List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, renamedFilesHint);
-					UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent);
-					UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore);
+					UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent, parsingPool);
+					UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore, parsingPool);
 					UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
-					ProjectASTDiffer differ = new ProjectASTDiffer(modelDiff);
+					ProjectASTDiffer differ = new ProjectASTDiffer(modelDiff, astDiffPool);
 					for(ASTDiff diff : differ.getDiffSet()) {
 						diff.setSrcContents(fileContentsBefore.get(diff.getSrcPath()));
 						diff.setDstContents(fileContentsCurrent.get(diff.getDstPath()));
@@ -1186,10 +1730,10 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 					populateFileContents(nextFile, getJavaFilePaths(nextFile), fileContentsCurrent, repositoryDirectoriesCurrent);
 					populateFileContents(previousFile, getJavaFilePaths(previousFile), fileContentsBefore, repositoryDirectoriesBefore);
 					List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, Collections.emptyMap()); 
-					UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore);
-					UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent);
+					UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore, parsingPool);
+					UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent, parsingPool);
 					UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
-					ProjectASTDiffer differ = new ProjectASTDiffer(modelDiff);
+					ProjectASTDiffer differ = new ProjectASTDiffer(modelDiff, astDiffPool);
 					for(ASTDiff diff : differ.getDiffSet()) {
 						diff.setSrcContents(fileContentsBefore.get(diff.getSrcPath()));
 						diff.setDstContents(fileContentsCurrent.get(diff.getDstPath()));
@@ -1207,10 +1751,10 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 						populateFileContents(nextFile.getParentFile(), List.of(nextFileName), fileContentsCurrent, repositoryDirectoriesCurrent);
 						populateFileContents(previousFile.getParentFile(), List.of(previousFileName), fileContentsBefore, repositoryDirectoriesBefore);
 						List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, Collections.emptyMap()); 
-						UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore);
-						UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent);
+						UMLModel parentUMLModel = createModelForASTDiff(fileContentsBefore, repositoryDirectoriesBefore, parsingPool);
+						UMLModel currentUMLModel = createModelForASTDiff(fileContentsCurrent, repositoryDirectoriesCurrent, parsingPool);
 						UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel);
-						ProjectASTDiffer differ = new ProjectASTDiffer(modelDiff);
+						ProjectASTDiffer differ = new ProjectASTDiffer(modelDiff, astDiffPool);
 						for(ASTDiff diff : differ.getDiffSet()) {
 							diff.setSrcContents(fileContentsBefore.get(diff.getSrcPath()));
 							diff.setDstContents(fileContentsCurrent.get(diff.getDstPath()));
@@ -0,0 +1,283 @@
+package org.refactoringminer.rm1;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.refactoringminer.api.CancellationToken;
+import org.refactoringminer.api.CancellationToken.Phase;
+import org.refactoringminer.api.CommitResult;
+import org.refactoringminer.api.GitService;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Analyzes the commits of a rev walk on a bounded work-stealing pool.
+ * Each worker thread reads blobs through its own {@link ObjectReader}, while all
+ * {@link RefactoringHandler} callbacks are invoked from the thread calling {@link #detect(RefactoringHandler, Iterator)}.
+ * Alternatively, {@link #stream(Iterator)} returns the results to be pulled by the caller.
+ */
+class ParallelCommitDetector {
+
+	private final static Logger logger = LoggerFactory.getLogger(ParallelCommitDetector.class);
+	private final GitHistoryRefactoringMinerImpl miner;
+	private final GitService gitService;
+	private final Repository repository;
+	private final int parallelism;
+	private final boolean orderedDelivery;
+	private final int commitTimeout;
+	private final Queue<ObjectReader> openReaders = new ConcurrentLinkedQueue<ObjectReader>();
+	private final ThreadLocal<ObjectReader> workerReader;
+	private int commitsCount = 0;
+	private int errorCommitsCount = 0;
+	private int refactoringsCount = 0;
+
+	ParallelCommitDetector(GitHistoryRefactoringMinerImpl miner, GitService gitService, Repository repository,
+			int parallelism, boolean orderedDelivery, int commitTimeout) {
+		this.miner = miner;
+		this.gitService = gitService;
+		this.repository = repository;
+		this.parallelism = parallelism;
+		this.orderedDelivery = orderedDelivery;
+		this.commitTimeout = commitTimeout;
+		this.workerReader = ThreadLocal.withInitial(() -> {
+			ObjectReader reader = repository.newObjectReader();
+			openReaders.add(reader);
+			return reader;
+		});
+	}
+
+	void detect(RefactoringHandler handler, Iterator<RevCommit> i) {
+		String projectName = repository.getDirectory().getParentFile().getName();
+		long time = System.currentTimeMillis();
+		try (Results results = new Results(i)) {
+			while (results.hasNext()) {
+				deliver(handler, results.next());
+				long time2 = System.currentTimeMillis();
+				if ((time2 - time) > 20000) {
+					time = time2;
+					logger.info(String.format("Processing %s [Commits: %d, Errors: %d, Refactorings: %d]", projectName, commitsCount, errorCommitsCount, refactoringsCount));
+				}
+			}
+		}
+
+		handler.onFinish(refactoringsCount, commitsCount, errorCommitsCount);
+		logger.info(String.format("Analyzed %s [Commits: %d, Errors: %d, Refactorings: %d]", projectName, commitsCount, errorCommitsCount, refactoringsCount));
+	}
+
+	/**
+	 * @return The results of the commits of the walk. The commits are analyzed when the results are consumed, at most twice the parallelism ahead of the consumer.
+	 * The stream must be closed to stop the workers.
+	 */
+	Stream<CommitResult> stream(Iterator<RevCommit> i) {
+		Results results = new Results(i);
+		int characteristics = orderedDelivery ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL;
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results, characteristics), false)
+				.onClose(results::close);
+	}
+
+	/**
+	 * Iterator over the results of the commits of a walk, submitting commits to the pool as the results are consumed.
+	 */
+	private class Results implements Iterator<CommitResult>, AutoCloseable {
+		private final Iterator<RevCommit> commits;
+		//bound the number of commits in flight, so that the walk does not run ahead of the workers
+		private final int maxPendingCommits = 2 * parallelism;
+		private final ExecutorService pool = Executors.newWorkStealingPool(parallelism);
+		private final ScheduledExecutorService watchdog = commitTimeout > 0 ?
+				Executors.newSingleThreadScheduledExecutor(GitHistoryRefactoringMinerImpl.newDaemonThreadFactory("commit-watchdog")) : null;
+		private final CompletionService<CommitResult> completionService = orderedDelivery ? null : new ExecutorCompletionService<CommitResult>(pool);
+		private final Deque<Future<CommitResult>> pending = new ArrayDeque<Future<CommitResult>>();
+
+		private Results(Iterator<RevCommit> commits) {
+			this.commits = commits;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !pending.isEmpty() || commits.hasNext();
+		}
+
+		@Override
+		public CommitResult next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			while (pending.size() < maxPendingCommits && commits.hasNext()) {
+				RevCommit currentCommit = commits.next();
+				if (completionService != null) {
+					pending.add(completionService.submit(() -> analyze(currentCommit, watchdog)));
+				}
+				else {
+					pending.add(pool.submit(() -> analyze(currentCommit, watchdog)));
+				}
+			}
+			return nextResult();
+		}
+
+		private CommitResult nextResult() {
+			try {
+				Future<CommitResult> future;
+				if (completionService != null) {
+					future = completionService.take();
+					pending.remove(future);
+				}
+				else {
+					future = pending.removeFirst();
+				}
+				return future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				//analyze() catches all exceptions, so only errors can reach this point
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+		@Override
+		public void close() {
+			pool.shutdownNow();
+			if (watchdog != null) {
+				watchdog.shutdownNow();
+			}
+			try {
+				pool.awaitTermination(1, TimeUnit.MINUTES);
+				if (watchdog != null) {
+					watchdog.awaitTermination(1, TimeUnit.MINUTES);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			ObjectReader reader;
+			while ((reader = openReaders.poll()) != null) {
+				reader.close();
+			}
+		}
+	}
+
+	private void deliver(RefactoringHandler handler, CommitResult result) {
+		if (result.getException() == null) {
+			try {
+				if (result.isPartial()) {
+					handler.handlePartial(result.getCommitId(), result.getRefactorings(), result.getExhaustedPhases());
+				}
+				else {
+					handler.handle(result.getCommitId(), result.getRefactorings());
+				}
+				refactoringsCount += result.getRefactorings().size();
+			} catch (Exception e) {
+				reportException(handler, result.getCommitId(), e);
+			}
+		}
+		else {
+			reportException(handler, result.getCommitId(), result.getException());
+		}
+		commitsCount++;
+	}
+
+	private void reportException(RefactoringHandler handler, String commitId, Exception e) {
+		if (e instanceof RefactoringMinerTimedOutException) {
+			logger.warn(String.format("Ignored revision %s due to timeout", commitId), e);
+		}
+		else {
+			logger.warn(String.format("Ignored revision %s due to error", commitId), e);
+		}
+		handler.handleException(commitId, e);
+		errorCommitsCount++;
+	}
+
+	private CommitResult analyze(RevCommit currentCommit, ScheduledExecutorService watchdog) {
+		String commitId = currentCommit.getId().getName();
+		CommitDeadline deadline = null;
+		ScheduledFuture<?> expiration = null;
+		if (watchdog != null) {
+			deadline = new CommitDeadline(Thread.currentThread());
+			expiration = watchdog.schedule(deadline::expire, commitTimeout, TimeUnit.SECONDS);
+		}
+		List<Refactoring> refactorings = null;
+		Exception exception = null;
+		CancellationToken token = miner.newCancellationToken();
+		if (token != null) {
+			token.attach();
+		}
+		boolean stored = false;
+		try {
+			refactorings = miner.loadStoredRefactorings(commitId);
+			stored = refactorings != null;
+			if (!stored) {
+				refactorings = miner.detectRefactorings(gitService, repository, workerReader.get(), currentCommit);
+			}
+		} catch (Exception e) {
+			exception = e;
+		} finally {
+			CancellationToken.detach();
+			if (deadline != null) {
+				expiration.cancel(false);
+				if (deadline.finish()) {
+					refactorings = null;
+					exception = new RefactoringMinerTimedOutException();
+				}
+				//clear a possible interrupt, so that it does not leak into the next commit analyzed by this worker
+				Thread.interrupted();
+			}
+		}
+		Set<Phase> exhaustedPhases = token != null && exception == null ? token.getExhaustedPhases() : Collections.<Phase>emptySet();
+		//only the complete results of the commits analyzed now are stored, the results loaded from the store are already there
+		if (exception == null && exhaustedPhases.isEmpty() && !stored) {
+			try {
+				miner.storeRefactorings(commitId, refactorings);
+			} catch (Exception e) {
+				return new CommitResult(commitId, null, e, Collections.<Phase>emptySet());
+			}
+		}
+		return new CommitResult(commitId, refactorings, exception, exhaustedPhases);
+	}
+
+	private static class CommitDeadline {
+		private final Thread worker;
+		private boolean running = true;
+		private boolean expired = false;
+
+		private CommitDeadline(Thread worker) {
+			this.worker = worker;
+		}
+
+		private synchronized void expire() {
+			if (running) {
+				expired = true;
+				worker.interrupt();
+			}
+		}
+
+		private synchronized boolean finish() {
+			running = false;
+			return expired;
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package org.refactoringminer.rm1;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.refactoringminer.api.CancellationToken;
+import org.refactoringminer.api.GitService;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Analyzes the commits of a rev walk one at a time, in a pipeline of three stages joined by bounded queues:
+ * a read stage that walks the commits and loads the changed blobs, a parse stage that builds the models,
+ * and a diff stage that infers the refactorings. While a commit is diffed, the next commit is parsed and the one after it is read,
+ * so the blob inflation and the parsing of a commit overlap with the analysis of the previous commits.
+ * <p>
+ * The read and parse stages run on their own threads. The diff stage and all {@link RefactoringHandler} callbacks run
+ * on the thread calling {@link #detect(RefactoringHandler, Iterator)}, and the commits are delivered in the order of the walk.
+ */
+class PipelinedCommitDetector {
+
+	private final static Logger logger = LoggerFactory.getLogger(PipelinedCommitDetector.class);
+	//number of commits buffered between two stages
+	private static final int QUEUE_CAPACITY = 2;
+	private final GitHistoryRefactoringMinerImpl miner;
+	private final GitService gitService;
+	private final Repository repository;
+	private int commitsCount = 0;
+	private int errorCommitsCount = 0;
+	private int refactoringsCount = 0;
+
+	PipelinedCommitDetector(GitHistoryRefactoringMinerImpl miner, GitService gitService, Repository repository) {
+		this.miner = miner;
+		this.gitService = gitService;
+		this.repository = repository;
+	}
+
+	void detect(RefactoringHandler handler, Iterator<RevCommit> i) {
+		String projectName = repository.getDirectory().getParentFile().getName();
+		BlockingQueue<PipelineItem> readQueue = new ArrayBlockingQueue<PipelineItem>(QUEUE_CAPACITY);
+		BlockingQueue<PipelineItem> parseQueue = new ArrayBlockingQueue<PipelineItem>(QUEUE_CAPACITY);
+		ExecutorService stages = Executors.newFixedThreadPool(2);
+		long time = System.currentTimeMillis();
+		try {
+			stages.execute(() -> read(i, readQueue));
+			stages.execute(() -> parse(readQueue, parseQueue));
+			PipelineItem item;
+			while ((item = parseQueue.take()).commitId != null) {
+				diff(handler, item);
+				long time2 = System.currentTimeMillis();
+				if ((time2 - time) > 20000) {
+					time = time2;
+					logger.info(String.format("Processing %s [Commits: %d, Errors: %d, Refactorings: %d]", projectName, commitsCount, errorCommitsCount, refactoringsCount));
+				}
+			}
+			if (item.walkFailure instanceof Error) {
+				throw (Error) item.walkFailure;
+			}
+			if (item.walkFailure != null) {
+				//the commit walk failed, as it would when the commits are analyzed sequentially
+				throw (RuntimeException) item.walkFailure;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} finally {
+			stages.shutdownNow();
+			try {
+				stages.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		handler.onFinish(refactoringsCount, commitsCount, errorCommitsCount);
+		logger.info(String.format("Analyzed %s [Commits: %d, Errors: %d, Refactorings: %d]", projectName, commitsCount, errorCommitsCount, refactoringsCount));
+	}
+
+	private void read(Iterator<RevCommit> i, BlockingQueue<PipelineItem> readQueue) {
+		Throwable walkFailure = null;
+		try (ObjectReader reader = repository.newObjectReader()) {
+			while (i.hasNext()) {
+				RevCommit currentCommit = i.next();
+				PipelineItem item = new PipelineItem(currentCommit.getId().getName(), miner.newCancellationToken());
+				try {
+					item.refactorings = miner.loadStoredRefactorings(item.commitId);
+					if (item.refactorings == null) {
+						item.attach();
+						item.analysis = miner.readCommit(gitService, repository, reader, currentCommit);
+					}
+				} catch (Exception e) {
+					item.exception = e;
+				} finally {
+					CancellationToken.detach();
+				}
+				readQueue.put(item);
+			}
+		} catch (InterruptedException e) {
+			//the pipeline has been shut down
+			return;
+		} catch (RuntimeException | Error e) {
+			walkFailure = e;
+		}
+		endOfStream(readQueue, walkFailure);
+	}
+
+	private void parse(BlockingQueue<PipelineItem> readQueue, BlockingQueue<PipelineItem> parseQueue) {
+		try {
+			PipelineItem item;
+			while ((item = readQueue.take()).commitId != null) {
+				if (item.analysis != null && item.exception == null) {
+					try {
+						item.attach();
+						miner.parseCommit(item.analysis);
+					} catch (Exception e) {
+						item.exception = e;
+					} finally {
+						CancellationToken.detach();
+						//only the models are needed by the diff stage
+						item.analysis.fileContentsBefore.clear();
+						item.analysis.fileContentsCurrent.clear();
+					}
+				}
+				parseQueue.put(item);
+			}
+			endOfStream(parseQueue, item.walkFailure);
+		} catch (InterruptedException e) {
+			//the pipeline has been shut down
+		} catch (Error e) {
+			endOfStream(parseQueue, e);
+		}
+	}
+
+	private void endOfStream(BlockingQueue<PipelineItem> queue, Throwable walkFailure) {
+		PipelineItem end = new PipelineItem(null, null);
+		end.walkFailure = walkFailure;
+		try {
+			queue.put(end);
+		} catch (InterruptedException e) {
+			//the pipeline has been shut down
+		}
+	}
+
+	private void diff(RefactoringHandler handler, PipelineItem item) {
+		try {
+			if (item.exception != null) {
+				throw item.exception;
+			}
+			boolean partial = false;
+			if (item.refactorings == null) {
+				item.attach();
+				try {
+					item.refactorings = miner.diffCommit(item.analysis);
+				} finally {
+					CancellationToken.detach();
+				}
+				partial = item.token != null && item.token.isPartial();
+				if (!partial) {
+					miner.storeRefactorings(item.commitId, item.refactorings);
+				}
+			}
+			if (partial) {
+				handler.handlePartial(item.commitId, item.refactorings, item.token.getExhaustedPhases());
+			}
+			else {
+				handler.handle(item.commitId, item.refactorings);
+			}
+			refactoringsCount += item.refactorings.size();
+		} catch (Exception e) {
+			logger.warn(String.format("Ignored revision %s due to error", item.commitId), e);
+			handler.handleException(item.commitId, e);
+			errorCommitsCount++;
+		}
+		commitsCount++;
+	}
+
+	/**
+	 * A commit passed between the stages. The last item of a stream has no commit id, and carries the failure that ended the commit walk, if any.
+	 */
+	private static class PipelineItem {
+		private final String commitId;
+		private final CancellationToken token;
+		private CommitAnalysis analysis;
+		private List<Refactoring> refactorings;
+		private Exception exception;
+		private Throwable walkFailure;
+
+		private PipelineItem(String commitId, CancellationToken token) {
+			this.commitId = commitId;
+			this.token = token;
+		}
+
+		private void attach() {
+			if (token != null) {
+				token.attach();
+			}
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package org.refactoringminer.rm1;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Cache of the directories containing Java files in the trees of a repository.
+ * When walking a history, consecutive trees differ in a few files. The directories of a tree not in the cache are derived from the
+ * ones of the most recently used tree, by applying the Java files added and deleted between the two trees, so that only the subtrees
+ * that differ are walked instead of the whole tree.
+ * The cache can be used by several threads, which only hold its lock while reading and updating the cached counts.
+ * The counts of a tree are never modified once cached.
+ */
+public class RepositoryDirectoryCache {
+	private static final int MAXIMUM_SIZE = 4;
+	//number of Java files directly in each directory, per tree
+	private final Map<ObjectId, Map<String, Integer>> javaFileCounts = new LinkedHashMap<ObjectId, Map<String, Integer>>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ObjectId, Map<String, Integer>> eldest) {
+			return size() > MAXIMUM_SIZE;
+		}
+	};
+	private ObjectId lastTree;
+
+	/**
+	 * @return the directories of the given tree containing Java files, and their parent directories
+	 */
+	public Set<String> getRepositoryDirectories(Repository repository, ObjectReader reader, RevTree tree) throws IOException {
+		Map<String, Integer> counts;
+		ObjectId previousTree;
+		Map<String, Integer> previousCounts;
+		synchronized(this) {
+			counts = javaFileCounts.get(tree);
+			previousTree = lastTree;
+			previousCounts = previousTree != null ? javaFileCounts.get(previousTree) : null;
+			if(counts != null) {
+				lastTree = tree.copy();
+			}
+		}
+		if(counts == null) {
+			//the trees are walked without holding the lock, so that the commits analyzed concurrently are not serialized
+			counts = previousCounts != null ? applyChanges(repository, reader, previousTree, previousCounts, tree) : countJavaFiles(repository, reader, tree);
+			ObjectId treeId = tree.copy();
+			synchronized(this) {
+				javaFileCounts.put(treeId, counts);
+				lastTree = treeId;
+			}
+		}
+		Set<String> repositoryDirectories = new LinkedHashSet<String>();
+		for(String directory : counts.keySet()) {
+			repositoryDirectories.add(directory);
+			//include sub-directories
+			String subDirectory = directory;
+			while(subDirectory.contains("/")) {
+				subDirectory = subDirectory.substring(0, subDirectory.lastIndexOf("/"));
+				repositoryDirectories.add(subDirectory);
+			}
+		}
+		return repositoryDirectories;
+	}
+
+	private static Map<String, Integer> countJavaFiles(Repository repository, ObjectReader reader, RevTree tree) throws IOException {
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		try (TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+			treeWalk.addTree(tree);
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(PathSuffixFilter.create(".java"));
+			while (treeWalk.next()) {
+				addJavaFile(counts, treeWalk.getPathString(), 1);
+			}
+		}
+		return counts;
+	}
+
+	private static Map<String, Integer> applyChanges(Repository repository, ObjectReader reader, ObjectId previousTree, Map<String, Integer> previousCounts, RevTree tree) throws IOException {
+		Map<String, Integer> counts = new HashMap<String, Integer>(previousCounts);
+		try (TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+			treeWalk.addTree(previousTree);
+			treeWalk.addTree(tree);
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, PathSuffixFilter.create(".java")));
+			while (treeWalk.next()) {
+				String pathString = treeWalk.getPathString();
+				if(isFile(treeWalk.getRawMode(0))) {
+					addJavaFile(counts, pathString, -1);
+				}
+				if(isFile(treeWalk.getRawMode(1))) {
+					addJavaFile(counts, pathString, 1);
+				}
+			}
+		}
+		return counts;
+	}
+
+	private static boolean isFile(int rawMode) {
+		return rawMode != FileMode.TYPE_MISSING && (rawMode & FileMode.TYPE_MASK) != FileMode.TYPE_TREE;
+	}
+
+	private static void addJavaFile(Map<String, Integer> counts, String pathString, int delta) {
+		if(pathString.contains("/")) {
+			String directory = pathString.substring(0, pathString.lastIndexOf("/"));
+			int count = counts.getOrDefault(directory, 0) + delta;
+			if(count > 0) {
+				counts.put(directory, count);
+			}
+			else {
+				counts.remove(directory);
+			}
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package org.refactoringminer.rm1;
+
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringType;
+
+import gr.uom.java.xmi.diff.CodeRange;
+
+/**
+ * A refactoring read back from a {@link CommitResultStore}.
+ * It keeps everything exposed by the {@link Refactoring} interface, so that {@link #toString()} and {@link #toJSON()}
+ * produce the same output as the refactoring originally detected.
+ */
+class StoredRefactoring implements Refactoring {
+	private final RefactoringType refactoringType;
+	private final String name;
+	private final String description;
+	private final List<CodeRange> leftSide;
+	private final List<CodeRange> rightSide;
+	private final Set<ImmutablePair<String, String>> involvedClassesBeforeRefactoring;
+	private final Set<ImmutablePair<String, String>> involvedClassesAfterRefactoring;
+
+	StoredRefactoring(RefactoringType refactoringType, String name, String description,
+			List<CodeRange> leftSide, List<CodeRange> rightSide,
+			Set<ImmutablePair<String, String>> involvedClassesBeforeRefactoring,
+			Set<ImmutablePair<String, String>> involvedClassesAfterRefactoring) {
+		this.refactoringType = refactoringType;
+		this.name = name;
+		this.description = description;
+		this.leftSide = leftSide;
+		this.rightSide = rightSide;
+		this.involvedClassesBeforeRefactoring = involvedClassesBeforeRefactoring;
+		this.involvedClassesAfterRefactoring = involvedClassesAfterRefactoring;
+	}
+
+	@Override
+	public RefactoringType getRefactoringType() {
+		return refactoringType;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return description;
+	}
+
+	@Override
+	public List<CodeRange> leftSide() {
+		return leftSide;
+	}
+
+	@Override
+	public List<CodeRange> rightSide() {
+		return rightSide;
+	}
+
+	@Override
+	public Set<ImmutablePair<String, String>> getInvolvedClassesBeforeRefactoring() {
+		return involvedClassesBeforeRefactoring;
+	}
+
+	@Override
+	public Set<ImmutablePair<String, String>> getInvolvedClassesAfterRefactoring() {
+		return involvedClassesAfterRefactoring;
+	}
+}
@@ -0,0 +1,121 @@
+package org.refactoringminer.rm1;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jgit.lib.ObjectId;
+
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.decomposition.SymbolTable;
+
+/**
+ * Least-recently-used cache of the compilation units parsed from git blobs.
+ * When walking a linear history, every file version is first parsed as part of the child commit
+ * and then again as part of the parent of the next commit. The cache lets the second use reuse the first parse.
+ * Only the compilation units are cached, and every model is created from scratch out of them, because the model elements
+ * are modified while diffing two models and cannot be shared by the models of consecutive commits.
+ * Compilation units are keyed by blob id and file path, because the file path is recorded in the location information of the model elements.
+ * The parsed compilation unit of a file does not depend on the other options of the model, such as the creation of the tree contexts of the AST diff.
+ * <p>
+ * Each cached compilation unit is a whole JDT AST, which takes several times the size of its source file in memory.
+ */
+public class UMLModelCache {
+	private final Map<CompilationUnitKey, CompilationUnit> compilationUnits;
+	private int hits;
+	private int misses;
+
+	/**
+	 * @param maximumSize The maximum number of compilation units kept in the cache. This is a number of whole ASTs, not a memory budget.
+	 */
+	public UMLModelCache(int maximumSize) {
+		this.compilationUnits = new LinkedHashMap<CompilationUnitKey, CompilationUnit>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CompilationUnitKey, CompilationUnit> eldest) {
+				return size() > maximumSize;
+			}
+		};
+	}
+
+	/**
+	 * Build the model of the given files, parsing only the files whose blob has not been parsed before at the same path.
+	 *
+	 * @param fileContents A map where the keys are file paths, and the values are the corresponding file contents.
+	 * @param fileBlobIds A map where the keys are file paths, and the values are the ids of the corresponding git blobs.
+	 * Files without a blob id are always parsed and never cached.
+	 * @param repositoryDirectories The directories of the repository.
+	 * @param astDiff If true, the tree contexts of the files are also created.
+	 * @param parsingPool The pool used to parse the files and create the model, or null to do it sequentially.
+	 * @param symbols The table interning the strings of the model, or null to keep them as created.
+	 */
+	public synchronized UMLModel createModel(Map<String, String> fileContents, Map<String, ObjectId> fileBlobIds, Set<String> repositoryDirectories,
+			boolean astDiff, ExecutorService parsingPool, SymbolTable symbols) {
+		Map<String, CompilationUnit> parsed = new HashMap<String, CompilationUnit>();
+		Map<String, String> notParsed = new LinkedHashMap<String, String>();
+		for(String filePath : fileContents.keySet()) {
+			ObjectId blobId = fileBlobIds.get(filePath);
+			CompilationUnit compilationUnit = blobId != null ? compilationUnits.get(new CompilationUnitKey(blobId, filePath)) : null;
+			if(compilationUnit != null) {
+				parsed.put(filePath, compilationUnit);
+				hits++;
+			}
+			else {
+				notParsed.put(filePath, fileContents.get(filePath));
+			}
+		}
+		Map<String, CompilationUnit> newlyParsed = UMLModelASTReader.parseJavaFileContents(notParsed, parsingPool);
+		for(String filePath : newlyParsed.keySet()) {
+			CompilationUnit compilationUnit = newlyParsed.get(filePath);
+			parsed.put(filePath, compilationUnit);
+			ObjectId blobId = fileBlobIds.get(filePath);
+			if(blobId != null) {
+				compilationUnits.put(new CompilationUnitKey(blobId, filePath), compilationUnit);
+				misses++;
+			}
+		}
+		return new UMLModelASTReader(fileContents, parsed, repositoryDirectories, astDiff, parsingPool, symbols).getUmlModel();
+	}
+
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	public synchronized void clear() {
+		compilationUnits.clear();
+	}
+
+	private static class CompilationUnitKey {
+		private final ObjectId blobId;
+		private final String filePath;
+
+		private CompilationUnitKey(ObjectId blobId, String filePath) {
+			this.blobId = blobId.copy();
+			this.filePath = filePath;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(blobId, filePath);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj instanceof CompilationUnitKey) {
+				CompilationUnitKey other = (CompilationUnitKey) obj;
+				return blobId.equals(other.blobId) && filePath.equals(other.filePath);
+			}
+			return false;
+		}
+	}
+}
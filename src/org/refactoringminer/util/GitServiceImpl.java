@@ -34,6 +34,9 @@ import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.TrackingRefUpdate;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
 import org.refactoringminer.api.Churn;
 import org.refactoringminer.api.GitService;
@@ -46,6 +49,18 @@ public class GitServiceImpl implements GitService {
 	Logger logger = LoggerFactory.getLogger(GitServiceImpl.class);
 
 	DefaultCommitsFilter commitsFilter = new DefaultCommitsFilter();
+	private int renameLimit = 0;
+
+	/**
+	 * @param renameLimit The maximum number of added or deleted Java files in a commit for which renamed files are detected by content similarity.
+	 * Above the limit, only the files renamed without changes are detected. By default, the diff.renameLimit setting of the repository is used.
+	 */
+	public void setRenameLimit(int renameLimit) {
+		if (renameLimit < 1) {
+			throw new IllegalArgumentException("renameLimit must be at least 1");
+		}
+		this.renameLimit = renameLimit;
+	}
 	
 	@Override
 	public Repository cloneIfNotExists(String projectPath, String cloneUrl/*, String branch*/) throws Exception {
@@ -292,11 +307,16 @@ public class GitServiceImpl implements GitService {
 	        ObjectId newTree = currentCommit.getTree();
         	final TreeWalk tw = new TreeWalk(repository);
         	tw.setRecursive(true);
+        	//only the Java files are scanned and compared for renames
+        	tw.setFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, PathSuffixFilter.create(".java")));
         	tw.addTree(oldTree);
         	tw.addTree(newTree);
 
         	final RenameDetector rd = new RenameDetector(repository);
         	rd.setRenameScore(55);
+        	if (renameLimit > 0) {
+        		rd.setRenameLimit(renameLimit);
+        	}
         	rd.addAll(DiffEntry.scan(tw));
 
         	for (DiffEntry diff : rd.compute(tw.getObjectReader(), null)) {
@@ -0,0 +1,108 @@
+package org.refactoringminer.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import gr.uom.java.xmi.diff.CodeRange;
+
+/**
+ * Streams the refactorings of each commit to a file as soon as the commit is handled, without building the output in memory.
+ * <p>
+ * By default the file contains a single JSON document of the form {@code {"commits": [...]}}.
+ * In JSON Lines mode every commit is written as a separate JSON object on its own line, so that the file can be consumed while it is being written.
+ * Files whose name ends with {@code .gz} are gzip-compressed.
+ */
+public class RefactoringJSONWriter implements Closeable {
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private final JsonGenerator generator;
+	private final boolean jsonLines;
+
+	public RefactoringJSONWriter(Path path, boolean jsonLines) throws IOException {
+		this.jsonLines = jsonLines;
+		OutputStream out = new BufferedOutputStream(Files.newOutputStream(path));
+		if (path.getFileName().toString().endsWith(".gz")) {
+			//sync flush, so that each flushed commit can be decompressed by a reader tailing the file
+			out = new GZIPOutputStream(out, true);
+		}
+		this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+		if (jsonLines) {
+			generator.setRootValueSeparator(null);
+		}
+		else {
+			generator.useDefaultPrettyPrinter();
+			generator.writeStartObject();
+			generator.writeArrayFieldStart("commits");
+		}
+	}
+
+	public void writeCommit(String cloneURL, String commitId, List<Refactoring> refactorings) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("repository", cloneURL);
+		generator.writeStringField("sha1", commitId);
+		generator.writeStringField("url", GitHistoryRefactoringMinerImpl.extractCommitURL(cloneURL, commitId));
+		generator.writeArrayFieldStart("refactorings");
+		for (Refactoring refactoring : refactorings) {
+			writeRefactoring(refactoring);
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+		if (jsonLines) {
+			generator.writeRaw('\n');
+		}
+		generator.flush();
+	}
+
+	private void writeRefactoring(Refactoring refactoring) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("type", refactoring.getName());
+		generator.writeStringField("description", refactoring.toString().replace('\t', ' '));
+		writeCodeRanges("leftSideLocations", refactoring.leftSide());
+		writeCodeRanges("rightSideLocations", refactoring.rightSide());
+		generator.writeEndObject();
+	}
+
+	private void writeCodeRanges(String fieldName, List<CodeRange> ranges) throws IOException {
+		generator.writeArrayFieldStart(fieldName);
+		for (CodeRange range : ranges) {
+			generator.writeStartObject();
+			generator.writeStringField("filePath", range.getFilePath());
+			generator.writeNumberField("startLine", range.getStartLine());
+			generator.writeNumberField("endLine", range.getEndLine());
+			generator.writeNumberField("startColumn", range.getStartColumn());
+			generator.writeNumberField("endColumn", range.getEndColumn());
+			generator.writeStringField("codeElementType", range.getCodeElementType().name());
+			generator.writeStringField("description", range.getDescription());
+			generator.writeStringField("codeElement", range.getCodeElement());
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+	}
+
+	/**
+	 * Complete the JSON document, if any, and close the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (!jsonLines) {
+				generator.writeEndArray();
+				generator.writeEndObject();
+			}
+		} finally {
+			generator.close();
+		}
+	}
+}